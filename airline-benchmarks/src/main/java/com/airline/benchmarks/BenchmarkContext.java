@@ -0,0 +1,67 @@
+package com.airline.benchmarks;
+
+import com.airline.AirlineApplication;
+import com.airline.model.Flight;
+import com.airline.service.FlightService;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Starts the airline application for a benchmark run.
+ * The application runs without a web server on the "benchmark" profile, which swaps MySQL for
+ * an in-memory H2 database and turns logging down to WARN.
+ */
+final class BenchmarkContext {
+
+    /**
+     * Airports the seeded flights fly between
+     */
+    private static final String[] AIRPORTS = {"DEL", "BOM", "BLR", "MAA", "CCU", "HYD", "PNQ", "GOI"};
+
+    private BenchmarkContext() {
+    }
+
+    /**
+     * Starts the application context
+     * @param args extra properties in command line form, e.g. --flight.cache.enabled=false
+     * @return the running context, to be closed in the benchmark tear down
+     */
+    static ConfigurableApplicationContext start(String... args) {
+        return new SpringApplicationBuilder(AirlineApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("benchmark")
+                .logStartupInfo(false)
+                .run(args);
+    }
+
+    /**
+     * Creates a flight with realistic field values
+     * @param i sequence number of the flight
+     * @return a new, unsaved flight
+     */
+    static Flight flight(int i) {
+        String source = AIRPORTS[i % AIRPORTS.length];
+        String destination = AIRPORTS[(i / AIRPORTS.length + i + 1) % AIRPORTS.length];
+        return new Flight(0, "AI" + (100 + i), source, destination, 2500.0 + (i * 37) % 7500);
+    }
+
+    /**
+     * Saves the given number of flights
+     * @param flightService the service to save through
+     * @param count number of flights
+     * @return the IDs of the saved flights
+     */
+    static List<Integer> seed(FlightService flightService, int count) {
+        List<Flight> flights = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            flights.add(flight(i));
+        }
+        List<Integer> ids = new ArrayList<>(count);
+        flightService.addFlights(flights).getItems().forEach(item -> ids.add(item.getFlightId()));
+        return ids;
+    }
+}
@@ -0,0 +1,50 @@
+package com.airline.benchmarks;
+
+import com.airline.controller.FlightController;
+import com.airline.model.FlightWithIP;
+import com.airline.service.FlightService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * FlightController.getAllFlight(null) at several table sizes: loading the flights through the
+ * service and mapping each one to a FlightWithIP, without the HTTP layer in front.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FlightControllerBenchmark {
+
+    /**
+     * Number of flights in the table
+     */
+    @Param({"10", "100", "1000"})
+    public int listSize;
+
+    private ConfigurableApplicationContext context;
+    private FlightController flightController;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        flightController = context.getBean(FlightController.class);
+        BenchmarkContext.seed(context.getBean(FlightService.class), listSize);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public ResponseEntity<List<FlightWithIP>> getAllFlight() {
+        return flightController.getAllFlight(null);
+    }
+}
@@ -0,0 +1,69 @@
+package com.airline.benchmarks;
+
+import com.airline.model.Flight;
+import com.airline.model.FlightWithIP;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of Flight and FlightWithIP lists, as written by the list endpoints,
+ * and deserialization of Flight lists, as read by the bulk endpoints.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FlightJsonBenchmark {
+
+    /**
+     * Number of flights in the list
+     */
+    @Param({"1", "100", "1000"})
+    public int listSize;
+
+    /**
+     * Built the same way Spring Boot builds the application's object mapper
+     */
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private List<Flight> flights;
+    private List<FlightWithIP> flightsWithIP;
+    private byte[] flightsJson;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        flights = new ArrayList<>(listSize);
+        flightsWithIP = new ArrayList<>(listSize);
+        for (int i = 0; i < listSize; i++) {
+            Flight flight = BenchmarkContext.flight(i);
+            flight.setFlightId(i + 1);
+            flights.add(flight);
+            flightsWithIP.add(new FlightWithIP(flight, "10.0.0.1"));
+        }
+        flightsJson = objectMapper.writeValueAsBytes(flights);
+    }
+
+    @Benchmark
+    public byte[] writeFlights() throws Exception {
+        return objectMapper.writeValueAsBytes(flights);
+    }
+
+    @Benchmark
+    public byte[] writeFlightsWithIP() throws Exception {
+        return objectMapper.writeValueAsBytes(flightsWithIP);
+    }
+
+    @Benchmark
+    public List<Flight> readFlights() throws Exception {
+        return objectMapper.readValue(flightsJson, new TypeReference<List<Flight>>() {
+        });
+    }
+}
@@ -0,0 +1,83 @@
+package com.airline.benchmarks;
+
+import com.airline.model.Flight;
+import com.airline.service.FlightService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CRUD operations of FlightServiceImpl against H2, with and without caching. Without it, both the
+ * flight cache and Hibernate's second-level and query caches are off, so every read reaches H2.
+ * The table holds a fixed number of flights; the write benchmarks leave its size unchanged.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FlightServiceBenchmark {
+
+    /**
+     * Number of flights in the table
+     */
+    private static final int FLIGHTS = 1000;
+
+    /**
+     * Whether the in-memory flight cache and Hibernate's second-level and query caches are on
+     */
+    @Param({"true", "false"})
+    public boolean cacheEnabled;
+
+    private ConfigurableApplicationContext context;
+    private FlightService flightService;
+    private int[] flightIds;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start("--flight.cache.enabled=" + cacheEnabled,
+                "--spring.jpa.properties.hibernate.cache.use_second_level_cache=" + cacheEnabled,
+                "--spring.jpa.properties.hibernate.cache.use_query_cache=" + cacheEnabled);
+        flightService = context.getBean(FlightService.class);
+        List<Integer> ids = BenchmarkContext.seed(flightService, FLIGHTS);
+        flightIds = ids.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    /**
+     * Cycles through the seeded flight IDs so every read is for a different flight than the last
+     */
+    private int nextFlightId() {
+        int flightId = flightIds[next];
+        next = (next + 1) % flightIds.length;
+        return flightId;
+    }
+
+    @Benchmark
+    public Flight getFlight() throws Exception {
+        return flightService.getFlight(nextFlightId());
+    }
+
+    @Benchmark
+    public Flight updateFlight() {
+        int flightId = nextFlightId();
+        Flight flight = BenchmarkContext.flight(flightId);
+        flight.setFlightId(flightId);
+        return flightService.updateFlight(flightId, flight);
+    }
+
+    @Benchmark
+    public Flight addAndDeleteFlight() {
+        Flight flight = flightService.addFlight(BenchmarkContext.flight(next++));
+        flightService.deleteFlight(flight.getFlightId());
+        return flight;
+    }
+}
@@ -0,0 +1,129 @@
+package com.airline.benchmarks;
+
+import com.airline.model.Flight;
+import com.airline.model.FlightWithIP;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * JSON against the binary Smile and CBOR encodings the flight endpoints offer, for the
+ * FlightWithIP list of GET /flight/ and the Flight list read by the bulk endpoints. The mappers
+ * are configured like the application's converters in WireFormatConfig.
+ *
+ * Time is measured by the benchmarks. Payload sizes, plain and gzipped, are appended once per
+ * trial to the CSV file named by the wire-format.sizes system property (wire-format-sizes.csv),
+ * since JMH only reports aux counters summed over the iterations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FlightWireFormatBenchmark {
+
+    /**
+     * Encoding under test
+     */
+    @Param({"json", "smile", "cbor"})
+    public String format;
+
+    /**
+     * Number of flights in the list
+     */
+    @Param({"100", "1000"})
+    public int listSize;
+
+    /**
+     * File the payload sizes are appended to
+     */
+    private static final Path SIZES_FILE = Path.of(System.getProperty("wire-format.sizes", "wire-format-sizes.csv"));
+
+    private ObjectMapper mapper;
+    private List<Flight> flights;
+    private List<FlightWithIP> flightsWithIP;
+    private byte[] encodedFlights;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        mapper = mapperFor(format);
+        flights = new ArrayList<>(listSize);
+        flightsWithIP = new ArrayList<>(listSize);
+        for (int i = 0; i < listSize; i++) {
+            Flight flight = BenchmarkContext.flight(i);
+            flight.setFlightId(i + 1);
+            flights.add(flight);
+            flightsWithIP.add(new FlightWithIP(flight, "10.0.0.1"));
+        }
+        encodedFlights = mapper.writeValueAsBytes(flights);
+        byte[] encodedList = mapper.writeValueAsBytes(flightsWithIP);
+        writeSizes(List.of(
+                String.join(",", format, Integer.toString(listSize), "FlightWithIP",
+                        Integer.toString(encodedList.length), Integer.toString(gzip(encodedList).length)),
+                String.join(",", format, Integer.toString(listSize), "Flight",
+                        Integer.toString(encodedFlights.length), Integer.toString(gzip(encodedFlights).length))));
+    }
+
+    @Benchmark
+    public byte[] writeFlightsWithIP() throws Exception {
+        return mapper.writeValueAsBytes(flightsWithIP);
+    }
+
+    @Benchmark
+    public List<Flight> readFlights() throws Exception {
+        return mapper.readValue(encodedFlights, new TypeReference<List<Flight>>() {
+        });
+    }
+
+    private static ObjectMapper mapperFor(String format) {
+        switch (format) {
+            case "json":
+                return Jackson2ObjectMapperBuilder.json().build();
+            case "smile":
+                return Jackson2ObjectMapperBuilder.smile()
+                        .factory(SmileFactory.builder().enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES).build())
+                        .build();
+            case "cbor":
+                return Jackson2ObjectMapperBuilder.cbor().factory(new CBORFactory()).build();
+            default:
+                throw new IllegalArgumentException("Unknown format " + format);
+        }
+    }
+
+    /**
+     * Appends rows to the sizes file, starting it with a header. Trials run one after the other,
+     * each in its own fork, so the appends do not interleave.
+     */
+    private static void writeSizes(List<String> rows) throws IOException {
+        List<String> lines = new ArrayList<>();
+        if (!Files.exists(SIZES_FILE)) {
+            lines.add("format,listSize,list,bytes,gzippedBytes");
+        }
+        lines.addAll(rows);
+        Files.write(SIZES_FILE, lines, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,25 @@
+package com.airline.reactive;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+/**
+ * Main Spring Boot application class for the reactive flight API.
+ * 
+ * Serves the read side of the /flight API from a few event loop threads using WebFlux and
+ * R2DBC, over the same flight table as the servlet application. Writes stay with the servlet
+ * application, which owns flight ID generation and the flight caches.
+ */
+@SpringBootApplication
+public class ReactiveAirlineApplication {
+
+	/**
+	 * Main method that starts the Spring Boot application.
+	 * 
+	 * @param args Command line arguments passed to the application
+	 */
+	public static void main(String[] args) {
+		SpringApplication.run(ReactiveAirlineApplication.class, args);
+	}
+
+}
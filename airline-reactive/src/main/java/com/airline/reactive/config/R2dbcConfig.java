@@ -0,0 +1,26 @@
+package com.airline.reactive.config;
+
+import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+/**
+ * R2DBC configuration.
+ * Spring Boot creates the pooled ConnectionFactory from the spring.r2dbc.* properties; this
+ * class exposes the DatabaseClient the repository runs its statements through.
+ */
+@Configuration(proxyBeanMethods = false)
+public class R2dbcConfig {
+
+    /**
+     * Non-blocking SQL client over the configured connection factory
+     *
+     * @param connectionFactory the pooled R2DBC connection factory
+     * @return the database client
+     */
+    @Bean
+    public DatabaseClient databaseClient(ConnectionFactory connectionFactory) {
+        return DatabaseClient.create(connectionFactory);
+    }
+}
@@ -0,0 +1,136 @@
+package com.airline.reactive.controller;
+
+import com.airline.reactive.model.Flight;
+import com.airline.reactive.model.FlightPage;
+import com.airline.reactive.repository.ReactiveFlightRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Non-blocking controller for the read side of the /flight API.
+ * 
+ * Responses are streamed from the database as rows arrive, so no request thread is held while
+ * the query runs. List endpoints produce a JSON array by default and one JSON object per line
+ * for clients that accept application/x-ndjson; the page endpoint returns the same page object
+ * and cursor as the servlet application.
+ */
+@RestController
+@RequestMapping("/flight")
+public class ReactiveFlightController {
+
+    /**
+     * Logger for this class
+     */
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveFlightController.class);
+
+    /**
+     * Media type for newline delimited JSON
+     */
+    public static final String APPLICATION_NDJSON = "application/x-ndjson";
+
+    /**
+     * Repository for reading flights without blocking
+     */
+    @Autowired
+    private ReactiveFlightRepository flightRepository;
+
+    /**
+     * Number of flights returned when no limit is given
+     */
+    @Value("${flight.page.default-size:50}")
+    private int defaultPageSize = 50;
+
+    /**
+     * Upper bound on the number of flights returned by one page or route lookup
+     */
+    @Value("${flight.page.max-size:500}")
+    private int maxPageSize = 500;
+
+    /**
+     * Streams every flight ordered by ID
+     * @return all flights
+     */
+    @GetMapping(value = "/", produces = {MediaType.APPLICATION_JSON_VALUE, APPLICATION_NDJSON})
+    public Flux<Flight> getAllFlight() {
+        return flightRepository.findAll()
+                .doOnError(e -> logger.error("Error while fetching flights: {}", e.getMessage()));
+    }
+
+    /**
+     * Returns one page of flights after a continuation cursor, in the same format as the servlet
+     * application. One extra row is read to find out whether another page follows; the page is
+     * bounded by the maximum page size, so it is returned as a whole rather than streamed.
+     * @param cursor the nextCursor of the previous page, omitted for the first page
+     * @param limit maximum number of flights to return, 0 for the default page size
+     * @return up to limit flights ordered by ID and the cursor of the next page, 400 for a malformed cursor
+     */
+    @GetMapping(value = "/page", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<FlightPage> getFlightPage(@RequestParam(value = "cursor", required = false) String cursor,
+                                          @RequestParam(value = "limit", defaultValue = "0") int limit) {
+        int after;
+        try {
+            after = FlightCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+        int pageSize = pageSize(limit);
+        return flightRepository.findByFlightIdGreaterThan(after, pageSize + 1)
+                .collectList()
+                .map(flights -> {
+                    if (flights.size() <= pageSize) {
+                        return new FlightPage(flights, null);
+                    }
+                    List<Flight> page = flights.subList(0, pageSize);
+                    return new FlightPage(page, FlightCursor.encode(page.get(pageSize - 1).getFlightId()));
+                })
+                .doOnError(e -> logger.error("Error while fetching flight page after {}: {}", after, e.getMessage()));
+    }
+
+    /**
+     * Returns the flights of one route, cheapest first
+     * @param source the departure location
+     * @param destination the arrival location
+     * @param limit maximum number of flights to return, 0 for the default page size
+     * @return the flights of the route
+     */
+    @GetMapping(value = "/route", produces = {MediaType.APPLICATION_JSON_VALUE, APPLICATION_NDJSON})
+    public Flux<Flight> getRouteFlights(@RequestParam("source") String source,
+                                        @RequestParam("destination") String destination,
+                                        @RequestParam(value = "limit", defaultValue = "0") int limit) {
+        return flightRepository.findRoute(source, destination, pageSize(limit))
+                .doOnError(e -> logger.error("Error while fetching flights from {} to {}: {}",
+                        source, destination, e.getMessage()));
+    }
+
+    /**
+     * Returns a flight by its ID
+     * @param flightId the flight ID
+     * @return the flight, or 404 if it does not exist
+     */
+    @GetMapping("/{flightId}")
+    public Mono<Flight> getFlight(@PathVariable("flightId") int flightId) {
+        return flightRepository.findById(flightId)
+                .switchIfEmpty(Mono.error(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
+                        "Flight not found with id: " + flightId)));
+    }
+
+    /**
+     * Clamps a requested page size to the configured bounds
+     */
+    private int pageSize(int limit) {
+        if (limit < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must not be negative");
+        }
+        return limit == 0 ? defaultPageSize : Math.min(limit, maxPageSize);
+    }
+}
@@ -0,0 +1,126 @@
+package com.airline.reactive.model;
+
+import java.util.Objects;
+
+/**
+ * Flight read from the flight table.
+ * Mirrors the JPA entity of the servlet application and produces the same JSON.
+ */
+public class Flight {
+
+    /**
+     * Unique identifier for the flight
+     */
+    private int flightId;
+
+    /**
+     * Name of the flight
+     */
+    private String flightName;
+
+    /**
+     * Departure location of the flight
+     */
+    private String source;
+
+    /**
+     * Arrival location of the flight
+     */
+    private String destination;
+
+    /**
+     * Price of the flight ticket
+     */
+    private Double ticketPrice;
+
+    /**
+     * Default constructor required for mapping
+     */
+    public Flight() {
+    }
+
+    /**
+     * Parameterized constructor to create a flight with all attributes
+     *
+     * @param flightId Unique identifier for the flight
+     * @param flightName Name of the flight
+     * @param source Departure location
+     * @param destination Arrival location
+     * @param ticketPrice Price of the ticket
+     */
+    public Flight(int flightId, String flightName, String source, String destination, Double ticketPrice) {
+        this.flightId = flightId;
+        this.flightName = flightName;
+        this.source = source;
+        this.destination = destination;
+        this.ticketPrice = ticketPrice;
+    }
+
+    public int getFlightId() {
+        return flightId;
+    }
+
+    public void setFlightId(int flightId) {
+        this.flightId = flightId;
+    }
+
+    public String getFlightName() {
+        return flightName;
+    }
+
+    public void setFlightName(String flightName) {
+        this.flightName = flightName;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public void setSource(String source) {
+        this.source = source;
+    }
+
+    public String getDestination() {
+        return destination;
+    }
+
+    public void setDestination(String destination) {
+        this.destination = destination;
+    }
+
+    public Double getTicketPrice() {
+        return ticketPrice;
+    }
+
+    public void setTicketPrice(Double ticketPrice) {
+        this.ticketPrice = ticketPrice;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Flight flight = (Flight) o;
+        return flightId == flight.flightId
+                && Objects.equals(flightName, flight.flightName)
+                && Objects.equals(source, flight.source)
+                && Objects.equals(destination, flight.destination)
+                && Objects.equals(ticketPrice, flight.ticketPrice);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(flightId, flightName, source, destination, ticketPrice);
+    }
+
+    @Override
+    public String toString() {
+        return "Flight{" +
+                "flightId=" + flightId +
+                ", flightName='" + flightName + '\'' +
+                ", source='" + source + '\'' +
+                ", destination='" + destination + '\'' +
+                ", ticketPrice=" + ticketPrice +
+                '}';
+    }
+}
@@ -0,0 +1,55 @@
+package com.airline.reactive.model;
+
+import java.util.List;
+
+/**
+ * One page of a cursor based flight listing.
+ * Mirrors the FlightPage of the servlet application and produces the same JSON. The nextCursor
+ * is an opaque token that has to be passed back to fetch the next page; it is null when there are
+ * no more flights.
+ */
+public class FlightPage {
+
+    /**
+     * The flights on this page, ordered by flight ID
+     */
+    private List<Flight> flights;
+
+    /**
+     * Continuation token for the next page, or null if this is the last page
+     */
+    private String nextCursor;
+
+    /**
+     * Default constructor required for mapping
+     */
+    public FlightPage() {
+    }
+
+    /**
+     * Creates a page
+     *
+     * @param flights the flights on the page
+     * @param nextCursor continuation token for the next page, or null
+     */
+    public FlightPage(List<Flight> flights, String nextCursor) {
+        this.flights = flights;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<Flight> getFlights() {
+        return flights;
+    }
+
+    public void setFlights(List<Flight> flights) {
+        this.flights = flights;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
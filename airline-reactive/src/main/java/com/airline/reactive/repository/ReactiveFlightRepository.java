@@ -0,0 +1,98 @@
+package com.airline.reactive.repository;
+
+import com.airline.reactive.model.Flight;
+import io.r2dbc.spi.Readable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive repository for the flight table.
+ * Results are emitted row by row as the driver decodes them, without blocking a thread.
+ */
+@Repository
+public class ReactiveFlightRepository {
+
+    /**
+     * Columns selected by every query, in the order the row mapper reads them
+     */
+    private static final String SELECT_FLIGHT =
+            "SELECT flight_id, flight_name, source, destination, ticket_price FROM flight";
+
+    /**
+     * Non-blocking SQL client
+     */
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    /**
+     * Finds a flight by its ID
+     *
+     * @param flightId the flight ID
+     * @return the flight, or an empty Mono if it does not exist
+     */
+    public Mono<Flight> findById(int flightId) {
+        return databaseClient.sql(SELECT_FLIGHT + " WHERE flight_id = :flightId")
+                .bind("flightId", flightId)
+                .map(ReactiveFlightRepository::toFlight)
+                .one();
+    }
+
+    /**
+     * Keyset query for cursor based listing, the reactive counterpart of the servlet application
+     *
+     * @param flightId the last flight ID already returned (0 for the first page)
+     * @param limit maximum number of rows
+     * @return flights with an ID greater than the given one, ordered by ID
+     */
+    public Flux<Flight> findByFlightIdGreaterThan(int flightId, int limit) {
+        return databaseClient.sql(SELECT_FLIGHT + " WHERE flight_id > :flightId ORDER BY flight_id LIMIT :limit")
+                .bind("flightId", flightId)
+                .bind("limit", limit)
+                .map(ReactiveFlightRepository::toFlight)
+                .all();
+    }
+
+    /**
+     * Streams every flight ordered by ID
+     *
+     * @return all flights
+     */
+    public Flux<Flight> findAll() {
+        return databaseClient.sql(SELECT_FLIGHT + " ORDER BY flight_id")
+                .map(ReactiveFlightRepository::toFlight)
+                .all();
+    }
+
+    /**
+     * Finds the flights of one route, cheapest first, using the route index on the flight table
+     *
+     * @param source the departure location
+     * @param destination the arrival location
+     * @param limit maximum number of rows
+     * @return the flights of the route ordered by ticket price
+     */
+    public Flux<Flight> findRoute(String source, String destination, int limit) {
+        return databaseClient.sql(SELECT_FLIGHT + " WHERE source = :source AND destination = :destination"
+                        + " ORDER BY ticket_price, flight_id LIMIT :limit")
+                .bind("source", source)
+                .bind("destination", destination)
+                .bind("limit", limit)
+                .map(ReactiveFlightRepository::toFlight)
+                .all();
+    }
+
+    /**
+     * Maps one row of SELECT_FLIGHT to a flight
+     */
+    private static Flight toFlight(Readable row) {
+        Integer flightId = row.get("flight_id", Integer.class);
+        return new Flight(flightId == null ? 0 : flightId,
+                row.get("flight_name", String.class),
+                row.get("source", String.class),
+                row.get("destination", String.class),
+                row.get("ticket_price", Double.class));
+    }
+}
@@ -0,0 +1,127 @@
+package com.airline.reactive.controller;
+
+import com.airline.reactive.model.Flight;
+import com.airline.reactive.model.FlightPage;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class ReactiveFlightControllerTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Test
+    void testGetAllFlight() {
+        // Act
+        List<Flight> flights = webTestClient.get().uri("/flight/")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(Flight.class)
+                .returnResult().getResponseBody();
+
+        // Assert
+        assertEquals(List.of(1, 2, 3, 4, 5), flightIds(flights));
+        assertEquals(new Flight(1, "AI101", "Delhi", "Mumbai", 5000.0), flights.get(0));
+    }
+
+    @Test
+    void testGetAllFlightAsNdjson() {
+        // Act
+        Flux<Flight> flights = webTestClient.get().uri("/flight/")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .returnResult(Flight.class).getResponseBody();
+
+        // Assert
+        StepVerifier.create(flights.map(Flight::getFlightId))
+                .expectNext(1, 2, 3, 4, 5)
+                .verifyComplete();
+    }
+
+    @Test
+    void testGetFlightPage() {
+        // Act
+        FlightPage firstPage = webTestClient.get().uri("/flight/page")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(FlightPage.class)
+                .returnResult().getResponseBody();
+        FlightPage nextPage = webTestClient.get().uri("/flight/page?cursor=" + firstPage.getNextCursor() + "&limit=10")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(FlightPage.class)
+                .returnResult().getResponseBody();
+
+        // Assert
+        assertEquals(List.of(1, 2), flightIds(firstPage.getFlights()));
+        assertEquals(FlightCursor.encode(2), firstPage.getNextCursor());
+        assertEquals(List.of(3, 4, 5), flightIds(nextPage.getFlights()));
+        assertNull(nextPage.getNextCursor());
+    }
+
+    @Test
+    void testGetFlightPageWithMalformedCursor() {
+        // Act & Assert
+        webTestClient.get().uri("/flight/page?cursor=2")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void testGetFlightPageWithNegativeLimit() {
+        // Act & Assert
+        webTestClient.get().uri("/flight/page?limit=-1")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void testGetRouteFlightsSortedByPrice() {
+        // Act
+        List<Flight> flights = webTestClient.get().uri("/flight/route?source=Delhi&destination=Mumbai&limit=3")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(Flight.class)
+                .returnResult().getResponseBody();
+
+        // Assert
+        assertEquals(List.of(2, 1, 3), flightIds(flights));
+    }
+
+    @Test
+    void testGetFlight() {
+        // Act & Assert
+        webTestClient.get().uri("/flight/4")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(Flight.class)
+                .isEqualTo(new Flight(4, "SG202", "Mumbai", "Delhi", 4500.0));
+    }
+
+    @Test
+    void testGetFlightNotFound() {
+        // Act & Assert
+        webTestClient.get().uri("/flight/99")
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    private static List<Integer> flightIds(List<Flight> flights) {
+        return flights.stream().map(Flight::getFlightId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,6 @@
+INSERT INTO flight (flight_id, flight_name, source, destination, ticket_price) VALUES
+    (1, 'AI101', 'Delhi', 'Mumbai', 5000.0),
+    (2, 'AI102', 'Delhi', 'Mumbai', 4200.0),
+    (3, 'AI103', 'Delhi', 'Mumbai', 6100.0),
+    (4, 'SG202', 'Mumbai', 'Delhi', 4500.0),
+    (5, 'UK303', 'Delhi', 'Chennai', 3000.0);
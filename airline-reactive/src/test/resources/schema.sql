@@ -0,0 +1,11 @@
+DROP TABLE IF EXISTS flight;
+
+CREATE TABLE flight (
+    flight_id INT PRIMARY KEY,
+    flight_name VARCHAR(255),
+    source VARCHAR(255),
+    destination VARCHAR(255),
+    ticket_price DOUBLE
+);
+
+CREATE INDEX idx_flight_route_price ON flight (source, destination, ticket_price);
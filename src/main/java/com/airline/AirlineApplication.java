@@ -3,6 +3,7 @@ package com.airline;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -19,6 +20,7 @@ import java.util.concurrent.Executors;
  * endpoints for creating, reading, updating, and deleting flight information.
  */
 @SpringBootApplication
+@EnableScheduling
 public class AirlineApplication {
 
 	/**
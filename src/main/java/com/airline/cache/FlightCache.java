@@ -0,0 +1,210 @@
+package com.airline.cache;
+
+import com.airline.model.Flight;
+import com.airline.model.FlightCacheStats;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded in-memory cache of flights keyed by flight ID.
+ * Entries are evicted when the cache grows past its maximum size or when they are older
+ * than the configured TTL. When the cache is disabled every lookup is a miss and all
+ * writes are ignored, so callers do not need to check whether it is switched on.
+ * The cache counters are also published as cache.* metrics with the tag cache=flights.
+ * Flights are copied on the way in and out, so callers can never change a cached entry, and
+ * a put never replaces a newer version of a flight with an older one.
+ */
+@Component
+public class FlightCache implements MeterBinder {
+
+    /**
+     * Logger for this class
+     */
+    private static final Logger logger = LoggerFactory.getLogger(FlightCache.class);
+
+    /**
+     * Name of the cache in the published metrics
+     */
+    public static final String METRICS_NAME = "flights";
+
+    /**
+     * The underlying cache, null when caching is disabled
+     */
+    private final Cache<Integer, Flight> cache;
+
+    /**
+     * Number of invalidation stamps; flight IDs share a stamp by their low bits
+     */
+    private static final int STAMPS = 1024;
+
+    /**
+     * Invalidation counters by flight ID, bumped by every invalidation so that a load which
+     * read the database before the invalidation can tell its result is stale
+     */
+    private final AtomicLongArray invalidationStamps = new AtomicLongArray(STAMPS);
+
+    /**
+     * Creates the cache from the flight.cache.* properties
+     *
+     * @param enabled whether flights are cached at all
+     * @param maximumSize maximum number of flights kept in memory
+     * @param ttl how long a flight may stay cached after it was written
+     */
+    public FlightCache(@Value("${flight.cache.enabled:true}") boolean enabled,
+                       @Value("${flight.cache.maximum-size:10000}") long maximumSize,
+                       @Value("${flight.cache.ttl:PT10M}") Duration ttl) {
+        if (enabled) {
+            this.cache = Caffeine.newBuilder()
+                    .maximumSize(maximumSize)
+                    .expireAfterWrite(ttl)
+                    .recordStats()
+                    .build();
+            logger.info("Flight cache enabled with maximum size {} and TTL {}", maximumSize, ttl);
+        } else {
+            this.cache = null;
+            logger.info("Flight cache disabled");
+        }
+    }
+
+    /**
+     * Check whether the cache is switched on
+     * @return true if flights are cached
+     */
+    public boolean isEnabled() {
+        return cache != null;
+    }
+
+    /**
+     * Looks up a cached flight
+     *
+     * @param flightId the flight ID
+     * @return a copy of the cached flight, or null if it is not cached
+     */
+    public Flight getIfPresent(int flightId) {
+        Flight cached = cache == null ? null : cache.getIfPresent(flightId);
+        return cached == null ? null : cached.copy();
+    }
+
+    /**
+     * Adds or replaces the cached copy of a flight, unless a newer version is already cached
+     *
+     * @param flight the flight as it is stored in the database
+     */
+    public void put(Flight flight) {
+        if (cache != null && flight != null) {
+            cache.asMap().merge(flight.getFlightId(), flight.copy(), FlightCache::newer);
+        }
+    }
+
+    /**
+     * Marks the start of a database load of a flight; pass the result to {@link #putLoaded}
+     *
+     * @param flightId the flight ID about to be loaded
+     * @return the invalidation stamp of the flight before the load
+     */
+    public long beginLoad(int flightId) {
+        return invalidationStamps.get(stampOf(flightId));
+    }
+
+    /**
+     * Caches a flight read from the database, unless the flight was invalidated after the
+     * load began: the row read may then be older than the change that invalidated it.
+     * The check and the put are atomic with respect to {@link #invalidate}.
+     *
+     * @param flight the loaded flight
+     * @param stamp the stamp returned by {@link #beginLoad} before the load
+     */
+    public void putLoaded(Flight flight, long stamp) {
+        if (cache != null && flight != null) {
+            Flight copy = flight.copy();
+            cache.asMap().compute(flight.getFlightId(), (id, current) -> {
+                if (invalidationStamps.get(stampOf(id)) != stamp) {
+                    return current;
+                }
+                return current == null ? copy : newer(current, copy);
+            });
+        }
+    }
+
+    /**
+     * Removes a flight from the cache
+     *
+     * @param flightId the flight ID
+     */
+    public void invalidate(int flightId) {
+        if (cache != null) {
+            cache.asMap().compute(flightId, (id, current) -> {
+                invalidationStamps.incrementAndGet(stampOf(id));
+                return null;
+            });
+        }
+    }
+
+    /**
+     * Removes every flight from the cache
+     */
+    public void invalidateAll() {
+        if (cache != null) {
+            for (int i = 0; i < STAMPS; i++) {
+                invalidationStamps.incrementAndGet(i);
+            }
+            cache.invalidateAll();
+        }
+    }
+
+    /**
+     * Picks the entry to keep when a flight is put over a cached one
+     *
+     * @param current the cached flight
+     * @param candidate the flight being put
+     * @return the candidate unless the cached flight has a higher version
+     */
+    private static Flight newer(Flight current, Flight candidate) {
+        return candidate.getVersion() >= current.getVersion() ? candidate : current;
+    }
+
+    /**
+     * Get the stamp slot of a flight
+     * @param flightId the flight ID
+     * @return the index into the invalidation stamps
+     */
+    private static int stampOf(int flightId) {
+        return flightId & (STAMPS - 1);
+    }
+
+    /**
+     * Get a snapshot of the cache counters
+     * @return the current hit, miss and eviction counts
+     */
+    public FlightCacheStats stats() {
+        if (cache == null) {
+            return new FlightCacheStats(false, 0, 0, 0, 0, 1.0);
+        }
+        CacheStats stats = cache.stats();
+        return new FlightCacheStats(true, cache.estimatedSize(), stats.hitCount(), stats.missCount(),
+                stats.evictionCount(), stats.hitRate());
+    }
+
+    /**
+     * Registers the size, hit, miss and eviction metrics of the cache
+     *
+     * @param registry the registry to publish to
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if (cache != null) {
+            CaffeineCacheMetrics.monitor(registry, cache, METRICS_NAME);
+        }
+    }
+}
@@ -0,0 +1,543 @@
+package com.airline.cache;
+
+import com.airline.limiter.ConcurrencyLimiter;
+import com.airline.model.Flight;
+import com.airline.model.FlightPatch;
+import com.airline.repository.FlightRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * In-memory index of flights by route, used to answer "all flights from X to Y, cheapest first"
+ * without going to the database.
+ *
+ * Each route holds its flights in compact parallel arrays sorted by ticket price. The arrays are
+ * never modified once published: a write builds new arrays for the affected route and swaps them
+ * in with a single reference write. Readers therefore never take a lock and always see a complete
+ * route; writers are serialised among themselves only. Airport codes are interned so each
+ * distinct code is held in memory once, however many flights use it. Routes are keyed by the
+ * lower-cased codes, matching the case-insensitive comparison of the database fallback.
+ * A flight is never replaced by an older version of itself.
+ * The number of indexed flights and routes is published as flight.route.index.* gauges.
+ */
+@Component
+public class FlightRouteIndex implements MeterBinder {
+
+    /**
+     * Logger for this class
+     */
+    private static final Logger logger = LoggerFactory.getLogger(FlightRouteIndex.class);
+
+    /**
+     * Whether the index is maintained at all
+     */
+    private final boolean enabled;
+
+    /**
+     * The published index, null until it has been built
+     */
+    private volatile Index index;
+
+    /**
+     * Serialises writers, readers never touch it. A lock rather than synchronized so a writer
+     * blocked on the database during a rebuild does not pin a virtual thread's carrier.
+     */
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    /**
+     * IDs of the flights written while a rebuild runs, null when no rebuild runs. The rebuild
+     * reads its snapshot before these writes may have been committed, so they are read again
+     * once the new index is published. Guarded by the write lock.
+     */
+    private Set<Integer> writtenDuringBuild;
+
+    /**
+     * Repository used to build the index at startup
+     */
+    @Autowired
+    private FlightRepository flightRepository;
+
+    /**
+     * Entity manager used to detach flights while the index is built
+     */
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Transaction manager used to read the flights written during a rebuild from the primary
+     */
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * Limiter the reloads are exempt from
+     */
+    @Autowired
+    private ConcurrencyLimiter concurrencyLimiter;
+
+    /**
+     * Creates the index from the flight.route-index.* properties
+     *
+     * @param enabled whether route lookups are served from memory
+     */
+    public FlightRouteIndex(@Value("${flight.route-index.enabled:true}") boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Builds the index from the database once the application has started
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        if (!enabled) {
+            logger.info("Flight route index disabled");
+            return;
+        }
+        logger.info("Building flight route index");
+        writeLock.lock();
+        try {
+            writtenDuringBuild = new HashSet<>();
+        } finally {
+            writeLock.unlock();
+        }
+        try (Stream<Flight> flights = flightRepository.streamAll()) {
+            replaceAll(flights.peek(entityManager::detach)::iterator);
+        } finally {
+            writeLock.lock();
+            try {
+                writtenDuringBuild = null;
+            } finally {
+                writeLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Replaces the whole index with the given flights. Writers are not held up while the new
+     * index is built; flights written during a rebuild are read again after it is published.
+     *
+     * @param flights every flight in the system
+     */
+    public void replaceAll(Iterable<Flight> flights) {
+        if (!enabled) {
+            return;
+        }
+        Index fresh = new Index();
+        int count = 0;
+        for (Flight flight : flights) {
+            fresh.add(flight);
+            count++;
+        }
+        Set<Integer> written;
+        writeLock.lock();
+        try {
+            index = fresh;
+            written = writtenDuringBuild;
+            writtenDuringBuild = null;
+        } finally {
+            writeLock.unlock();
+        }
+        logger.info("Flight route index built with {} flights on {} routes", count, fresh.routes.size());
+        if (written != null && !written.isEmpty()) {
+            logger.info("Reading {} flights written during the route index build again", written.size());
+            TransactionTemplate primary = new TransactionTemplate(transactionManager);
+            primary.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            primary.executeWithoutResult(status -> reload(written));
+        }
+    }
+
+    /**
+     * Reads flights from the database again, for writes made by another instance. Flights that
+     * no longer exist are removed. Not a read-only transaction, so the flights are read from the
+     * primary and not from a replica that may not have the write yet. Not shed by the concurrency
+     * limiter, as the index would keep the old flights until the next rebuild.
+     *
+     * @param flightIds the flight IDs
+     */
+    @Transactional
+    public void reload(Collection<Integer> flightIds) {
+        if (index == null) {
+            return;
+        }
+        concurrencyLimiter.runExempt(() -> {
+            Set<Integer> missing = new HashSet<>(flightIds);
+            for (Flight flight : flightRepository.findAllById(flightIds)) {
+                put(flight);
+                missing.remove(flight.getFlightId());
+            }
+            missing.forEach(this::remove);
+        });
+    }
+
+    /**
+     * Check whether lookups can be served from the index
+     * @return true once the index has been built
+     */
+    public boolean isReady() {
+        return index != null;
+    }
+
+    /**
+     * Looks up the flights of a route, cheapest first
+     *
+     * @param source the departure location
+     * @param destination the arrival location
+     * @param limit maximum number of flights to return
+     * @return the flights of the route, or null if the index is not ready and the caller has to
+     *         go to the database instead
+     */
+    public List<Flight> find(String source, String destination, int limit) {
+        Index current = index;
+        if (current == null) {
+            return null;
+        }
+        if (source == null || destination == null) {
+            return List.of();
+        }
+        RouteFlights route = current.routes.get(new RouteKey(normalize(source), normalize(destination)));
+        if (route == null) {
+            return List.of();
+        }
+        int size = Math.min(limit, route.flightIds.length);
+        List<Flight> flights = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            double price = route.prices[i];
+            Flight flight = new Flight(route.flightIds[i], route.names[i], route.sources[i], route.destinations[i],
+                    Double.isNaN(price) ? null : price);
+            flight.setVersion(route.versions[i]);
+            flights.add(flight);
+        }
+        return flights;
+    }
+
+    /**
+     * Adds a flight or moves it to its new route and price
+     *
+     * @param flight the flight as it is stored in the database
+     */
+    public void put(Flight flight) {
+        if (flight == null) {
+            return;
+        }
+        writeLock.lock();
+        try {
+            recordWrite(flight.getFlightId());
+            Index current = index;
+            if (current != null) {
+                current.add(flight);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Applies a field level change to an indexed flight and increments its version, for writes
+     * that did not read the flight from the database
+     *
+     * @param flightId the flight ID
+     * @param patch the fields that were changed
+     */
+    public void patch(int flightId, FlightPatch patch) {
+        writeLock.lock();
+        try {
+            recordWrite(flightId);
+            Index current = index;
+            if (current != null) {
+                current.patch(flightId, patch);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Removes a flight from the index
+     *
+     * @param flightId the flight ID
+     */
+    public void remove(int flightId) {
+        writeLock.lock();
+        try {
+            recordWrite(flightId);
+            Index current = index;
+            if (current != null) {
+                current.remove(flightId);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Remembers a write made while a rebuild runs, called with the write lock held
+     *
+     * @param flightId the flight ID that was written
+     */
+    private void recordWrite(int flightId) {
+        if (writtenDuringBuild != null) {
+            writtenDuringBuild.add(flightId);
+        }
+    }
+
+    /**
+     * Get the key form of an airport code
+     * @param code the airport code as written
+     * @return the code in lower case
+     */
+    private static String normalize(String code) {
+        return code.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Registers gauges for the number of indexed flights and routes, both 0 until the index is built
+     *
+     * @param registry the registry to publish to
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("flight.route.index.flights", this, FlightRouteIndex::flightCount)
+                .description("Flights held in the in-memory route index")
+                .register(registry);
+        Gauge.builder("flight.route.index.routes", this, FlightRouteIndex::routeCount)
+                .description("Routes held in the in-memory route index")
+                .register(registry);
+    }
+
+    private double flightCount() {
+        Index current = index;
+        return current == null ? 0 : current.locations.size();
+    }
+
+    private double routeCount() {
+        Index current = index;
+        return current == null ? 0 : current.routes.size();
+    }
+
+    /**
+     * Route key made of two interned, lower-cased airport codes
+     */
+    private record RouteKey(String source, String destination) {
+    }
+
+    /**
+     * The flights of one route in parallel arrays sorted by price, then by flight ID.
+     * A missing price is stored as NaN, which sorts after every real price. The airport codes
+     * are kept as each flight spells them.
+     */
+    private static final class RouteFlights {
+        private final int[] flightIds;
+        private final double[] prices;
+        private final String[] names;
+        private final long[] versions;
+        private final String[] sources;
+        private final String[] destinations;
+
+        private RouteFlights(int[] flightIds, double[] prices, String[] names, long[] versions,
+                             String[] sources, String[] destinations) {
+            this.flightIds = flightIds;
+            this.prices = prices;
+            this.names = names;
+            this.versions = versions;
+            this.sources = sources;
+            this.destinations = destinations;
+        }
+
+        /**
+         * Finds the position of a flight, or where it would be inserted as (-(insertion point) - 1)
+         */
+        private int search(double price, int flightId) {
+            int low = 0;
+            int high = flightIds.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int cmp = Double.compare(prices[mid], price);
+                if (cmp == 0) {
+                    cmp = Integer.compare(flightIds[mid], flightId);
+                }
+                if (cmp < 0) {
+                    low = mid + 1;
+                } else if (cmp > 0) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -(low + 1);
+        }
+
+        private RouteFlights with(int flightId, double price, String name, long version,
+                                  String source, String destination) {
+            int at = -(search(price, flightId) + 1);
+            int length = flightIds.length;
+            int[] ids = new int[length + 1];
+            double[] newPrices = new double[length + 1];
+            String[] newNames = new String[length + 1];
+            long[] newVersions = new long[length + 1];
+            String[] newSources = new String[length + 1];
+            String[] newDestinations = new String[length + 1];
+            System.arraycopy(flightIds, 0, ids, 0, at);
+            System.arraycopy(prices, 0, newPrices, 0, at);
+            System.arraycopy(names, 0, newNames, 0, at);
+            System.arraycopy(versions, 0, newVersions, 0, at);
+            System.arraycopy(sources, 0, newSources, 0, at);
+            System.arraycopy(destinations, 0, newDestinations, 0, at);
+            ids[at] = flightId;
+            newPrices[at] = price;
+            newNames[at] = name;
+            newVersions[at] = version;
+            newSources[at] = source;
+            newDestinations[at] = destination;
+            System.arraycopy(flightIds, at, ids, at + 1, length - at);
+            System.arraycopy(prices, at, newPrices, at + 1, length - at);
+            System.arraycopy(names, at, newNames, at + 1, length - at);
+            System.arraycopy(versions, at, newVersions, at + 1, length - at);
+            System.arraycopy(sources, at, newSources, at + 1, length - at);
+            System.arraycopy(destinations, at, newDestinations, at + 1, length - at);
+            return new RouteFlights(ids, newPrices, newNames, newVersions, newSources, newDestinations);
+        }
+
+        private RouteFlights without(int flightId, double price) {
+            int at = search(price, flightId);
+            if (at < 0) {
+                return this;
+            }
+            int length = flightIds.length;
+            if (length == 1) {
+                return null;
+            }
+            int[] ids = new int[length - 1];
+            double[] newPrices = new double[length - 1];
+            String[] newNames = new String[length - 1];
+            long[] newVersions = new long[length - 1];
+            String[] newSources = new String[length - 1];
+            String[] newDestinations = new String[length - 1];
+            System.arraycopy(flightIds, 0, ids, 0, at);
+            System.arraycopy(prices, 0, newPrices, 0, at);
+            System.arraycopy(names, 0, newNames, 0, at);
+            System.arraycopy(versions, 0, newVersions, 0, at);
+            System.arraycopy(sources, 0, newSources, 0, at);
+            System.arraycopy(destinations, 0, newDestinations, 0, at);
+            System.arraycopy(flightIds, at + 1, ids, at, length - at - 1);
+            System.arraycopy(prices, at + 1, newPrices, at, length - at - 1);
+            System.arraycopy(names, at + 1, newNames, at, length - at - 1);
+            System.arraycopy(versions, at + 1, newVersions, at, length - at - 1);
+            System.arraycopy(sources, at + 1, newSources, at, length - at - 1);
+            System.arraycopy(destinations, at + 1, newDestinations, at, length - at - 1);
+            return new RouteFlights(ids, newPrices, newNames, newVersions, newSources, newDestinations);
+        }
+    }
+
+    /**
+     * Where a flight currently sits in the index, needed to remove it again, and its version
+     */
+    private record Location(RouteKey route, double price, long version) {
+    }
+
+    /**
+     * One generation of the index. The maps are concurrent so readers can use them while a
+     * writer holding the write lock replaces route arrays.
+     */
+    private static final class Index {
+        private final Map<RouteKey, RouteFlights> routes = new ConcurrentHashMap<>();
+        private final Map<Integer, Location> locations = new ConcurrentHashMap<>();
+        private final Map<String, String> airportCodes = new ConcurrentHashMap<>();
+
+        private static final RouteFlights EMPTY = new RouteFlights(new int[0], new double[0], new String[0], new long[0],
+                new String[0], new String[0]);
+
+        private String intern(String code) {
+            return airportCodes.computeIfAbsent(code, c -> c);
+        }
+
+        /**
+         * Adds or moves a flight. Readers never see it missing: a move within a route replaces the
+         * route in one step, and a move to another route adds it there before removing it from
+         * the old one.
+         */
+        private void add(Flight flight) {
+            Location current = locations.get(flight.getFlightId());
+            if (current != null && current.version() > flight.getVersion()) {
+                return;
+            }
+            if (flight.getSource() == null || flight.getDestination() == null) {
+                remove(flight.getFlightId());
+                return;
+            }
+            String source = intern(flight.getSource());
+            String destination = intern(flight.getDestination());
+            RouteKey key = new RouteKey(intern(normalize(source)), intern(normalize(destination)));
+            double price = flight.getTicketPrice() == null ? Double.NaN : flight.getTicketPrice();
+            RouteFlights route = routes.getOrDefault(key, EMPTY);
+            if (current != null && current.route().equals(key)) {
+                route = route.without(flight.getFlightId(), current.price());
+                if (route == null) {
+                    route = EMPTY;
+                }
+            }
+            routes.put(key, route.with(flight.getFlightId(), price, flight.getFlightName(), flight.getVersion(),
+                    source, destination));
+            locations.put(flight.getFlightId(), new Location(key, price, flight.getVersion()));
+            if (current != null && !current.route().equals(key)) {
+                removeFromRoute(flight.getFlightId(), current);
+            }
+        }
+
+        private void patch(int flightId, FlightPatch patch) {
+            Location location = locations.get(flightId);
+            RouteFlights route = location == null ? null : routes.get(location.route());
+            int at = route == null ? -1 : route.search(location.price(), flightId);
+            if (at < 0) {
+                return;
+            }
+            double price = route.prices[at];
+            Flight flight = new Flight(flightId, route.names[at], route.sources[at],
+                    route.destinations[at], Double.isNaN(price) ? null : price);
+            flight.setVersion(route.versions[at] + 1);
+            add(patch.applyTo(flight));
+        }
+
+        private void remove(int flightId) {
+            Location location = locations.remove(flightId);
+            if (location != null) {
+                removeFromRoute(flightId, location);
+            }
+        }
+
+        private void removeFromRoute(int flightId, Location location) {
+            RouteFlights route = routes.get(location.route());
+            RouteFlights remaining = route == null ? null : route.without(flightId, location.price());
+            if (remaining == null) {
+                routes.remove(location.route());
+            } else {
+                routes.put(location.route(), remaining);
+            }
+        }
+    }
+}
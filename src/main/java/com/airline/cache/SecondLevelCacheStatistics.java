@@ -0,0 +1,53 @@
+package com.airline.cache;
+
+import com.airline.model.SecondLevelCacheStats;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reads the hit and miss counts of the Hibernate second-level cache from the Hibernate
+ * statistics (hibernate.generate_statistics). The same counts are published as
+ * hibernate.second.level.cache.requests and hibernate.cache.query.requests metrics.
+ */
+@Component
+public class SecondLevelCacheStatistics {
+
+    /**
+     * Region of the Flight entity, as named on the entity
+     */
+    public static final String FLIGHT_REGION = "flight";
+
+    /**
+     * Entity manager factory of the flight persistence unit
+     */
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    /**
+     * Get a snapshot of the second-level cache counters
+     * @return the hit, miss and put counts of the flight region and the query cache
+     */
+    public SecondLevelCacheStats stats() {
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        Statistics statistics = sessionFactory.getStatistics();
+        if (!statistics.isStatisticsEnabled()
+                || !sessionFactory.getSessionFactoryOptions().isSecondLevelCacheEnabled()) {
+            return new SecondLevelCacheStats(false, 0, 0, 0, 1.0, 0, 0, 0, 1.0);
+        }
+        CacheRegionStatistics flights = statistics.getDomainDataRegionStatistics(FLIGHT_REGION);
+        long queryHits = statistics.getQueryCacheHitCount();
+        long queryMisses = statistics.getQueryCacheMissCount();
+        return new SecondLevelCacheStats(true, flights.getHitCount(), flights.getMissCount(), flights.getPutCount(),
+                hitRate(flights.getHitCount(), flights.getMissCount()), queryHits, queryMisses,
+                statistics.getQueryCachePutCount(), hitRate(queryHits, queryMisses));
+    }
+
+    private static double hitRate(long hits, long misses) {
+        long requests = hits + misses;
+        return requests == 0 ? 1.0 : (double) hits / requests;
+    }
+}
@@ -0,0 +1,94 @@
+package com.airline.cache;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent loads of the same key: the first caller runs the load, callers that ask
+ * for the key while it is running wait for it and get the same result or exception. Nothing is
+ * kept once the load has finished, a later caller starts a new one.
+ *
+ * Callers that must not be handed a load that started before some event, e.g. a write they
+ * made, make that event part of the key.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the loaded values
+ */
+public class SingleFlight<K, V> {
+
+    /**
+     * Loads currently running, by key
+     */
+    private final Map<K, CompletableFuture<V>> loads = new ConcurrentHashMap<>();
+
+    /**
+     * Runs a load that throws no checked exception for a key, or waits for the one already running
+     *
+     * @param key the key
+     * @param loader the load, only called if no load of the key is running
+     * @return the loaded value
+     * @throws IllegalStateException if the thread is interrupted while it waits
+     */
+    public V load(K key, Supplier<V> loader) {
+        try {
+            return call(key, loader::get);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the load of " + key, e);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Runs the load for a key, or waits for the one already running
+     *
+     * @param key the key
+     * @param loader the load, only called if no load of the key is running
+     * @return the loaded value
+     * @throws Exception the exception thrown by the load, or InterruptedException if the thread
+     *         is interrupted while it waits
+     */
+    public V call(K key, Callable<V> loader) throws Exception {
+        CompletableFuture<V> load = new CompletableFuture<>();
+        CompletableFuture<V> running = loads.putIfAbsent(key, load);
+        if (running != null) {
+            return await(running);
+        }
+        try {
+            V value = loader.call();
+            load.complete(value);
+            return value;
+        } catch (Exception | Error e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            loads.remove(key, load);
+        }
+    }
+
+    /**
+     * Get the number of loads running
+     * @return the number of keys being loaded
+     */
+    public int getRunningCount() {
+        return loads.size();
+    }
+
+    private static <V> V await(CompletableFuture<V> load) throws Exception {
+        try {
+            return load.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw (Error) e.getCause();
+        }
+    }
+}
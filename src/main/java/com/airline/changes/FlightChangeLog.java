@@ -0,0 +1,326 @@
+package com.airline.changes;
+
+import com.airline.model.Flight;
+import com.airline.model.FlightChange;
+import com.airline.model.FlightPatch;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Ordered log of the writes to the flights, read by the change feed so clients can fetch what
+ * changed instead of the whole flight list.
+ *
+ * Every change gets the next sequence number. The newest flight.changes.buffer-size changes are
+ * kept in memory; older ones are overwritten and can no longer be resumed from. When
+ * flight.changes.file is set, every change is also appended to it as one JSON object per line
+ * and the log is restored from it at startup, so sequence numbers survive a restart.
+ *
+ * Clients resume from a cursor, "epoch:sequence". The epoch names this run of the log: it is new
+ * whenever the log starts empty, e.g. on every start without a change file, and is kept next to
+ * the change file otherwise. A cursor of another epoch counts as expired, so a client cannot
+ * resume after a restart into changes that have nothing to do with the ones it has seen.
+ */
+@Component
+public class FlightChangeLog {
+
+    /**
+     * Logger for this class
+     */
+    private static final Logger logger = LoggerFactory.getLogger(FlightChangeLog.class);
+
+    /**
+     * Separates the epoch and the sequence in a cursor
+     */
+    private static final char CURSOR_SEPARATOR = ':';
+
+    /**
+     * Fixed size buffer of the newest changes, the change with sequence s is at (s - 1) % length
+     */
+    private final FlightChange[] buffer;
+
+    /**
+     * Names this run of the log, part of every cursor
+     */
+    private final String epoch;
+
+    /**
+     * Sequence of the newest change, 0 while the log is empty
+     */
+    private long lastSequence;
+
+    /**
+     * Guards the buffer and the change file between writers and readers
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * Writer for the optional change file, null when changes are kept in memory only
+     */
+    private final BufferedWriter fileWriter;
+
+    /**
+     * Mapper used to read and write the change file
+     */
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    /**
+     * Called after every append, outside the lock
+     */
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Creates the log from the flight.changes.* properties
+     *
+     * @param bufferSize number of changes kept in memory
+     * @param file path of the NDJSON change file, blank to keep changes in memory only
+     * @throws IOException if the change file cannot be read or opened
+     */
+    public FlightChangeLog(@Value("${flight.changes.buffer-size:10000}") int bufferSize,
+                           @Value("${flight.changes.file:}") String file) throws IOException {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("flight.changes.buffer-size must be positive");
+        }
+        this.buffer = new FlightChange[bufferSize];
+        if (file == null || file.isBlank()) {
+            this.fileWriter = null;
+            this.epoch = newEpoch();
+        } else {
+            Path path = Path.of(file);
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            if (Files.exists(path)) {
+                restore(path);
+            }
+            this.epoch = restoreEpoch(Path.of(file + ".epoch"));
+            this.fileWriter = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            logger.info("Writing flight changes to {}, continuing after sequence {}", path.toAbsolutePath(), lastSequence);
+        }
+    }
+
+    /**
+     * Records a write to the flights. Writers call it while they still hold the write lock of the
+     * flight, so the changes of one flight are numbered in the order they were committed. Writes
+     * made on other instances are recorded as they are heard of.
+     *
+     * @param type the kind of write
+     * @param flightId the ID of the changed flight
+     * @param flight the flight after the change, null for patches and deletes
+     * @param patch the changed fields, null unless the flight was patched
+     * @return the recorded change with its sequence number
+     */
+    public FlightChange append(FlightChange.Type type, int flightId, Flight flight, FlightPatch patch) {
+        FlightChange change;
+        lock.lock();
+        try {
+            change = new FlightChange(lastSequence + 1, type, flightId, System.currentTimeMillis(),
+                    copyOf(flight), patch);
+            // written under the lock so the file has the same order as the sequence numbers
+            if (fileWriter != null) {
+                try {
+                    fileWriter.write(objectMapper.writeValueAsString(change));
+                    fileWriter.newLine();
+                    fileWriter.flush();
+                } catch (IOException e) {
+                    logger.warn("Could not write flight change {}: {}", change.getSequence(), e.getMessage());
+                }
+            }
+            buffer[(int) ((change.getSequence() - 1) % buffer.length)] = change;
+            lastSequence = change.getSequence();
+        } finally {
+            lock.unlock();
+        }
+        for (Runnable listener : listeners) {
+            listener.run();
+        }
+        return change;
+    }
+
+    /**
+     * Get the changes recorded after a sequence
+     *
+     * @param after the last sequence the caller has seen, 0 for the start of the log
+     * @param limit maximum number of changes to return
+     * @return up to limit changes in sequence order, empty if there are none yet
+     * @throws FlightChangesExpiredException if changes after the sequence have been overwritten,
+     *         or the sequence was never issued by this log
+     */
+    public List<FlightChange> since(long after, int limit) {
+        lock.lock();
+        try {
+            long oldest = Math.max(1, lastSequence - buffer.length + 1);
+            if (after < oldest - 1 || after > lastSequence) {
+                throw new FlightChangesExpiredException("Changes after sequence " + after
+                        + " are not available, the log holds " + oldest + " to " + lastSequence);
+            }
+            int count = (int) Math.min(limit, lastSequence - after);
+            List<FlightChange> changes = new ArrayList<>(count);
+            for (long sequence = after + 1; sequence <= after + count; sequence++) {
+                changes.add(buffer[(int) ((sequence - 1) % buffer.length)]);
+            }
+            return changes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Get the epoch of this run of the log
+     * @return the epoch, part of every cursor
+     */
+    public String getEpoch() {
+        return epoch;
+    }
+
+    /**
+     * Builds the cursor a client resumes from after a change
+     *
+     * @param sequence the sequence of the last change the client has seen
+     * @return the cursor, "epoch:sequence"
+     */
+    public String cursor(long sequence) {
+        return epoch + CURSOR_SEPARATOR + sequence;
+    }
+
+    /**
+     * Reads the sequence from a cursor
+     *
+     * @param cursor a cursor built by this log
+     * @return the sequence of the last change the client has seen
+     * @throws FlightChangesExpiredException if the cursor is from another epoch, or a bare sequence
+     *         from before cursors carried the epoch
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public long sequenceOf(String cursor) {
+        int separator = cursor.lastIndexOf(CURSOR_SEPARATOR);
+        long sequence;
+        try {
+            sequence = Long.parseLong(cursor.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid change cursor: " + cursor, e);
+        }
+        if (separator < 0 || !cursor.substring(0, separator).equals(epoch)) {
+            throw new FlightChangesExpiredException("Change cursor " + cursor
+                    + " is not from the current log, which continues from " + cursor(lastSequence()));
+        }
+        return sequence;
+    }
+
+    /**
+     * Get the sequence of the newest change
+     * @return the last sequence, 0 while the log is empty
+     */
+    public long lastSequence() {
+        lock.lock();
+        try {
+            return lastSequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Registers a callback run after every append, on the thread that made the change
+     *
+     * @param listener the callback, must not block
+     */
+    public void addListener(Runnable listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Closes the change file
+     */
+    @PreDestroy
+    public void close() {
+        if (fileWriter == null) {
+            return;
+        }
+        lock.lock();
+        try {
+            fileWriter.close();
+        } catch (IOException e) {
+            logger.warn("Could not close flight change file: {}", e.getMessage());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Reads the change file, keeping the newest changes in the buffer
+     */
+    private void restore(Path path) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                FlightChange change;
+                try {
+                    change = objectMapper.readValue(line, FlightChange.class);
+                } catch (JsonProcessingException e) {
+                    // e.g. a line cut short by a crash while it was written
+                    logger.warn("Skipping unreadable line in flight change file: {}", e.getOriginalMessage());
+                    continue;
+                }
+                buffer[(int) ((change.getSequence() - 1) % buffer.length)] = change;
+                lastSequence = change.getSequence();
+            }
+        }
+    }
+
+    /**
+     * Reads the epoch kept next to the change file, or starts a new one if the log is empty or
+     * the epoch was lost
+     */
+    private String restoreEpoch(Path epochFile) throws IOException {
+        if (lastSequence > 0 && Files.exists(epochFile)) {
+            String kept = Files.readString(epochFile, StandardCharsets.UTF_8).trim();
+            if (!kept.isEmpty()) {
+                return kept;
+            }
+        }
+        String started = newEpoch();
+        Files.writeString(epochFile, started, StandardCharsets.UTF_8);
+        return started;
+    }
+
+    private static String newEpoch() {
+        return Long.toString(new SecureRandom().nextLong() & Long.MAX_VALUE, 36);
+    }
+
+    /**
+     * Copies a flight so later changes to the caller's object do not alter the log
+     */
+    private static Flight copyOf(Flight flight) {
+        if (flight == null) {
+            return null;
+        }
+        Flight copy = new Flight(flight.getFlightId(), flight.getFlightName(), flight.getSource(),
+                flight.getDestination(), flight.getTicketPrice());
+        copy.setVersion(flight.getVersion());
+        return copy;
+    }
+}
@@ -0,0 +1,352 @@
+package com.airline.changes;
+
+import com.airline.model.FlightChange;
+import com.airline.model.FlightChangePage;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Delivers the change log to clients, as Server-Sent Events or by long polling.
+ *
+ * Neither holds a request thread while it waits: SSE streams and pending polls are registered
+ * here and served from a single delivery thread whenever the log grows. Each SSE stream
+ * remembers the last sequence it was sent and is topped up from the log, so it gets every
+ * change in order however far it has fallen behind, up to the size of the log.
+ *
+ * The delivery thread never writes to a stream itself: each stream is written on a sender thread,
+ * one write at a time. A stream whose write has not finished after flight.changes.send-timeout,
+ * e.g. because the client stopped reading, is closed, so one slow client cannot hold up the others.
+ * Clients pass cursors of the form "epoch:sequence", see FlightChangeLog.
+ */
+@Component
+public class FlightChangeStream {
+
+    /**
+     * Logger for this class
+     */
+    private static final Logger logger = LoggerFactory.getLogger(FlightChangeStream.class);
+
+    /**
+     * The change log that is delivered
+     */
+    @Autowired
+    private FlightChangeLog flightChangeLog;
+
+    /**
+     * Maximum number of changes returned by one poll or sent to a stream in one go
+     */
+    @Value("${flight.changes.page-size:500}")
+    private int pageSize = 500;
+
+    /**
+     * How long an SSE stream stays open before the client has to reconnect
+     */
+    @Value("${flight.changes.sse-timeout:PT30M}")
+    private Duration sseTimeout = Duration.ofMinutes(30);
+
+    /**
+     * How long a write to a stream may take before the stream is closed
+     */
+    @Value("${flight.changes.send-timeout:PT10S}")
+    private Duration sendTimeout = Duration.ofSeconds(10);
+
+    /**
+     * The delivery thread; the lists below are only touched on it
+     */
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "flight-changes");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Writes to the streams, at most one at a time per stream
+     */
+    private final ExecutorService senders = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "flight-changes-sender");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Open SSE streams
+     */
+    private final List<Subscriber> subscribers = new ArrayList<>();
+
+    /**
+     * Polls waiting for a change
+     */
+    private final List<Waiter> waiters = new ArrayList<>();
+
+    /**
+     * Whether a delivery is already queued, so a burst of writes queues it only once
+     */
+    private final AtomicBoolean deliveryQueued = new AtomicBoolean();
+
+    /**
+     * Starts delivering on every change
+     */
+    @PostConstruct
+    public void start() {
+        flightChangeLog.addListener(this::scheduleDelivery);
+    }
+
+    /**
+     * Stops the delivery thread and closes the open streams
+     */
+    @PreDestroy
+    public void stop() {
+        execute(() -> subscribers.forEach(subscriber -> subscriber.emitter.complete()));
+        executor.shutdown();
+        senders.shutdown();
+    }
+
+    /**
+     * Get the changes after a cursor, waiting for the next change if there are none yet
+     *
+     * @param after the cursor of the last change the caller has seen, or null to start from the newest change
+     * @param limit maximum number of changes, 0 or less for the default page size
+     * @param wait how long to wait for a change, zero to answer at once
+     * @return the result, set once changes are available or the wait is over
+     * @throws FlightChangesExpiredException if changes after the cursor are no longer available
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public DeferredResult<FlightChangePage> poll(String after, int limit, Duration wait) {
+        long from = after == null ? flightChangeLog.lastSequence() : flightChangeLog.sequenceOf(after);
+        int size = limit <= 0 ? pageSize : Math.min(limit, pageSize);
+        List<FlightChange> changes = flightChangeLog.since(from, size);
+        if (!changes.isEmpty() || wait.isZero() || wait.isNegative()) {
+            DeferredResult<FlightChangePage> result = new DeferredResult<>();
+            result.setResult(page(from, changes));
+            return result;
+        }
+        DeferredResult<FlightChangePage> result = new DeferredResult<>(wait.toMillis(),
+                () -> page(from, List.of()));
+        Waiter waiter = new Waiter(from, size, result);
+        result.onCompletion(() -> execute(() -> waiters.remove(waiter)));
+        execute(() -> {
+            waiters.add(waiter);
+            // a change may have been appended before the waiter was registered
+            deliver();
+        });
+        return result;
+    }
+
+    /**
+     * Opens an SSE stream of the changes after a cursor. Each event carries the change as JSON,
+     * its cursor as the event ID and its type as the event name, so a reconnecting client
+     * resumes with the Last-Event-ID header.
+     *
+     * @param after the cursor of the last change the caller has seen, or null to start from the newest change
+     * @return the stream
+     * @throws FlightChangesExpiredException if changes after the cursor are no longer available
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public SseEmitter subscribe(String after) {
+        long from = after == null ? flightChangeLog.lastSequence() : flightChangeLog.sequenceOf(after);
+        // fails here, before the stream is opened, if the client cannot resume from there
+        flightChangeLog.since(from, 0);
+        SseEmitter emitter = new SseEmitter(sseTimeout.toMillis());
+        Subscriber subscriber = new Subscriber(emitter, from);
+        Runnable close = () -> subscriber.closed = true;
+        emitter.onCompletion(close);
+        emitter.onTimeout(close);
+        emitter.onError(error -> subscriber.closed = true);
+        execute(() -> {
+            subscribers.add(subscriber);
+            deliver();
+        });
+        logger.debug("Change stream opened after sequence {}", from);
+        return emitter;
+    }
+
+    /**
+     * Sends a comment to every open stream so that connections to clients that went away are
+     * noticed and closed
+     */
+    @Scheduled(fixedDelayString = "${flight.changes.heartbeat:PT15S}",
+            initialDelayString = "${flight.changes.heartbeat:PT15S}")
+    public void heartbeat() {
+        execute(() -> {
+            for (Iterator<Subscriber> it = subscribers.iterator(); it.hasNext(); ) {
+                Subscriber subscriber = it.next();
+                if (subscriber.closed || isStuck(subscriber)) {
+                    it.remove();
+                } else if (!subscriber.sending) {
+                    dispatch(subscriber, true);
+                }
+            }
+        });
+    }
+
+    private void scheduleDelivery() {
+        if (deliveryQueued.compareAndSet(false, true)) {
+            execute(() -> {
+                deliveryQueued.set(false);
+                deliver();
+            });
+        }
+    }
+
+    /**
+     * Tops up every stream and answers every poll that has changes, on the delivery thread
+     */
+    private void deliver() {
+        for (Iterator<Waiter> it = waiters.iterator(); it.hasNext(); ) {
+            Waiter waiter = it.next();
+            if (waiter.result.isSetOrExpired()) {
+                it.remove();
+                continue;
+            }
+            try {
+                List<FlightChange> changes = flightChangeLog.since(waiter.after, waiter.limit);
+                if (!changes.isEmpty()) {
+                    waiter.result.setResult(page(waiter.after, changes));
+                    it.remove();
+                }
+            } catch (FlightChangesExpiredException e) {
+                waiter.result.setErrorResult(e);
+                it.remove();
+            }
+        }
+        long lastSequence = flightChangeLog.lastSequence();
+        for (Iterator<Subscriber> it = subscribers.iterator(); it.hasNext(); ) {
+            Subscriber subscriber = it.next();
+            if (subscriber.closed || isStuck(subscriber)) {
+                it.remove();
+            } else if (!subscriber.sending && subscriber.lastSent < lastSequence) {
+                dispatch(subscriber, false);
+            }
+        }
+    }
+
+    /**
+     * Closes a stream whose write has not finished in time
+     *
+     * @return true if the stream was closed
+     */
+    private boolean isStuck(Subscriber subscriber) {
+        if (!subscriber.sending || System.nanoTime() - subscriber.sendingSince < sendTimeout.toNanos()) {
+            return false;
+        }
+        logger.warn("Closing change stream that has not taken a write for {}", sendTimeout);
+        subscriber.closed = true;
+        subscriber.emitter.completeWithError(new IOException("Change stream client is not reading"));
+        return true;
+    }
+
+    /**
+     * Hands a stream to a sender thread, on the delivery thread
+     */
+    private void dispatch(Subscriber subscriber, boolean heartbeat) {
+        subscriber.sending = true;
+        subscriber.sendingSince = System.nanoTime();
+        try {
+            senders.execute(() -> {
+                if (send(subscriber, heartbeat)) {
+                    subscriber.sending = false;
+                    // changes appended during the write were skipped by the delivery thread
+                    if (subscriber.lastSent < flightChangeLog.lastSequence()) {
+                        scheduleDelivery();
+                    }
+                } else {
+                    subscriber.closed = true;
+                    subscriber.sending = false;
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            subscriber.sending = false;
+            logger.debug("Change delivery stopped, not writing to stream");
+        }
+    }
+
+    /**
+     * Sends a stream every change it has not seen yet, preceded by a heartbeat comment if asked,
+     * on a sender thread
+     *
+     * @return false if the stream had to be closed
+     */
+    private boolean send(Subscriber subscriber, boolean heartbeat) {
+        try {
+            if (heartbeat) {
+                subscriber.emitter.send(SseEmitter.event().comment("heartbeat"));
+            }
+            List<FlightChange> changes;
+            do {
+                changes = flightChangeLog.since(subscriber.lastSent, pageSize);
+                for (FlightChange change : changes) {
+                    subscriber.emitter.send(SseEmitter.event()
+                            .id(flightChangeLog.cursor(change.getSequence()))
+                            .name(change.getType().name())
+                            .data(change, MediaType.APPLICATION_JSON));
+                    subscriber.lastSent = change.getSequence();
+                }
+            } while (changes.size() == pageSize);
+            return true;
+        } catch (FlightChangesExpiredException e) {
+            // fell behind the log; the client reconnects, gets 410 and reads the flights again
+            logger.warn("Closing change stream: {}", e.getMessage());
+            subscriber.emitter.complete();
+            return false;
+        } catch (IOException | IllegalStateException e) {
+            logger.debug("Change stream closed by client: {}", e.getMessage());
+            subscriber.emitter.completeWithError(e);
+            return false;
+        }
+    }
+
+    private void execute(Runnable task) {
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            logger.debug("Change delivery stopped, dropping task");
+        }
+    }
+
+    private FlightChangePage page(long after, List<FlightChange> changes) {
+        long next = changes.isEmpty() ? after : changes.get(changes.size() - 1).getSequence();
+        return new FlightChangePage(changes, flightChangeLog.cursor(next));
+    }
+
+    /**
+     * An open SSE stream and the last sequence sent to it. lastSent is written by the sender
+     * thread while sending is set, and read by the delivery thread only while it is not.
+     */
+    private static final class Subscriber {
+        private final SseEmitter emitter;
+        private volatile long lastSent;
+        private volatile boolean closed;
+        private volatile boolean sending;
+        private volatile long sendingSince;
+
+        private Subscriber(SseEmitter emitter, long lastSent) {
+            this.emitter = emitter;
+            this.lastSent = lastSent;
+        }
+    }
+
+    /**
+     * A poll waiting for a change after its sequence
+     */
+    private record Waiter(long after, int limit, DeferredResult<FlightChangePage> result) {
+    }
+}
@@ -0,0 +1,18 @@
+package com.airline.changes;
+
+/**
+ * Thrown when a client resumes the change feed from a sequence the log no longer holds, or from
+ * one it never issued, e.g. after a restart without a change file. The client has to read the
+ * flights again and continue from the current sequence.
+ */
+public class FlightChangesExpiredException extends RuntimeException {
+
+    /**
+     * Creates the exception
+     *
+     * @param message description of the requested and the available sequences
+     */
+    public FlightChangesExpiredException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,64 @@
+package com.airline.config;
+
+import com.airline.invalidation.LoopbackInvalidationTransport;
+import com.airline.invalidation.UdpInvalidationTransport;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+
+/**
+ * Transport of the cache invalidation bus, chosen with flight.invalidation.transport.
+ *
+ * "udp" sends invalidations as datagrams to the instances listed in flight.invalidation.udp.peers
+ * and listens on flight.invalidation.udp.bind; "loopback" connects the instances started in the
+ * same JVM, for tests. With "none", the default, no transport is created and instances do not
+ * invalidate each other's caches.
+ */
+@Configuration(proxyBeanMethods = false)
+public class InvalidationConfig {
+
+    /**
+     * UDP transport between instances on the network
+     *
+     * @param bind host:port to listen on
+     * @param peers host:port of each other instance
+     * @return the transport
+     */
+    @Bean
+    @ConditionalOnProperty(name = "flight.invalidation.transport", havingValue = "udp")
+    public UdpInvalidationTransport udpInvalidationTransport(
+            @Value("${flight.invalidation.udp.bind:0.0.0.0:9195}") String bind,
+            @Value("${flight.invalidation.udp.peers:}") List<String> peers) {
+        return new UdpInvalidationTransport(address(bind),
+                peers.stream().filter(peer -> !peer.isBlank()).map(InvalidationConfig::address).toList());
+    }
+
+    /**
+     * Transport between instances in the same JVM
+     *
+     * @param group name shared by the instances that invalidate each other
+     * @return the transport
+     */
+    @Bean
+    @ConditionalOnProperty(name = "flight.invalidation.transport", havingValue = "loopback")
+    public LoopbackInvalidationTransport loopbackInvalidationTransport(
+            @Value("${flight.invalidation.loopback.group:flights}") String group) {
+        return new LoopbackInvalidationTransport(group);
+    }
+
+    /**
+     * Parses a host:port address
+     */
+    private static InetSocketAddress address(String hostAndPort) {
+        String value = hostAndPort.trim();
+        int colon = value.lastIndexOf(':');
+        if (colon < 0) {
+            throw new IllegalArgumentException("Expected host:port for a cache invalidation address, got " + value);
+        }
+        return new InetSocketAddress(value.substring(0, colon), Integer.parseInt(value.substring(colon + 1)));
+    }
+}
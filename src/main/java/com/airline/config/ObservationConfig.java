@@ -0,0 +1,25 @@
+package com.airline.config;
+
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.observation.aop.ObservedAspect;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Turns @Observed methods into observations, which are recorded both as timers and as child
+ * spans of the current request span. Spring Boot 3.0 does not register this aspect itself.
+ */
+@Configuration(proxyBeanMethods = false)
+public class ObservationConfig {
+
+    /**
+     * Aspect that wraps @Observed classes and methods in an observation
+     *
+     * @param observationRegistry the registry that timers and spans are reported to
+     * @return the aspect
+     */
+    @Bean
+    public ObservedAspect observedAspect(ObservationRegistry observationRegistry) {
+        return new ObservedAspect(observationRegistry);
+    }
+}
@@ -0,0 +1,142 @@
+package com.airline.config;
+
+import com.airline.datasource.ReplicaLagWindow;
+import com.airline.datasource.ReplicaHealthChecker;
+import com.airline.datasource.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read/write splitting, switched on by listing replica URLs in flight.datasource.replica-urls.
+ *
+ * Replaces the auto-configured data source with a ReplicaRoutingDataSource: the primary is built
+ * from spring.datasource.* as before, including the spring.datasource.hikari.* pool settings, and
+ * each replica gets a pool of its own with the same credentials unless
+ * flight.datasource.replica-username/-password are set. Read-only transactions then go to the
+ * replicas and everything else to the primary, as do cache refills of flights that just changed,
+ * see ReplicaLagWindow. Replica pools start without connecting, so the
+ * application comes up while a replica is down and reads it would have served go to the primary.
+ *
+ * The data source used by the application is a LazyConnectionDataSourceProxy around the routing
+ * one. The JDBC tracing proxy has to sit between the two, because it reads the connection's
+ * metadata as soon as it gets one, which would open the real connection before the transaction is
+ * read-only; the lazy proxy is therefore listed in jdbc.excluded-data-source-bean-names and the
+ * routing data source is traced instead.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "flight.datasource.replica-urls")
+public class ReadReplicaConfig {
+
+    /**
+     * Logger for this class
+     */
+    private static final Logger logger = LoggerFactory.getLogger(ReadReplicaConfig.class);
+
+    /**
+     * Name of the routing data source bean
+     */
+    private static final String ROUTING_DATA_SOURCE = "replicaRoutingDataSource";
+
+    /**
+     * The routing data source, only used through readWriteDataSource
+     *
+     * @param properties the spring.datasource.* settings, used for the primary and as defaults for the replicas
+     * @param environment the environment holding the spring.datasource.hikari.* pool settings
+     * @param meterRegistry registry the pool metrics are published to, if any
+     * @param replicaUrls JDBC URLs of the replicas
+     * @param replicaUsername user name for the replicas, the primary's if empty
+     * @param replicaPassword password for the replicas, the primary's if empty
+     * @param replicaPoolSize maximum number of connections per replica
+     * @param connectionTimeout how long a read waits for a replica connection before falling back to the primary
+     * @param lagWindow tells which reads asked for the primary
+     * @return the routing data source
+     */
+    @Bean(name = ROUTING_DATA_SOURCE, autowireCandidate = false)
+    public ReplicaRoutingDataSource replicaRoutingDataSource(DataSourceProperties properties, Environment environment,
+                                               ObjectProvider<MeterRegistry> meterRegistry,
+                                               @Value("${flight.datasource.replica-urls}") List<String> replicaUrls,
+                                               @Value("${flight.datasource.replica-username:}") String replicaUsername,
+                                               @Value("${flight.datasource.replica-password:}") String replicaPassword,
+                                               @Value("${flight.datasource.replica-pool-size:10}") int replicaPoolSize,
+                                               @Value("${flight.datasource.replica-connection-timeout:PT2S}") Duration connectionTimeout,
+                                               ReplicaLagWindow lagWindow) {
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        if (primary.getPoolName() == null) {
+            primary.setPoolName(ReplicaRoutingDataSource.PRIMARY);
+        }
+        meterRegistry.ifAvailable(primary::setMetricRegistry);
+
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (String url : replicaUrls) {
+            if (url.isBlank()) {
+                continue;
+            }
+            String key = "replica-" + (replicas.size() + 1);
+            HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName(key);
+            replica.setJdbcUrl(url.trim());
+            replica.setDriverClassName(properties.determineDriverClassName());
+            replica.setUsername(replicaUsername.isEmpty() ? properties.determineUsername() : replicaUsername);
+            replica.setPassword(replicaPassword.isEmpty() ? properties.determinePassword() : replicaPassword);
+            replica.setMaximumPoolSize(replicaPoolSize);
+            replica.setConnectionTimeout(connectionTimeout.toMillis());
+            replica.setInitializationFailTimeout(-1);
+            replica.setReadOnly(true);
+            meterRegistry.ifAvailable(replica::setMetricRegistry);
+            replicas.put(key, replica);
+        }
+        logger.info("Routing read-only transactions to {} replicas", replicas.size());
+        return new ReplicaRoutingDataSource(primary, replicas, lagWindow);
+    }
+
+    /**
+     * The data source used by JPA and the JDBC template, opens the routed connection at the first
+     * statement
+     *
+     * @param beanFactory the bean factory holding the routing data source
+     * @return the lazy connection proxy
+     */
+    @Bean
+    @Primary
+    public LazyConnectionDataSourceProxy readWriteDataSource(BeanFactory beanFactory) {
+        return new LazyConnectionDataSourceProxy(beanFactory.getBean(ROUTING_DATA_SOURCE, DataSource.class));
+    }
+
+    /**
+     * Background health check of the replicas, reported as the "replicas" health component
+     *
+     * @param beanFactory the bean factory holding the routing data source, possibly wrapped by the JDBC tracing proxy
+     * @param timeout how long a replica may take to confirm its connection is valid
+     * @return the health checker
+     * @throws SQLException if the data source does not wrap the routing data source
+     */
+    @Bean
+    public ReplicaHealthChecker replicasHealthIndicator(BeanFactory beanFactory,
+                                                        @Value("${flight.datasource.health-check-timeout:PT2S}") Duration timeout)
+            throws SQLException {
+        DataSource routingDataSource = beanFactory.getBean(ROUTING_DATA_SOURCE, DataSource.class);
+        return new ReplicaHealthChecker(routingDataSource.unwrap(ReplicaRoutingDataSource.class), timeout);
+    }
+}
@@ -0,0 +1,75 @@
+package com.airline.config;
+
+import org.apache.coyote.ProtocolHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.scheduling.annotation.AsyncAnnotationBeanPostProcessor;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs request handling on virtual threads when spring.threads.virtual.enabled=true.
+ *
+ * Tomcat gets an executor that starts one virtual thread per request instead of its platform
+ * thread pool, so a request blocked on MySQL no longer holds an OS thread. The service layer
+ * runs on the request thread and the same executor serves async MVC requests and @Async methods.
+ * Requires Java 21 at runtime (build with the virtual-threads Maven profile); the property name
+ * matches the one Spring Boot 3.2 uses for the same switch.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+    /**
+     * Logger for this class
+     */
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadConfig.class);
+
+    /**
+     * Task executor backed by virtual threads, replaces the default application task executor
+     *
+     * @return the virtual thread task executor
+     */
+    @Bean(name = {TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME,
+            AsyncAnnotationBeanPostProcessor.DEFAULT_TASK_EXECUTOR_BEAN_NAME})
+    public AsyncTaskExecutor applicationTaskExecutor() {
+        logger.info("Running requests on virtual threads");
+        return new TaskExecutorAdapter(newVirtualThreadPerTaskExecutor());
+    }
+
+    /**
+     * Hands the virtual thread executor to the Tomcat connector
+     *
+     * @param applicationTaskExecutor the virtual thread task executor
+     * @return customizer that replaces the connector's thread pool
+     */
+    @Bean
+    public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadProtocolHandlerCustomizer(
+            AsyncTaskExecutor applicationTaskExecutor) {
+        return protocolHandler -> protocolHandler.setExecutor(applicationTaskExecutor);
+    }
+
+    /**
+     * Creates an executor that starts a new virtual thread for each task. Looked up reflectively
+     * so the default build can still target Java 17.
+     *
+     * @return the executor
+     * @throws IllegalStateException if the running JVM does not support virtual threads
+     */
+    static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("spring.threads.virtual.enabled requires Java 21 or newer, running on "
+                    + Runtime.version(), e);
+        }
+    }
+}
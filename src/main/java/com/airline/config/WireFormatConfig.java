@@ -0,0 +1,60 @@
+package com.airline.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * Binary encodings of the JSON responses and request bodies, chosen by the client with
+ * Accept: application/x-jackson-smile or Accept: application/cbor. Both carry the same fields
+ * as the JSON, so no schema has to be shared; JSON stays the default when the client accepts
+ * anything.
+ *
+ * The mappers come from Spring Boot's builder so they are configured like the JSON mapper.
+ * Spring MVC would register these converters by itself, but with a mapper of its own.
+ */
+@Configuration(proxyBeanMethods = false)
+public class WireFormatConfig {
+
+    /**
+     * Media type of the Smile encoding
+     */
+    public static final String APPLICATION_SMILE = "application/x-jackson-smile";
+
+    /**
+     * Media type of the CBOR encoding
+     */
+    public static final String APPLICATION_CBOR = "application/cbor";
+
+    /**
+     * Smile converter. Repeated string values, such as airports and the server IP of every
+     * flight in a list, are written once and referenced afterwards.
+     *
+     * @param builder Spring Boot's object mapper builder, a new instance per injection point
+     * @return the converter
+     */
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        SmileFactory factory = SmileFactory.builder()
+                .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+                .build();
+        return new MappingJackson2SmileHttpMessageConverter(builder.createXmlMapper(false).factory(factory).build());
+    }
+
+    /**
+     * CBOR converter
+     *
+     * @param builder Spring Boot's object mapper builder, a new instance per injection point
+     * @return the converter
+     */
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(
+                builder.createXmlMapper(false).factory(new CBORFactory()).build());
+    }
+}
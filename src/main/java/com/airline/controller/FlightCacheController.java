@@ -0,0 +1,54 @@
+package com.airline.controller;
+
+import com.airline.cache.FlightCache;
+import com.airline.cache.SecondLevelCacheStatistics;
+import com.airline.model.FlightCacheStats;
+import com.airline.model.SecondLevelCacheStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * REST Controller that reports the state of the in-memory flight cache and of the Hibernate
+ * second-level cache behind it.
+ */
+@RestController
+@RequestMapping("/flight/cache")
+@CrossOrigin(origins = "*") // Allows requests from any origin
+public class FlightCacheController {
+
+    /**
+     * The flight cache used by the flight service
+     */
+    @Autowired
+    private FlightCache flightCache;
+
+    /**
+     * Counters of the Hibernate second-level cache
+     */
+    @Autowired
+    private SecondLevelCacheStatistics secondLevelCacheStatistics;
+
+    /**
+     * Endpoint to get the hit, miss and eviction counts of the flight cache
+     * 
+     * @return ResponseEntity containing the cache counters and HTTP status 200 (OK)
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<FlightCacheStats> getCacheStats() {
+        return ResponseEntity.ok(flightCache.stats());
+    }
+
+    /**
+     * Endpoint to get the hit, miss and put counts of the Hibernate second-level and query cache
+     *
+     * @return ResponseEntity containing the cache counters and HTTP status 200 (OK)
+     */
+    @GetMapping("/second-level")
+    public ResponseEntity<SecondLevelCacheStats> getSecondLevelCacheStats() {
+        return ResponseEntity.ok(secondLevelCacheStatistics.stats());
+    }
+}
@@ -0,0 +1,118 @@
+package com.airline.controller;
+
+import com.airline.changes.FlightChangeStream;
+import com.airline.changes.FlightChangesExpiredException;
+import com.airline.model.FlightChangePage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+
+/**
+ * REST Controller for the flight change feed.
+ * Clients read the flights once and then follow the changes after that point, by long polling
+ * or as a Server-Sent Events stream, instead of reading the whole flight list again.
+ */
+@RestController
+@RequestMapping("/flight/changes")
+@CrossOrigin(origins = "*") // Allows requests from any origin
+public class FlightChangeController {
+
+    /**
+     * Logger for this class
+     */
+    private static final Logger logger = LoggerFactory.getLogger(FlightChangeController.class);
+
+    /**
+     * Delivers the change log to the clients
+     */
+    @Autowired
+    private FlightChangeStream flightChangeStream;
+
+    /**
+     * Upper bound for how long a poll waits for a change
+     */
+    @Value("${flight.changes.max-wait:PT30S}")
+    private Duration maxWait = Duration.ofSeconds(30);
+
+    /**
+     * Endpoint to get the changes after a cursor. Without after, the response is empty and
+     * nextAfter is the current position of the log. With wait, the request is held open until a
+     * change arrives or the wait is over.
+     * 
+     * @param after The nextAfter value of the previous response, omitted to start from now
+     * @param limit The maximum number of changes, capped by the server
+     * @param wait Seconds to wait for a change when there is none yet, capped by the server
+     * @return the changes and the cursor to continue from, with HTTP status 200 (OK)
+     */
+    @GetMapping(value = "", produces = MediaType.APPLICATION_JSON_VALUE)
+    public DeferredResult<FlightChangePage> getChanges(@RequestParam(value = "after", required = false) String after,
+                                                       @RequestParam(value = "limit", defaultValue = "0") int limit,
+                                                       @RequestParam(value = "wait", defaultValue = "0") long wait) {
+        logger.debug("Fetching flight changes after cursor {}", after);
+        try {
+            Duration waitFor = Duration.ofSeconds(Math.max(0, wait));
+            return flightChangeStream.poll(after, limit, waitFor.compareTo(maxWait) > 0 ? maxWait : waitFor);
+        } catch (Exception e) {
+            logger.error("Error fetching flight changes: {}", e.getMessage(), e);
+            throw e;
+        }
+    }
+
+    /**
+     * Endpoint to stream the changes as Server-Sent Events. A reconnecting client sends the ID of
+     * the last event it received in Last-Event-ID and continues from there.
+     * 
+     * @param after The cursor to start after, omitted to start from now
+     * @param lastEventId The Last-Event-ID header of a reconnecting client, takes precedence over after
+     * @return the event stream
+     */
+    @GetMapping(value = "", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(@RequestParam(value = "after", required = false) String after,
+                                    @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        logger.debug("Opening flight change stream after cursor {}", lastEventId != null ? lastEventId : after);
+        try {
+            return flightChangeStream.subscribe(lastEventId != null ? lastEventId : after);
+        } catch (Exception e) {
+            logger.error("Error opening flight change stream: {}", e.getMessage(), e);
+            throw e;
+        }
+    }
+
+    /**
+     * Maps a resume from a sequence the log no longer holds, or from a cursor of an earlier log,
+     * to HTTP status 410 (GONE), telling the client to read the flights again
+     * 
+     * @param e The exception describing the available sequences
+     * @return ResponseEntity containing the error message and HTTP status 410 (GONE)
+     */
+    @ExceptionHandler(FlightChangesExpiredException.class)
+    public ResponseEntity<String> handleExpired(FlightChangesExpiredException e) {
+        return ResponseEntity.status(HttpStatus.GONE).contentType(MediaType.TEXT_PLAIN).body(e.getMessage());
+    }
+
+    /**
+     * Handles malformed cursors
+     * 
+     * @param e The exception describing the cursor
+     * @return ResponseEntity containing the error message and HTTP status 400 (BAD_REQUEST)
+     */
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleBadRequest(IllegalArgumentException e) {
+        return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+    }
+}
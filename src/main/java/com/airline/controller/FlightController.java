@@ -1,18 +1,43 @@
 package com.airline.controller;
 
+import com.airline.config.WireFormatConfig;
+import com.airline.limiter.ConcurrencyLimitExceededException;
+import com.airline.model.BulkResult;
 import com.airline.model.Flight;
+import com.airline.model.FlightListResponse;
+import com.airline.model.FlightListVersion;
+import com.airline.model.FlightPage;
+import com.airline.model.FlightPatch;
 import com.airline.model.FlightWithIP;
+import com.airline.model.NodeInfo;
+import com.airline.node.NodeIdentity;
 import com.airline.service.FlightService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.MimeTypeUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
-import java.net.InetAddress;
-import java.net.UnknownHostException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
@@ -29,12 +54,55 @@ public class FlightController {
      */
     private static final Logger logger = LoggerFactory.getLogger(FlightController.class);
 
+    /**
+     * Media type of the newline-delimited JSON export
+     */
+    public static final String APPLICATION_NDJSON = "application/x-ndjson";
+
+    /**
+     * Media type that selects version 2 of the flight list response
+     */
+    public static final String FLIGHT_LIST_V2_JSON = "application/vnd.airline.flights.v2+json";
+
+    /**
+     * Request header that selects a response version, as an alternative to the media type
+     */
+    public static final String API_VERSION_HEADER = "X-API-Version";
+
+    /**
+     * Encodings of a single flight, in order of preference, with the suffix of their ETags
+     */
+    private static final Map<MediaType, String> FLIGHT_ENCODINGS = new LinkedHashMap<>();
+
+    static {
+        FLIGHT_ENCODINGS.put(MediaType.APPLICATION_JSON, "");
+        FLIGHT_ENCODINGS.put(MediaType.parseMediaType(WireFormatConfig.APPLICATION_SMILE), "-smile");
+        FLIGHT_ENCODINGS.put(MediaType.parseMediaType(WireFormatConfig.APPLICATION_CBOR), "-cbor");
+    }
+
+    /**
+     * Header value of If-Match that matches any current version of a flight
+     */
+    private static final String ANY_VERSION = "*";
+
     /**
      * Flight service dependency for handling business logic
      */
     @Autowired
     private FlightService flightService;
 
+    /**
+     * Identity of this node, resolved once and refreshed in the background
+     */
+    @Autowired
+    private NodeIdentity nodeIdentity;
+
+    /**
+     * Shared Jackson mapper, used directly by the streaming export
+     */
+    @Autowired
+    private ObjectMapper objectMapper;
+
     /**
      * Endpoint to add a new flight
      * 
@@ -43,10 +111,10 @@ public class FlightController {
      */
     @PostMapping("/")
     public ResponseEntity<Flight> addFlight(@RequestBody Flight flight){
-        logger.info("Adding new flight: {}", flight);
+        logger.debug("Adding new flight: {}", flight);
         try {
             Flight flight1 = flightService.addFlight(flight);
-            logger.info("Successfully added flight with ID: {}", flight1.getFlightId());
+            logger.debug("Successfully added flight with ID: {}", flight1.getFlightId());
             return new ResponseEntity<>(flight1, HttpStatus.CREATED);
         } catch (Exception e) {
             logger.error("Error adding flight: {}", e.getMessage(), e);
@@ -54,6 +122,82 @@ public class FlightController {
         }
     }
 
+    /**
+     * Endpoint to add many flights in one request
+     * 
+     * @param flights The flights to be added
+     * @return ResponseEntity containing the outcome of each flight and HTTP status 200 (OK)
+     */
+    @PostMapping("/bulk")
+    public ResponseEntity<BulkResult> addFlights(@RequestBody List<Flight> flights) {
+        logger.debug("Bulk adding {} flights", flights.size());
+        try {
+            BulkResult result = flightService.addFlights(flights);
+            logger.debug("Bulk added {} flights, {} failed", result.getSucceeded(), result.getFailed());
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            logger.error("Error bulk adding flights: {}", e.getMessage(), e);
+            throw e;
+        }
+    }
+
+    /**
+     * Endpoint to update many flights in one request
+     * 
+     * @param flights The updated flights, identified by their flight ID
+     * @return ResponseEntity containing the outcome of each flight and HTTP status 200 (OK)
+     */
+    @PutMapping("/bulk")
+    public ResponseEntity<BulkResult> updateFlights(@RequestBody List<Flight> flights) {
+        logger.debug("Bulk updating {} flights", flights.size());
+        try {
+            BulkResult result = flightService.updateFlights(flights);
+            logger.debug("Bulk updated {} flights, {} failed", result.getSucceeded(), result.getFailed());
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            logger.error("Error bulk updating flights: {}", e.getMessage(), e);
+            throw e;
+        }
+    }
+
+    /**
+     * Endpoint to delete many flights in one request
+     * 
+     * @param flightIds The IDs of the flights to delete
+     * @return ResponseEntity containing the outcome of each flight and HTTP status 200 (OK)
+     */
+    @DeleteMapping("/bulk")
+    public ResponseEntity<BulkResult> deleteFlights(@RequestBody List<Integer> flightIds) {
+        logger.debug("Bulk deleting {} flights", flightIds.size());
+        try {
+            BulkResult result = flightService.deleteFlights(flightIds);
+            logger.debug("Bulk deleted {} flights, {} failed", result.getSucceeded(), result.getFailed());
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            logger.error("Error bulk deleting flights: {}", e.getMessage(), e);
+            throw e;
+        }
+    }
+
+    /**
+     * Endpoint to change only some fields of many flights in one request, for example a price feed
+     * 
+     * @param patches The changes, each with the ID of its flight
+     * @return ResponseEntity containing the outcome of each flight and HTTP status 200 (OK)
+     */
+    @PatchMapping("/bulk")
+    public ResponseEntity<BulkResult> patchFlights(@RequestBody List<FlightPatch> patches) {
+        logger.debug("Bulk patching {} flights", patches.size());
+        try {
+            BulkResult result = flightService.patchFlights(patches);
+            logger.debug("Bulk patched {} flights, {} failed", result.getSucceeded(), result.getFailed());
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            logger.error("Error bulk patching flights: {}", e.getMessage(), e);
+            throw e;
+        }
+    }
+
     /**
      * Original method to get all flights (commented out)
      */
@@ -64,21 +208,34 @@ public class FlightController {
 //    }
 
     /**
-     * Enhanced endpoint to get all flights with server IP information
+     * Enhanced endpoint to get all flights with server IP information.
+     * Declares plain JSON so that clients accepting application/*+json keep getting this
+     * format rather than version 2. Also available in the binary Smile and CBOR encodings.
+     * Answers 304 (NOT MODIFIED) without loading the flights when If-None-Match carries the
+     * current list ETag.
      * 
-     * @return ResponseEntity containing a list of flights with server IP and HTTP status 200 (OK)
-     * @throws UnknownHostException if the local host name could not be resolved into an address
+     * @param webRequest The current request, used to evaluate If-None-Match, may be null
+     * @return ResponseEntity containing a list of flights with server IP and HTTP status 200 (OK),
+     *         or null once a 304 has been prepared
      */
-    @GetMapping("/")
-    public ResponseEntity<List<FlightWithIP>> getAllFlight() throws UnknownHostException {
-        logger.info("Fetching all flights");
+    @GetMapping(value = "/", produces = {MediaType.APPLICATION_JSON_VALUE, WireFormatConfig.APPLICATION_SMILE,
+            WireFormatConfig.APPLICATION_CBOR})
+    public ResponseEntity<List<FlightWithIP>> getAllFlight(WebRequest webRequest) {
+        logger.debug("Fetching all flights");
         try {
+            // read before the flights, so a write in between can only make the ETag older, never newer
+            String eTag = listETag("v1");
+            if (webRequest != null && webRequest.checkNotModified(eTag)) {
+                logger.debug("Flight list not modified");
+                return null;
+            }
+
             // Get all flights from the service
             List<Flight> allFlights = flightService.getAllFlight();
             logger.debug("Retrieved {} flights from database", allFlights.size());
             
-            // Get the server's IP address
-            String serverIP = InetAddress.getLocalHost().getHostAddress();
+            // Get the server's IP address, cached by the node identity
+            String serverIP = nodeIdentity.getServerIP();
             logger.debug("Server IP: {}", serverIP);
 
             // Transform each Flight into a FlightWithIP object
@@ -86,11 +243,148 @@ public class FlightController {
                     .map(flight -> new FlightWithIP(flight, serverIP))
                     .collect(Collectors.toList());
 
-            logger.info("Successfully retrieved all flights with server IP");
-            return new ResponseEntity<>(flightsWithIP, HttpStatus.OK);
-        } catch (UnknownHostException e) {
-            logger.error("Error resolving host address: {}", e.getMessage(), e);
+            logger.debug("Successfully retrieved all flights with server IP");
+            return ResponseEntity.ok().eTag(eTag).varyBy(HttpHeaders.ACCEPT).body(flightsWithIP);
+        } catch (Exception e) {
+            logger.error("Error fetching all flights: {}", e.getMessage(), e);
             throw e;
+        }
+    }
+
+    /**
+     * Endpoint to list flights page by page using an opaque continuation cursor.
+     * Unlike the full listing, the work done per call depends only on the page size.
+     * 
+     * @param cursor The nextCursor value from the previous page, omitted for the first page
+     * @param limit The requested page size, capped by the server
+     * @return ResponseEntity containing the page of flights and HTTP status 200 (OK)
+     */
+    @GetMapping("/page")
+    public ResponseEntity<FlightPage> getFlightPage(@RequestParam(value = "cursor", required = false) String cursor,
+                                                    @RequestParam(value = "limit", defaultValue = "0") int limit) {
+        logger.debug("Fetching flight page after cursor: {}", cursor);
+        try {
+            FlightPage page = flightService.getFlightPage(cursor, limit);
+            logger.debug("Successfully retrieved page of {} flights", page.getFlights().size());
+            return ResponseEntity.ok(page);
+        } catch (Exception e) {
+            logger.error("Error fetching flight page: {}", e.getMessage(), e);
+            throw e;
+        }
+    }
+
+    /**
+     * Endpoint to search the flights of a route, cheapest first unless order=desc is given
+     * 
+     * @param source The departure location
+     * @param destination The arrival location
+     * @param minPrice Optional lowest ticket price, inclusive
+     * @param maxPrice Optional highest ticket price, inclusive
+     * @param order Sort order on ticket price, asc or desc
+     * @param limit Maximum number of flights to return, capped by the server
+     * @return ResponseEntity containing the matching flights and HTTP status 200 (OK)
+     */
+    @GetMapping("/search")
+    public ResponseEntity<List<Flight>> searchFlights(@RequestParam("source") String source,
+                                                      @RequestParam("destination") String destination,
+                                                      @RequestParam(value = "minPrice", required = false) Double minPrice,
+                                                      @RequestParam(value = "maxPrice", required = false) Double maxPrice,
+                                                      @RequestParam(value = "order", defaultValue = "asc") String order,
+                                                      @RequestParam(value = "limit", defaultValue = "0") int limit) {
+        logger.debug("Searching flights from {} to {}", source, destination);
+        try {
+            List<Flight> flights = flightService.searchFlights(source, destination, minPrice, maxPrice,
+                    Sort.Direction.fromString(order), limit);
+            logger.debug("Successfully found {} flights from {} to {}", flights.size(), source, destination);
+            return ResponseEntity.ok(flights);
+        } catch (Exception e) {
+            logger.error("Error searching flights from {} to {}: {}", source, destination, e.getMessage(), e);
+            throw e;
+        }
+    }
+
+    /**
+     * Endpoint to get the flights of a route, cheapest first, served from the in-memory route index
+     * 
+     * @param source The departure location
+     * @param destination The arrival location
+     * @param limit Maximum number of flights to return, capped by the server
+     * @return ResponseEntity containing the flights of the route and HTTP status 200 (OK)
+     */
+    @GetMapping("/route")
+    public ResponseEntity<List<Flight>> getRouteFlights(@RequestParam("source") String source,
+                                                        @RequestParam("destination") String destination,
+                                                        @RequestParam(value = "limit", defaultValue = "0") int limit) {
+        logger.debug("Fetching flights from {} to {}", source, destination);
+        try {
+            List<Flight> flights = flightService.getRouteFlights(source, destination, limit);
+            logger.debug("Successfully retrieved {} flights from {} to {}", flights.size(), source, destination);
+            return ResponseEntity.ok(flights);
+        } catch (Exception e) {
+            logger.error("Error fetching flights from {} to {}: {}", source, destination, e.getMessage(), e);
+            throw e;
+        }
+    }
+
+    /**
+     * Endpoint to export every flight as newline-delimited JSON, one flight per line.
+     * Flights are written straight to the response while they are read from the database,
+     * so memory use does not depend on the number of flights.
+     * 
+     * @param response The HTTP response the flights are streamed to
+     * @throws IOException if writing to the client fails
+     */
+    @GetMapping(value = "/export", produces = APPLICATION_NDJSON)
+    public void exportFlights(HttpServletResponse response) throws IOException {
+        logger.debug("Exporting all flights");
+        response.setContentType(APPLICATION_NDJSON);
+        ObjectWriter writer = objectMapper.writerFor(Flight.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+            // the newline after each flight is the only separator between root values
+            generator.setRootValueSeparator(null);
+            long count = flightService.exportFlights(flight -> {
+                try {
+                    writer.writeValue(generator, flight);
+                    generator.writeRaw('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            logger.debug("Successfully exported {} flights", count);
+        } catch (UncheckedIOException e) {
+            logger.error("Error writing flight export: {}", e.getMessage(), e);
+            throw e.getCause();
+        } catch (Exception e) {
+            logger.error("Error exporting flights: {}", e.getMessage(), e);
+            throw e;
+        }
+    }
+
+    /**
+     * Version 2 of the endpoint to get all flights, selected with
+     * Accept: application/vnd.airline.flights.v2+json. Returns one envelope with the node
+     * metadata and a flat array of flights, instead of repeating the server IP per flight.
+     * Honours If-None-Match like the version 1 endpoint.
+     * 
+     * @param webRequest The current request, used to evaluate If-None-Match, may be null
+     * @return ResponseEntity containing the flight list envelope and HTTP status 200 (OK),
+     *         or null once a 304 has been prepared
+     */
+    @GetMapping(value = "/", produces = FLIGHT_LIST_V2_JSON)
+    public ResponseEntity<FlightListResponse> getAllFlightV2(WebRequest webRequest) {
+        logger.debug("Fetching all flights (v2)");
+        try {
+            String eTag = listETag("v2");
+            if (webRequest != null && webRequest.checkNotModified(eTag)) {
+                logger.debug("Flight list not modified (v2)");
+                return null;
+            }
+            List<Flight> allFlights = flightService.getAllFlight();
+            NodeInfo node = new NodeInfo(nodeIdentity.getServerIP(), nodeIdentity.getHostName());
+            logger.debug("Successfully retrieved {} flights (v2)", allFlights.size());
+            return ResponseEntity.ok().eTag(eTag).varyBy(HttpHeaders.ACCEPT)
+                    .body(new FlightListResponse(node, allFlights.size(), allFlights));
         } catch (Exception e) {
             logger.error("Error fetching all flights: {}", e.getMessage(), e);
             throw e;
@@ -98,19 +392,38 @@ public class FlightController {
     }
 
     /**
-     * Endpoint to get a specific flight by its ID
+     * Version 2 of the endpoint to get all flights, selected with the X-API-Version: 2 header
+     * for clients that cannot set a custom media type. The Accept header then picks JSON, Smile
+     * or CBOR.
+     * 
+     * @param webRequest The current request, used to evaluate If-None-Match, may be null
+     * @return ResponseEntity containing the flight list envelope and HTTP status 200 (OK)
+     */
+    @GetMapping(value = "/", headers = API_VERSION_HEADER + "=2")
+    public ResponseEntity<FlightListResponse> getAllFlightV2ByHeader(WebRequest webRequest) {
+        return getAllFlightV2(webRequest);
+    }
+
+    /**
+     * Endpoint to get a specific flight by its ID, in JSON, Smile or CBOR.
+     * The response carries the flight version as its ETag, with the encoding appended for Smile
+     * and CBOR; a request whose If-None-Match holds that ETag is answered with 304 (NOT MODIFIED)
+     * and no body.
      * 
      * @param flightId The ID of the flight to retrieve
+     * @param webRequest The current request, used to pick the encoding of the ETag, may be null
      * @return ResponseEntity containing the flight and HTTP status 200 (OK)
      * @throws Exception if the flight with the given ID is not found
      */
-    @GetMapping("/{flightId}")
-    public ResponseEntity<Flight> getFlight(@PathVariable("flightId") int flightId) throws Exception {
-        logger.info("Fetching flight with ID: {}", flightId);
+    @GetMapping(value = "/{flightId}", produces = {MediaType.APPLICATION_JSON_VALUE, WireFormatConfig.APPLICATION_SMILE,
+            WireFormatConfig.APPLICATION_CBOR})
+    public ResponseEntity<Flight> getFlight(@PathVariable("flightId") int flightId, WebRequest webRequest) throws Exception {
+        logger.debug("Fetching flight with ID: {}", flightId);
         try {
             Flight flight = flightService.getFlight(flightId);
-            logger.info("Successfully retrieved flight with ID: {}", flightId);
-            return ResponseEntity.ok(flight);
+            logger.debug("Successfully retrieved flight with ID: {}", flightId);
+            return ResponseEntity.ok().eTag(versionETag(flight.getVersion(), webRequest)).varyBy(HttpHeaders.ACCEPT)
+                    .body(flight);
         } catch (Exception e) {
             logger.error("Error fetching flight with ID {}: {}", flightId, e.getMessage(), e);
             throw e;
@@ -118,17 +431,26 @@ public class FlightController {
     }
 
     /**
-     * Endpoint to delete a flight by its ID
+     * Endpoint to delete a flight by its ID.
+     * With If-Match the flight is only deleted if it is still at that version, otherwise the
+     * response is 412 (PRECONDITION FAILED).
      * 
      * @param flightId The ID of the flight to delete
+     * @param ifMatch The ETag of the version the client last read, optional
      * @return ResponseEntity containing a confirmation message and HTTP status 200 (OK)
      */
     @DeleteMapping("/{flightId}")
-    public ResponseEntity<String> deleteFlight(@PathVariable("flightId") int flightId){
-        logger.info("Deleting flight with ID: {}", flightId);
+    public ResponseEntity<String> deleteFlight(@PathVariable("flightId") int flightId,
+                                               @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch){
+        logger.debug("Deleting flight with ID: {}", flightId);
         try {
-            flightService.deleteFlight(flightId);
-            logger.info("Successfully deleted flight with ID: {}", flightId);
+            Long expectedVersion = parseIfMatch(ifMatch);
+            if (expectedVersion == null) {
+                flightService.deleteFlight(flightId);
+            } else {
+                flightService.deleteFlight(flightId, expectedVersion);
+            }
+            logger.debug("Successfully deleted flight with ID: {}", flightId);
             return new ResponseEntity<String>("Flight ID: "+flightId,HttpStatus.OK);
         } catch (Exception e) {
             logger.error("Error deleting flight with ID {}: {}", flightId, e.getMessage(), e);
@@ -137,26 +459,208 @@ public class FlightController {
     }
 
     /**
-     * Endpoint to update a flight by its ID
+     * Endpoint to update a flight by its ID.
+     * With If-Match the flight is written in a single conditional statement and only if it is
+     * still at that version, otherwise the response is 412 (PRECONDITION FAILED). The version in
+     * the request body is ignored.
      * 
      * @param flightId The ID of the flight to update
      * @param flight The updated flight information
-     * @return ResponseEntity containing the updated flight and HTTP status 200 (OK)
+     * @param ifMatch The ETag of the version the client last read, optional
+     * @return ResponseEntity containing the updated flight with its new ETag and HTTP status 200 (OK)
      * @throws Exception if the flight with the given ID is not found
      */
     @PutMapping("/{flightId}")
-    public ResponseEntity<Flight> updateFlight(@PathVariable("flightId") int flightId,@RequestBody Flight flight) throws Exception {
-        logger.info("Updating flight with ID: {}", flightId);
+    public ResponseEntity<Flight> updateFlight(@PathVariable("flightId") int flightId,@RequestBody Flight flight,
+                                               @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) throws Exception {
+        logger.debug("Updating flight with ID: {}", flightId);
         logger.debug("Update data: {}", flight);
         try {
             flight.setFlightId(flightId);
-            Flight flight1 = flightService.updateFlight(flightId,flight);
-            logger.info("Successfully updated flight with ID: {}", flightId);
-            return new ResponseEntity<>(flight1,HttpStatus.OK);
+            Long expectedVersion = parseIfMatch(ifMatch);
+            Flight flight1 = expectedVersion == null
+                    ? flightService.updateFlight(flightId,flight)
+                    : flightService.updateFlight(flightId, flight, expectedVersion);
+            logger.debug("Successfully updated flight with ID: {}", flightId);
+            return ResponseEntity.ok().eTag(versionETag(flight1.getVersion())).body(flight1);
         } catch (Exception e) {
             logger.error("Error updating flight with ID {}: {}", flightId, e.getMessage(), e);
             throw e;
         }
     }
 
+    /**
+     * Endpoint to change only some fields of a flight. Only the columns in the request body are
+     * written, in a single statement without reading the flight first. With If-Match the change is
+     * only applied if the flight is still at that version, and the new ETag is returned.
+     * 
+     * @param flightId The ID of the flight to change
+     * @param patch The fields to change, fields left out or null are kept
+     * @param ifMatch The ETag of the version the client last read, optional
+     * @return ResponseEntity with HTTP status 204 (NO CONTENT)
+     */
+    @PatchMapping("/{flightId}")
+    public ResponseEntity<Void> patchFlight(@PathVariable("flightId") int flightId, @RequestBody FlightPatch patch,
+                                            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        logger.debug("Patching flight with ID: {}", flightId);
+        logger.debug("Patch data: {}", patch);
+        try {
+            Long expectedVersion = parseIfMatch(ifMatch);
+            if (expectedVersion == null) {
+                flightService.patchFlight(flightId, patch);
+                logger.debug("Successfully patched flight with ID: {}", flightId);
+                return ResponseEntity.noContent().build();
+            }
+            long version = flightService.patchFlight(flightId, patch, expectedVersion);
+            logger.debug("Successfully patched flight with ID: {}", flightId);
+            return ResponseEntity.noContent().eTag(versionETag(version)).build();
+        } catch (Exception e) {
+            logger.error("Error patching flight with ID {}: {}", flightId, e.getMessage(), e);
+            throw e;
+        }
+    }
+
+    /**
+     * Maps invalid client input, such as a malformed cursor, to HTTP status 400 (BAD REQUEST)
+     * 
+     * @param e The exception describing the invalid input
+     * @return ResponseEntity containing the error message and HTTP status 400 (BAD REQUEST)
+     */
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleBadRequest(IllegalArgumentException e) {
+        return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+    }
+
+    /**
+     * Maps a write against an outdated version to HTTP status 412 (PRECONDITION FAILED)
+     * 
+     * @param e The exception describing the version conflict
+     * @return ResponseEntity containing the error message and HTTP status 412 (PRECONDITION FAILED)
+     */
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<String> handleVersionConflict(OptimisticLockingFailureException e) {
+        return new ResponseEntity<>(e.getMessage(), HttpStatus.PRECONDITION_FAILED);
+    }
+
+    /**
+     * Maps a conditional write to a flight that does not exist to HTTP status 404 (NOT FOUND)
+     * 
+     * @param e The exception naming the missing flight
+     * @return ResponseEntity containing the error message and HTTP status 404 (NOT FOUND)
+     */
+    @ExceptionHandler(EmptyResultDataAccessException.class)
+    public ResponseEntity<String> handleNotFound(EmptyResultDataAccessException e) {
+        return new ResponseEntity<>(e.getMessage(), HttpStatus.NOT_FOUND);
+    }
+
+    /**
+     * Maps a request rejected by the database concurrency limit to HTTP status 503 (SERVICE
+     * UNAVAILABLE), with a Retry-After header telling the client when to try again
+     * 
+     * @param e The exception naming the full lane
+     * @return ResponseEntity containing the error message and HTTP status 503 (SERVICE UNAVAILABLE)
+     */
+    @ExceptionHandler(ConcurrencyLimitExceededException.class)
+    public ResponseEntity<String> handleOverload(ConcurrencyLimitExceededException e) {
+        long seconds = Math.max(1, (e.getRetryAfter().toMillis() + 999) / 1000);
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(seconds))
+                .body(e.getMessage());
+    }
+
+    /**
+     * Builds the strong ETag of one flight version
+     */
+    private static String versionETag(long version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * Builds the strong ETag of one flight version in the encoding the response is written in.
+     * The encodings are different representations, so they must not share a strong ETag; JSON
+     * keeps the bare version that the write endpoints return.
+     */
+    private static String versionETag(long version, WebRequest webRequest) {
+        return "\"" + version + FLIGHT_ENCODINGS.get(flightMediaType(webRequest)) + "\"";
+    }
+
+    /**
+     * Picks the encoding of a single flight the way Spring MVC's content negotiation does: the
+     * most specific acceptable type wins, ties go to the first encoding (JSON)
+     */
+    private static MediaType flightMediaType(WebRequest webRequest) {
+        String accept = webRequest == null ? null : webRequest.getHeader(HttpHeaders.ACCEPT);
+        if (accept == null || accept.isBlank()) {
+            return MediaType.APPLICATION_JSON;
+        }
+        List<MediaType> acceptable;
+        try {
+            acceptable = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException e) {
+            return MediaType.APPLICATION_JSON;
+        }
+        MimeTypeUtils.sortBySpecificity(acceptable);
+        List<MediaType> compatible = new ArrayList<>();
+        for (MediaType acceptType : acceptable) {
+            for (MediaType encoding : FLIGHT_ENCODINGS.keySet()) {
+                if (acceptType.isCompatibleWith(encoding)) {
+                    MediaType produced = encoding.copyQualityValue(acceptType);
+                    compatible.add(acceptType.isLessSpecific(produced) ? produced : acceptType);
+                }
+            }
+        }
+        MimeTypeUtils.sortBySpecificity(compatible);
+        for (MediaType mediaType : compatible) {
+            for (MediaType encoding : FLIGHT_ENCODINGS.keySet()) {
+                if (encoding.equalsTypeAndSubtype(mediaType)) {
+                    return encoding;
+                }
+            }
+        }
+        return MediaType.APPLICATION_JSON;
+    }
+
+    /**
+     * Builds the weak ETag of the flight list in one response format. It changes whenever a
+     * flight is added, updated or deleted, and differs between nodes because the body names
+     * the node that served it.
+     */
+    private String listETag(String format) {
+        FlightListVersion listVersion = flightService.getFlightListVersion();
+        return "W/\"" + format + "-" + listVersion.getCount() + "-" + Long.toHexString(listVersion.getHash()) + "-"
+                + Integer.toHexString(nodeIdentity.getServerIP().hashCode()) + "\"";
+    }
+
+    /**
+     * Reads the flight version from an If-Match header
+     * 
+     * @param ifMatch the header value, a single strong ETag or *
+     * @return the expected version, or null if the write is unconditional
+     * @throws IllegalArgumentException if the header is not a single flight ETag
+     * @throws OptimisticLockingFailureException if the header holds a weak ETag, which never matches
+     */
+    private static Long parseIfMatch(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ANY_VERSION.equals(ifMatch.trim())) {
+            return null;
+        }
+        String eTag = ifMatch.trim();
+        if (eTag.startsWith("W/")) {
+            throw new OptimisticLockingFailureException("If-Match requires a strong ETag: " + eTag);
+        }
+        if (eTag.length() < 3 || eTag.charAt(0) != '"' || eTag.charAt(eTag.length() - 1) != '"') {
+            throw new IllegalArgumentException("Invalid If-Match header: " + eTag);
+        }
+        String version = eTag.substring(1, eTag.length() - 1);
+        for (String suffix : FLIGHT_ENCODINGS.values()) {
+            if (!suffix.isEmpty() && version.endsWith(suffix)) {
+                version = version.substring(0, version.length() - suffix.length());
+            }
+        }
+        try {
+            return Long.parseLong(version);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid If-Match header: " + eTag);
+        }
+    }
+
 }
@@ -0,0 +1,90 @@
+package com.airline.datasource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Checks the read replicas in the background and takes them in and out of the read rotation.
+ *
+ * Reported as the "replicas" health component, which stays UP while reads fall back to the
+ * primary, so a lost replica does not take the instance out of service. The number of replicas
+ * taking reads is published as the flight.datasource.replicas.healthy gauge.
+ */
+public class ReplicaHealthChecker implements HealthIndicator, MeterBinder {
+
+    /**
+     * The routing data source whose replicas are checked
+     */
+    private final ReplicaRoutingDataSource routingDataSource;
+
+    /**
+     * How long a replica may take to confirm its connection is valid
+     */
+    private final Duration timeout;
+
+    /**
+     * Creates the checker
+     *
+     * @param routingDataSource the routing data source whose replicas are checked
+     * @param timeout how long a replica may take to confirm its connection is valid
+     */
+    public ReplicaHealthChecker(ReplicaRoutingDataSource routingDataSource, Duration timeout) {
+        this.routingDataSource = routingDataSource;
+        this.timeout = timeout;
+    }
+
+    /**
+     * Checks every replica once. Runs on the scheduler thread, never on a request thread.
+     */
+    @Scheduled(fixedDelayString = "${flight.datasource.health-check-interval:PT10S}",
+            initialDelayString = "${flight.datasource.health-check-interval:PT10S}")
+    public void checkReplicas() {
+        for (Map.Entry<String, DataSource> replica : routingDataSource.getReplicas().entrySet()) {
+            try (Connection connection = replica.getValue().getConnection()) {
+                if (connection.isValid((int) Math.max(1, timeout.toSeconds()))) {
+                    routingDataSource.markUp(replica.getKey());
+                } else {
+                    routingDataSource.markDown(replica.getKey(), new SQLException("connection is not valid"));
+                }
+            } catch (SQLException e) {
+                routingDataSource.markDown(replica.getKey(), e);
+            }
+        }
+    }
+
+    /**
+     * Reports the state of each replica as of the last check
+     *
+     * @return UP, with the replica states and whether reads fall back to the primary
+     */
+    @Override
+    public Health health() {
+        Health.Builder builder = Health.up();
+        for (String key : routingDataSource.getReplicas().keySet()) {
+            builder.withDetail(key, routingDataSource.isHealthy(key) ? "UP" : "DOWN");
+        }
+        return builder.withDetail("readsOnPrimary", routingDataSource.getHealthyCount() == 0).build();
+    }
+
+    /**
+     * Registers a gauge for the number of replicas that take reads
+     *
+     * @param registry the registry to publish to
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("flight.datasource.replicas.healthy", routingDataSource, ReplicaRoutingDataSource::getHealthyCount)
+                .description("Read replicas currently taking read-only transactions")
+                .register(registry);
+    }
+}
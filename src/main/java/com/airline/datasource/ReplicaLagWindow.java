@@ -0,0 +1,145 @@
+package com.airline.datasource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers which flights changed too recently for the replicas to have them, so the reads that
+ * refill a cache with those flights go to the primary.
+ *
+ * A replica applies a write some time after the primary committed it. A read that refills a cache
+ * right after a write or an invalidation would otherwise load the old row from a replica and keep
+ * it cached until the next change. Each write on this instance and each invalidation received from
+ * another instance therefore marks the flights it names as lagging for
+ * flight.datasource.replica-max-lag; a detected gap marks every flight. Reads of a lagging flight
+ * that refill a cache run through onPrimary, which the ReplicaRoutingDataSource sends to the
+ * primary. All other reads stay on the replicas. The window has to cover the replicas' usual lag.
+ */
+@Component
+public class ReplicaLagWindow {
+
+    /**
+     * Number of remembered flights above which expired entries are purged on the next change
+     */
+    private static final int PURGE_THRESHOLD = 4096;
+
+    /**
+     * Set while the current thread reads from the primary
+     */
+    private static final ThreadLocal<Boolean> onPrimary = new ThreadLocal<>();
+
+    /**
+     * How long a flight counts as lagging after a change, in nanoseconds
+     */
+    private final long maxLagNanos;
+
+    /**
+     * System.nanoTime() up to which each recently changed flight counts as lagging
+     */
+    private final Map<Integer, Long> deadlines = new ConcurrentHashMap<>();
+
+    /**
+     * System.nanoTime() up to which every flight counts as lagging, after a missed invalidation
+     */
+    private volatile long allUntil;
+
+    /**
+     * Creates the window, with no flight lagging
+     *
+     * @param maxLag how long a replica may take to apply a write, zero to never read from the primary
+     */
+    public ReplicaLagWindow(@Value("${flight.datasource.replica-max-lag:PT5S}") Duration maxLag) {
+        this.maxLagNanos = maxLag.toNanos();
+        this.allUntil = System.nanoTime();
+    }
+
+    /**
+     * Records that flights have changed, so they are read from the primary for the maximum lag
+     *
+     * @param flightIds the changed flights
+     */
+    public void markChanged(Collection<Integer> flightIds) {
+        if (maxLagNanos <= 0) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (deadlines.size() > PURGE_THRESHOLD) {
+            deadlines.values().removeIf(deadline -> deadline - now <= 0);
+        }
+        Long until = now + maxLagNanos;
+        for (Integer flightId : flightIds) {
+            deadlines.put(flightId, until);
+        }
+    }
+
+    /**
+     * Records that any flight may have changed, e.g. after a missed invalidation
+     */
+    public void markAllChanged() {
+        if (maxLagNanos <= 0) {
+            return;
+        }
+        allUntil = System.nanoTime() + maxLagNanos;
+        deadlines.clear();
+    }
+
+    /**
+     * Check whether a replica may not have the latest change of a flight yet
+     *
+     * @param flightId the flight ID
+     * @return true within the maximum lag of the flight's last change
+     */
+    public boolean isLagging(int flightId) {
+        if (maxLagNanos <= 0) {
+            return false;
+        }
+        long now = System.nanoTime();
+        if (allUntil - now > 0) {
+            return true;
+        }
+        Long deadline = deadlines.get(flightId);
+        if (deadline == null) {
+            return false;
+        }
+        if (deadline - now > 0) {
+            return true;
+        }
+        deadlines.remove(flightId, deadline);
+        return false;
+    }
+
+    /**
+     * Runs reads on the primary, even inside read-only transactions. The transactions have to
+     * start inside the call, as the connection is chosen when the first one opens it.
+     *
+     * @param read the reads to run
+     * @param <T> the type of the result
+     * @return the result of the reads
+     * @throws Exception the exception thrown by the reads
+     */
+    public <T> T onPrimary(Callable<T> read) throws Exception {
+        Boolean previous = onPrimary.get();
+        onPrimary.set(Boolean.TRUE);
+        try {
+            return read.call();
+        } finally {
+            if (previous == null) {
+                onPrimary.remove();
+            }
+        }
+    }
+
+    /**
+     * Check whether the current thread has asked to read from the primary
+     * @return true inside onPrimary
+     */
+    public boolean isPrimaryRequested() {
+        return onPrimary.get() != null;
+    }
+}
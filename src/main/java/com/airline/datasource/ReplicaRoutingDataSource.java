@@ -0,0 +1,218 @@
+package com.airline.datasource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends connections of read-only transactions to the read replicas, round robin, and everything
+ * else to the primary.
+ *
+ * The decision is taken when the connection is opened, so this data source has to sit behind a
+ * LazyConnectionDataSourceProxy: the transaction manager asks for its connection before the
+ * transaction is marked read-only, the proxy only opens the real one at the first statement.
+ * Replicas that fail their health check, or fail to hand out a connection, are skipped until they
+ * pass a check again; with no healthy replica left, reads go to the primary. Reads run through
+ * ReplicaLagWindow.onPrimary go to the primary as well, so a cache refilled with a flight that just
+ * changed does not pick up the row a replica has not updated yet.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+
+    /**
+     * Logger for this class
+     */
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    /**
+     * Lookup key of the primary
+     */
+    public static final String PRIMARY = "primary";
+
+    /**
+     * The primary, used for writes and as fallback for reads
+     */
+    private final DataSource primary;
+
+    /**
+     * The replicas by lookup key, in configuration order
+     */
+    private final Map<String, DataSource> replicas;
+
+    /**
+     * Keys of the replicas that currently take reads, replaced as a whole on every change
+     */
+    private volatile List<String> healthyReplicas;
+
+    /**
+     * Round robin position among the healthy replicas
+     */
+    private final AtomicInteger next = new AtomicInteger();
+
+    /**
+     * Tells which reads asked for the primary
+     */
+    private final ReplicaLagWindow lagWindow;
+
+    /**
+     * Creates the routing data source, all replicas start out healthy
+     *
+     * @param primary the primary database
+     * @param replicas the replicas by lookup key, e.g. replica-1
+     */
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas) {
+        this(primary, replicas, new ReplicaLagWindow(Duration.ZERO));
+    }
+
+    /**
+     * Creates the routing data source, all replicas start out healthy
+     *
+     * @param primary the primary database
+     * @param replicas the replicas by lookup key, e.g. replica-1
+     * @param lagWindow tells which reads asked for the primary
+     */
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas, ReplicaLagWindow lagWindow) {
+        this.primary = primary;
+        this.lagWindow = lagWindow;
+        this.replicas = Collections.unmodifiableMap(new LinkedHashMap<>(replicas));
+        this.healthyReplicas = List.copyOf(this.replicas.keySet());
+        Map<Object, Object> targets = new HashMap<>(replicas);
+        targets.put(PRIMARY, primary);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    /**
+     * Picks the next healthy replica inside a read-only transaction, the primary otherwise or when
+     * the read asked for it
+     *
+     * @return the lookup key of the database to use
+     */
+    @Override
+    protected String determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || lagWindow.isPrimaryRequested()) {
+            return PRIMARY;
+        }
+        List<String> healthy = healthyReplicas;
+        if (healthy.isEmpty()) {
+            return PRIMARY;
+        }
+        return healthy.get(Math.floorMod(next.getAndIncrement(), healthy.size()));
+    }
+
+    /**
+     * Opens a connection to the routed database. A replica that cannot hand one out is marked
+     * down and the connection is opened on the primary instead.
+     *
+     * @return the connection
+     * @throws SQLException if the primary cannot hand out a connection
+     */
+    @Override
+    public Connection getConnection() throws SQLException {
+        String key = determineCurrentLookupKey();
+        DataSource target = replicas.get(key);
+        if (target == null) {
+            return primary.getConnection();
+        }
+        try {
+            return target.getConnection();
+        } catch (SQLException e) {
+            markDown(key, e);
+            return primary.getConnection();
+        }
+    }
+
+    /**
+     * Get the replicas
+     * @return the replicas by lookup key, in configuration order
+     */
+    public Map<String, DataSource> getReplicas() {
+        return replicas;
+    }
+
+    /**
+     * Check whether a replica currently takes reads
+     * @param key the lookup key of the replica
+     * @return true if reads are routed to it
+     */
+    public boolean isHealthy(String key) {
+        return healthyReplicas.contains(key);
+    }
+
+    /**
+     * Get the number of replicas that currently take reads
+     * @return the number of healthy replicas, 0 when reads go to the primary
+     */
+    public int getHealthyCount() {
+        return healthyReplicas.size();
+    }
+
+    /**
+     * Puts a replica back into rotation
+     *
+     * @param key the lookup key of the replica
+     */
+    public synchronized void markUp(String key) {
+        if (!replicas.containsKey(key) || healthyReplicas.contains(key)) {
+            return;
+        }
+        List<String> healthy = new ArrayList<>();
+        for (String replica : replicas.keySet()) {
+            if (replica.equals(key) || healthyReplicas.contains(replica)) {
+                healthy.add(replica);
+            }
+        }
+        healthyReplicas = List.copyOf(healthy);
+        logger.info("Replica {} is up, {} of {} replicas take reads", key, healthy.size(), replicas.size());
+    }
+
+    /**
+     * Takes a replica out of rotation
+     *
+     * @param key the lookup key of the replica
+     * @param cause why the replica is considered down
+     */
+    public synchronized void markDown(String key, Exception cause) {
+        if (!healthyReplicas.contains(key)) {
+            return;
+        }
+        List<String> healthy = new ArrayList<>(healthyReplicas);
+        healthy.remove(key);
+        healthyReplicas = List.copyOf(healthy);
+        logger.warn("Replica {} is down, {} of {} replicas take reads: {}", key, healthy.size(), replicas.size(),
+                cause.getMessage());
+    }
+
+    /**
+     * Closes the connection pools of the primary and the replicas
+     */
+    @Override
+    public void close() {
+        closeQuietly(PRIMARY, primary);
+        replicas.forEach(ReplicaRoutingDataSource::closeQuietly);
+    }
+
+    private static void closeQuietly(String key, DataSource dataSource) {
+        if (dataSource instanceof AutoCloseable closeable) {
+            try {
+                closeable.close();
+            } catch (Exception e) {
+                logger.warn("Could not close the {} data source: {}", key, e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.airline.invalidation;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Message telling the other instances which flights one instance has written, so they drop their
+ * cached copies. Only flight IDs are sent, never flight data: receivers read a flight from the
+ * database again when they next need it.
+ *
+ * A message without flight IDs is a heartbeat: it repeats the sequence of its origin's last
+ * message without taking a new one, so a receiver learns of a lost message even when no other
+ * message follows it.
+ *
+ * Encoded as a fixed 21 byte header (format version, origin, sequence, ID count) followed
+ * by 4 bytes per flight ID, so a datagram of MAX_FLIGHT_IDS IDs stays well below the UDP limit.
+ *
+ * @param origin ID of the instance that wrote the flights, random per start
+ * @param sequence position of the message among those of its origin, starting at 1 and without
+ *                 gaps; for a heartbeat the sequence of the last message sent, 0 if there was none
+ * @param flightIds the written flights, empty for a heartbeat
+ */
+public record FlightInvalidation(long origin, long sequence, int[] flightIds) {
+
+    /**
+     * Most flight IDs carried by one message
+     */
+    public static final int MAX_FLIGHT_IDS = 4096;
+
+    private static final byte FORMAT_VERSION = 1;
+
+    private static final int HEADER_SIZE = 1 + 8 + 8 + 4;
+
+    /**
+     * Creates the heartbeat of an instance
+     *
+     * @param origin ID of the instance
+     * @param lastSequence sequence of the last message the instance sent, 0 if none
+     * @return the heartbeat
+     */
+    public static FlightInvalidation heartbeat(long origin, long lastSequence) {
+        return new FlightInvalidation(origin, lastSequence, new int[0]);
+    }
+
+    /**
+     * Check whether this message is a heartbeat
+     * @return true if the message carries no flight IDs
+     */
+    public boolean isHeartbeat() {
+        return flightIds.length == 0;
+    }
+
+    /**
+     * Encodes the message for a transport
+     *
+     * @return the encoded message
+     */
+    public byte[] encode() {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + 4 * flightIds.length);
+        buffer.put(FORMAT_VERSION)
+                .putLong(origin)
+                .putLong(sequence)
+                .putInt(flightIds.length);
+        for (int flightId : flightIds) {
+            buffer.putInt(flightId);
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Decodes a message received from a transport
+     *
+     * @param message the encoded message
+     * @return the message
+     * @throws IllegalArgumentException if the bytes are not a message of this format version
+     */
+    public static FlightInvalidation decode(byte[] message) {
+        ByteBuffer buffer = ByteBuffer.wrap(message);
+        try {
+            byte version = buffer.get();
+            if (version != FORMAT_VERSION) {
+                throw new IllegalArgumentException("Unknown invalidation format version " + version);
+            }
+            long origin = buffer.getLong();
+            long sequence = buffer.getLong();
+            int count = buffer.getInt();
+            if (count < 0 || count != buffer.remaining() / 4 || buffer.remaining() % 4 != 0) {
+                throw new IllegalArgumentException("Invalidation message of " + message.length
+                        + " bytes cannot hold " + count + " flight IDs");
+            }
+            int[] flightIds = new int[count];
+            for (int i = 0; i < count; i++) {
+                flightIds[i] = buffer.getInt();
+            }
+            return new FlightInvalidation(origin, sequence, flightIds);
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated invalidation message of " + message.length + " bytes", e);
+        }
+    }
+}
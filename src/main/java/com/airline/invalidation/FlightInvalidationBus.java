@@ -0,0 +1,389 @@
+package com.airline.invalidation;
+
+import com.airline.cache.FlightCache;
+import com.airline.cache.FlightRouteIndex;
+import com.airline.changes.FlightChangeLog;
+import com.airline.datasource.ReplicaLagWindow;
+import com.airline.model.Flight;
+import com.airline.model.FlightChange;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the flight caches of several instances coherent.
+ *
+ * After every write the service publishes the IDs of the flights it wrote; the other instances
+ * drop those flights from the flight cache and the Hibernate second-level cache, drop all cached
+ * query results and read the flights into their route index again. Messages are numbered per
+ * sender, so a receiver that misses one drops everything it has cached rather than serve a flight
+ * it was never told about. Every flight.invalidation.heartbeat each instance also sends the
+ * number of its last message, so a lost message is noticed within that interval even if the
+ * sender writes nothing more. The first message heard from a sender counts as a gap unless it
+ * is that sender's first, as the receiver cannot know what it missed before.
+ * Received writes are recorded in the local change log as INVALIDATED changes, and a gap as
+ * INVALIDATED_ALL, so clients following the feed of one instance learn of writes made on the others.
+ * Received messages only evict caches on the receiving thread. Reading flights into the route
+ * index is handed to a thread of its own, which merges the reloads queued meanwhile and does a
+ * single rebuild for any number of gaps, so a slow database does not hold up the messages that
+ * follow.
+ * The flights of every write published and every invalidation applied are also marked in the
+ * ReplicaLagWindow, so they are not refilled from a replica that has not applied the write yet.
+ * Without a transport bean, i.e. with flight.invalidation.transport=none, nothing is published.
+ *
+ * Messages sent and received and gaps detected are published as flight.invalidation.* counters.
+ */
+@Component
+public class FlightInvalidationBus implements MeterBinder {
+
+    /**
+     * Logger for this class
+     */
+    private static final Logger logger = LoggerFactory.getLogger(FlightInvalidationBus.class);
+
+    /**
+     * Identifies this instance's messages, new on every start so a restarted sender begins a new sequence
+     */
+    private final long nodeId = new SecureRandom().nextLong();
+
+    /**
+     * Sequence number of the last message sent
+     */
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * Highest sequence number heard of, by sender
+     */
+    private final Map<Long, Long> lastSequences = new ConcurrentHashMap<>();
+
+    /**
+     * Messages sent since startup
+     */
+    private final AtomicLong sent = new AtomicLong();
+
+    /**
+     * Messages of other instances applied since startup
+     */
+    private final AtomicLong received = new AtomicLong();
+
+    /**
+     * Missed messages detected since startup, each one dropped the whole cache
+     */
+    private final AtomicLong gaps = new AtomicLong();
+
+    /**
+     * Runs the route index reloads and rebuilds, one at a time
+     */
+    private Executor indexRefreshExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "flight-index-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Flights waiting to be read into the route index; guarded by this
+     */
+    private final Set<Integer> pendingReloads = new LinkedHashSet<>();
+
+    /**
+     * Whether a route index rebuild is waiting; guarded by this
+     */
+    private boolean rebuildPending;
+
+    /**
+     * Whether a refresh of the route index is queued or running; guarded by this
+     */
+    private boolean refreshQueued;
+
+    /**
+     * Transport to the other instances, absent when the bus is switched off
+     */
+    @Autowired(required = false)
+    private InvalidationTransport transport;
+
+    /**
+     * Cache of flights by ID
+     */
+    @Autowired
+    private FlightCache flightCache;
+
+    /**
+     * In-memory route index
+     */
+    @Autowired
+    private FlightRouteIndex flightRouteIndex;
+
+    /**
+     * Change log the writes of other instances are recorded in
+     */
+    @Autowired
+    private FlightChangeLog flightChangeLog;
+
+    /**
+     * Entity manager factory holding the second-level cache
+     */
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    /**
+     * Flights to read from the primary while replicas may lag behind their change
+     */
+    @Autowired
+    private ReplicaLagWindow replicaLagWindow;
+
+    /**
+     * Starts receiving the messages of the other instances
+     */
+    @PostConstruct
+    public void start() {
+        if (transport != null) {
+            transport.start(this::receive);
+        }
+    }
+
+    /**
+     * Stops the route index refresh thread
+     */
+    @PreDestroy
+    public void stop() {
+        if (indexRefreshExecutor instanceof ExecutorService executorService) {
+            executorService.shutdown();
+        }
+    }
+
+    /**
+     * Check whether writes are published to other instances
+     * @return true if a transport is configured
+     */
+    public boolean isEnabled() {
+        return transport != null;
+    }
+
+    /**
+     * Get the ID this instance's messages carry
+     * @return the node ID
+     */
+    public long getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Tells the other instances a flight has been written
+     *
+     * @param flightId the flight ID
+     */
+    public void publish(int flightId) {
+        publish(List.of(flightId));
+    }
+
+    /**
+     * Tells the other instances flights have been written, in messages of at most
+     * FlightInvalidation.MAX_FLIGHT_IDS IDs. A failure to send is logged, it never fails the write.
+     *
+     * @param flightIds the flight IDs
+     */
+    public void publish(Collection<Integer> flightIds) {
+        if (flightIds.isEmpty()) {
+            return;
+        }
+        replicaLagWindow.markChanged(flightIds);
+        if (transport == null) {
+            return;
+        }
+        int[] ids = flightIds.stream().mapToInt(Integer::intValue).toArray();
+        for (int from = 0; from < ids.length; from += FlightInvalidation.MAX_FLIGHT_IDS) {
+            int[] chunk = Arrays.copyOfRange(ids, from, Math.min(ids.length, from + FlightInvalidation.MAX_FLIGHT_IDS));
+            send(new FlightInvalidation(nodeId, sequence.incrementAndGet(), chunk));
+        }
+    }
+
+    /**
+     * Sends the sequence of the last message to the other instances, so they notice a lost
+     * message without waiting for the next write
+     */
+    @Scheduled(fixedDelayString = "${flight.invalidation.heartbeat:PT5S}",
+            initialDelayString = "${flight.invalidation.heartbeat:PT5S}")
+    public void heartbeat() {
+        if (transport == null) {
+            return;
+        }
+        try {
+            transport.send(FlightInvalidation.heartbeat(nodeId, sequence.get()).encode());
+        } catch (RuntimeException e) {
+            logger.debug("Could not send invalidation heartbeat: {}", e.getMessage());
+        }
+    }
+
+    private void send(FlightInvalidation invalidation) {
+        try {
+            transport.send(invalidation.encode());
+            sent.incrementAndGet();
+        } catch (RuntimeException e) {
+            logger.warn("Could not publish invalidation {} of {} flights: {}", invalidation.sequence(),
+                    invalidation.flightIds().length, e.getMessage());
+        }
+    }
+
+    /**
+     * Applies a message received from another instance. Own messages are ignored. A message
+     * numbered past the next expected one, or a heartbeat past the last one received, means a
+     * message was lost, and everything cached is dropped.
+     *
+     * @param message the encoded message
+     */
+    public void receive(byte[] message) {
+        FlightInvalidation invalidation;
+        try {
+            invalidation = FlightInvalidation.decode(message);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Ignoring invalidation message: {}", e.getMessage());
+            return;
+        }
+        if (invalidation.origin() == nodeId) {
+            return;
+        }
+        if (!invalidation.isHeartbeat()) {
+            received.incrementAndGet();
+        }
+        long[] last = new long[1];
+        // a sender not heard of before counts as having sent nothing yet
+        lastSequences.compute(invalidation.origin(), (origin, previous) -> {
+            last[0] = previous == null ? 0 : previous;
+            return Math.max(last[0], invalidation.sequence());
+        });
+        long newest = invalidation.isHeartbeat() ? invalidation.sequence() : invalidation.sequence() - 1;
+        // a late message is simply applied, only a jump ahead means one may be lost
+        if (newest > last[0]) {
+            gaps.incrementAndGet();
+            logger.warn("Missed invalidations {} to {} of node {}, dropping all cached flights", last[0] + 1,
+                    newest, invalidation.origin());
+            invalidateAll();
+        } else if (!invalidation.isHeartbeat()) {
+            invalidate(invalidation.flightIds());
+        }
+    }
+
+    /**
+     * Drops the given flights and all cached query results, and queues reading the flights into
+     * the route index again
+     */
+    private void invalidate(int[] flightIds) {
+        replicaLagWindow.markChanged(Arrays.stream(flightIds).boxed().toList());
+        Cache secondLevelCache = entityManagerFactory.getCache().unwrap(Cache.class);
+        for (int flightId : flightIds) {
+            flightCache.invalidate(flightId);
+            secondLevelCache.evictEntityData(Flight.class, flightId);
+        }
+        secondLevelCache.evictQueryRegions();
+        for (int flightId : flightIds) {
+            flightChangeLog.append(FlightChange.Type.INVALIDATED, flightId, null, null);
+        }
+        logger.debug("Invalidated {} flights", flightIds.length);
+        synchronized (this) {
+            if (!rebuildPending) {
+                Arrays.stream(flightIds).forEach(pendingReloads::add);
+            }
+            queueIndexRefresh();
+        }
+    }
+
+    /**
+     * Drops every cached flight and query result, and queues a rebuild of the route index
+     */
+    private void invalidateAll() {
+        replicaLagWindow.markAllChanged();
+        Cache secondLevelCache = entityManagerFactory.getCache().unwrap(Cache.class);
+        flightCache.invalidateAll();
+        secondLevelCache.evictEntityData(Flight.class);
+        secondLevelCache.evictQueryRegions();
+        flightChangeLog.append(FlightChange.Type.INVALIDATED_ALL, 0, null, null);
+        synchronized (this) {
+            // the rebuild reads every flight, including the ones waiting to be reloaded
+            rebuildPending = true;
+            pendingReloads.clear();
+            queueIndexRefresh();
+        }
+    }
+
+    /**
+     * Queues a refresh of the route index unless one is queued already; called holding this
+     */
+    private void queueIndexRefresh() {
+        if (!refreshQueued) {
+            refreshQueued = true;
+            indexRefreshExecutor.execute(this::refreshIndex);
+        }
+    }
+
+    /**
+     * Applies the queued rebuild and reloads until none are left. A failure is logged and leaves
+     * the index to the next invalidation or gap.
+     */
+    private void refreshIndex() {
+        while (true) {
+            boolean rebuild;
+            List<Integer> reloads;
+            synchronized (this) {
+                if (!rebuildPending && pendingReloads.isEmpty()) {
+                    refreshQueued = false;
+                    return;
+                }
+                rebuild = rebuildPending;
+                reloads = List.copyOf(pendingReloads);
+                rebuildPending = false;
+                pendingReloads.clear();
+            }
+            try {
+                if (rebuild) {
+                    flightRouteIndex.rebuild();
+                } else {
+                    flightRouteIndex.reload(reloads);
+                }
+            } catch (RuntimeException e) {
+                logger.warn("Could not refresh the route index after an invalidation: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Registers counters for the messages sent and received and the gaps detected
+     *
+     * @param registry the registry to publish to
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("flight.invalidation.messages", sent, AtomicLong::get)
+                .tag("direction", "sent")
+                .description("Cache invalidation messages exchanged with other instances")
+                .register(registry);
+        FunctionCounter.builder("flight.invalidation.messages", received, AtomicLong::get)
+                .tag("direction", "received")
+                .description("Cache invalidation messages exchanged with other instances")
+                .register(registry);
+        FunctionCounter.builder("flight.invalidation.gaps", gaps, AtomicLong::get)
+                .description("Missed cache invalidation messages, each one dropped all cached flights")
+                .register(registry);
+    }
+}
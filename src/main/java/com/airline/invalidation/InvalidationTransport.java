@@ -0,0 +1,33 @@
+package com.airline.invalidation;
+
+import java.util.function.Consumer;
+
+/**
+ * Carries encoded invalidation messages between the instances of the application.
+ *
+ * Delivery is best effort: a message may be lost, but one that arrives is complete. Messages of
+ * one sender are numbered, so the bus can tell that it missed one and fall back to dropping
+ * everything it has cached.
+ */
+public interface InvalidationTransport extends AutoCloseable {
+
+    /**
+     * Starts delivering the messages of the other instances
+     *
+     * @param receiver called with each message received, possibly on a thread of the transport
+     */
+    void start(Consumer<byte[]> receiver);
+
+    /**
+     * Sends a message to every other instance, without waiting for them to apply it
+     *
+     * @param message the encoded message
+     */
+    void send(byte[] message);
+
+    /**
+     * Stops receiving and releases the transport's resources
+     */
+    @Override
+    void close();
+}
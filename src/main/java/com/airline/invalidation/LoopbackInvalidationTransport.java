@@ -0,0 +1,75 @@
+package com.airline.invalidation;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Transport between instances running in the same JVM, for tests and local experiments.
+ *
+ * Every transport with the same group name receives the messages the others send. Messages are
+ * delivered on the sender's thread before send returns, so nothing is ever lost or reordered.
+ */
+public class LoopbackInvalidationTransport implements InvalidationTransport {
+
+    /**
+     * Started transports by group name
+     */
+    private static final Map<String, Set<LoopbackInvalidationTransport>> GROUPS = new ConcurrentHashMap<>();
+
+    /**
+     * Name of the group this transport belongs to
+     */
+    private final String group;
+
+    /**
+     * Receiver of the messages of the other members, null until started
+     */
+    private volatile Consumer<byte[]> receiver;
+
+    /**
+     * Creates a transport
+     *
+     * @param group name of the group to join, transports of other groups are not reached
+     */
+    public LoopbackInvalidationTransport(String group) {
+        this.group = group;
+    }
+
+    /**
+     * Joins the group
+     *
+     * @param receiver called with each message another member sends
+     */
+    @Override
+    public void start(Consumer<byte[]> receiver) {
+        this.receiver = receiver;
+        GROUPS.computeIfAbsent(group, g -> ConcurrentHashMap.newKeySet()).add(this);
+    }
+
+    /**
+     * Hands the message to every other member of the group
+     *
+     * @param message the encoded message
+     */
+    @Override
+    public void send(byte[] message) {
+        for (LoopbackInvalidationTransport member : GROUPS.getOrDefault(group, Set.of())) {
+            if (member != this) {
+                member.receiver.accept(message.clone());
+            }
+        }
+    }
+
+    /**
+     * Leaves the group
+     */
+    @Override
+    public void close() {
+        GROUPS.computeIfPresent(group, (g, members) -> {
+            members.remove(this);
+            return members.isEmpty() ? null : members;
+        });
+    }
+}
@@ -0,0 +1,130 @@
+package com.airline.invalidation;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Transport over UDP datagrams sent to a fixed list of peers.
+ *
+ * Each instance listens on its own address and sends every message to each peer, so several
+ * instances can run on one machine on different ports. UDP may drop datagrams; the sequence
+ * numbers in the messages let the receiver notice and drop its whole cache instead.
+ */
+public class UdpInvalidationTransport implements InvalidationTransport {
+
+    /**
+     * Logger for this class
+     */
+    private static final Logger logger = LoggerFactory.getLogger(UdpInvalidationTransport.class);
+
+    /**
+     * Largest payload of a UDP datagram
+     */
+    private static final int MAX_DATAGRAM_SIZE = 65507;
+
+    /**
+     * Channel used both to receive and to send
+     */
+    private final DatagramChannel channel;
+
+    /**
+     * Addresses of the other instances
+     */
+    private final List<InetSocketAddress> peers;
+
+    /**
+     * Creates the transport and binds its socket
+     *
+     * @param bindAddress address to listen on, port 0 picks a free one
+     * @param peers addresses of the other instances
+     */
+    public UdpInvalidationTransport(InetSocketAddress bindAddress, List<InetSocketAddress> peers) {
+        try {
+            this.channel = DatagramChannel.open().bind(bindAddress);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot listen for cache invalidations on " + bindAddress, e);
+        }
+        this.peers = List.copyOf(peers);
+    }
+
+    /**
+     * Get the address the transport listens on
+     * @return the bound address, with the actual port if port 0 was asked for
+     */
+    public InetSocketAddress getLocalAddress() {
+        try {
+            return (InetSocketAddress) channel.getLocalAddress();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Starts a daemon thread that hands each datagram received to the receiver
+     *
+     * @param receiver called on the receiving thread with each datagram
+     */
+    @Override
+    public void start(Consumer<byte[]> receiver) {
+        Thread thread = new Thread(() -> receive(receiver), "flight-invalidation-receiver");
+        thread.setDaemon(true);
+        thread.start();
+        logger.info("Listening for cache invalidations on {}, sending to {}", getLocalAddress(), peers);
+    }
+
+    private void receive(Consumer<byte[]> receiver) {
+        ByteBuffer buffer = ByteBuffer.allocate(MAX_DATAGRAM_SIZE);
+        while (channel.isOpen()) {
+            try {
+                buffer.clear();
+                SocketAddress sender = channel.receive(buffer);
+                if (sender != null) {
+                    receiver.accept(Arrays.copyOf(buffer.array(), buffer.position()));
+                }
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Could not apply a cache invalidation: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Sends the message to each peer. A peer that cannot be reached is logged and skipped.
+     *
+     * @param message the encoded message
+     */
+    @Override
+    public void send(byte[] message) {
+        for (InetSocketAddress peer : peers) {
+            try {
+                channel.send(ByteBuffer.wrap(message), peer);
+            } catch (IOException e) {
+                logger.warn("Could not send a cache invalidation to {}: {}", peer, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Closes the socket, which ends the receiving thread
+     */
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            logger.warn("Could not close the cache invalidation socket: {}", e.getMessage());
+        }
+    }
+}
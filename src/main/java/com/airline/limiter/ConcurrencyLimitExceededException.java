@@ -0,0 +1,50 @@
+package com.airline.limiter;
+
+import java.time.Duration;
+
+/**
+ * Thrown when a database call is rejected because the concurrency limit of its lane is reached.
+ * Mapped to HTTP status 503 (SERVICE UNAVAILABLE) with a Retry-After header.
+ */
+public class ConcurrencyLimitExceededException extends RuntimeException {
+
+    /**
+     * The lane whose limit was reached
+     */
+    private final ConcurrencyLimiter.Lane lane;
+
+    /**
+     * How long the client should wait before retrying
+     */
+    private final Duration retryAfter;
+
+    /**
+     * Creates the exception
+     *
+     * @param lane the lane whose limit was reached
+     * @param limit the limit of the lane at the time
+     * @param retryAfter how long the client should wait before retrying
+     */
+    public ConcurrencyLimitExceededException(ConcurrencyLimiter.Lane lane, int limit, Duration retryAfter) {
+        // no stack trace: it is thrown on every shed call and always means the same thing
+        super("Too many concurrent " + lane.name().toLowerCase() + "s, limit is " + limit, null, false, false);
+        this.lane = lane;
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * Get the lane whose limit was reached
+     * @return the lane
+     */
+    public ConcurrencyLimiter.Lane getLane() {
+        return lane;
+    }
+
+    /**
+     * Get how long the client should wait before retrying
+     * @return the retry delay
+     */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,300 @@
+package com.airline.limiter;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Adaptive limit on the number of database calls in flight, so a slow database makes requests
+ * fail fast instead of queueing on the connection pool until they time out.
+ *
+ * The limit follows a gradient: the latency of the last calls is compared with the long-term
+ * latency. While they are about the same the limit grows by its square root, when recent calls
+ * get slower it shrinks in proportion, and when the database fails to answer it is cut by 10%.
+ * The limit only grows while it is actually used, so a quiet instance does not drift to the
+ * maximum.
+ *
+ * Calls are admitted in two lanes. Writes may use the whole limit, reads only read-share of it,
+ * so under overload reads are shed first and writes still get through. Calls made through
+ * runExempt are counted but never rejected: they keep the caches coherent, and shedding them would
+ * leave stale flights behind rather than relieve the database. The limit, the calls in flight and
+ * the rejections per lane are published as flight.limiter.* metrics.
+ */
+@Component
+public class ConcurrencyLimiter implements MeterBinder {
+
+    /**
+     * Priority lanes, writes before reads
+     */
+    public enum Lane {
+        READ,
+        WRITE
+    }
+
+    /**
+     * Logger for this class
+     */
+    private static final Logger logger = LoggerFactory.getLogger(ConcurrencyLimiter.class);
+
+    /**
+     * How much slower than the long-term latency recent calls may get before the limit shrinks
+     */
+    private static final double TOLERANCE = 1.5;
+
+    /**
+     * Weight of a new limit against the current one
+     */
+    private static final double SMOOTHING = 0.2;
+
+    /**
+     * Weight of a call in the recent latency, about the last 10 calls
+     */
+    private static final double SHORT_WEIGHT = 0.1;
+
+    /**
+     * Weight of a call in the long-term latency, about the last 600 calls
+     */
+    private static final double LONG_WEIGHT = 1.0 / 600;
+
+    /**
+     * Factor the limit is cut by when the database fails to answer
+     */
+    private static final double BACKOFF = 0.9;
+
+    /**
+     * Whether calls are limited at all
+     */
+    private final boolean enabled;
+
+    /**
+     * Lowest the limit goes
+     */
+    private final int minLimit;
+
+    /**
+     * Highest the limit goes
+     */
+    private final int maxLimit;
+
+    /**
+     * Share of the limit reads may use
+     */
+    private final double readShare;
+
+    /**
+     * Delay rejected clients are asked to wait
+     */
+    private final Duration retryAfter;
+
+    /**
+     * The current limit, fractional so small adjustments add up
+     */
+    private volatile double limit;
+
+    /**
+     * Recent latency in nanoseconds, 0 before the first call; guarded by this
+     */
+    private double shortRtt;
+
+    /**
+     * Long-term latency in nanoseconds, 0 before the first call; guarded by this
+     */
+    private double longRtt;
+
+    /**
+     * Calls in flight, both lanes
+     */
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    /**
+     * Rejected calls per lane since startup
+     */
+    private final Map<Lane, AtomicLong> rejected = new EnumMap<>(Lane.class);
+
+    /**
+     * Set while the current thread runs calls that must not be rejected
+     */
+    private final ThreadLocal<Boolean> exempt = new ThreadLocal<>();
+
+    /**
+     * Creates the limiter from the flight.limiter.* properties
+     *
+     * @param enabled whether database calls are limited
+     * @param initialLimit the limit to start with
+     * @param minLimit lowest the limit goes
+     * @param maxLimit highest the limit goes
+     * @param readShare share of the limit reads may use, the rest is kept for writes
+     * @param retryAfter delay rejected clients are asked to wait
+     */
+    public ConcurrencyLimiter(@Value("${flight.limiter.enabled:true}") boolean enabled,
+                              @Value("${flight.limiter.initial-limit:20}") int initialLimit,
+                              @Value("${flight.limiter.min-limit:4}") int minLimit,
+                              @Value("${flight.limiter.max-limit:200}") int maxLimit,
+                              @Value("${flight.limiter.read-share:0.9}") double readShare,
+                              @Value("${flight.limiter.retry-after:PT1S}") Duration retryAfter) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Concurrency limits must satisfy 1 <= min-limit <= max-limit");
+        }
+        this.enabled = enabled;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.readShare = readShare;
+        this.retryAfter = retryAfter;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        for (Lane lane : Lane.values()) {
+            rejected.put(lane, new AtomicLong());
+        }
+        if (enabled) {
+            logger.info("Database concurrency limit starts at {}, between {} and {}", (int) limit, minLimit, maxLimit);
+        }
+    }
+
+    /**
+     * Admits a call, or rejects it if its lane is full. Every admitted call must be released.
+     *
+     * @param lane the lane of the call
+     * @throws ConcurrencyLimitExceededException if the lane is full
+     */
+    public void acquire(Lane lane) {
+        if (!enabled) {
+            return;
+        }
+        if (exempt.get() != null) {
+            inFlight.incrementAndGet();
+            return;
+        }
+        int laneLimit = getLimit(lane);
+        while (true) {
+            int current = inFlight.get();
+            if (current >= laneLimit) {
+                rejected.get(lane).incrementAndGet();
+                throw new ConcurrencyLimitExceededException(lane, laneLimit, retryAfter);
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Runs calls that are admitted even over the limit, e.g. reading flights another instance
+     * wrote into the route index. They still count as in flight and still adjust the limit.
+     *
+     * @param action the calls to run
+     */
+    public void runExempt(Runnable action) {
+        Boolean previous = exempt.get();
+        exempt.set(Boolean.TRUE);
+        try {
+            action.run();
+        } finally {
+            if (previous == null) {
+                exempt.remove();
+            }
+        }
+    }
+
+    /**
+     * Releases an admitted call and adjusts the limit to how it went
+     *
+     * @param rttNanos how long the call took
+     * @param dropped true if the database failed to answer, e.g. no connection or a timeout
+     */
+    public void release(long rttNanos, boolean dropped) {
+        if (!enabled) {
+            return;
+        }
+        int current = inFlight.getAndDecrement();
+        update(Math.max(1, rttNanos), current, dropped);
+    }
+
+    private synchronized void update(long rtt, int inFlightBefore, boolean dropped) {
+        double current = limit;
+        double next;
+        if (dropped) {
+            next = current * BACKOFF;
+        } else {
+            if (longRtt == 0) {
+                shortRtt = rtt;
+                longRtt = rtt;
+            } else {
+                shortRtt += (rtt - shortRtt) * SHORT_WEIGHT;
+                longRtt += (rtt - longRtt) * LONG_WEIGHT;
+                // once latency has dropped well below the long-term value, let the long-term value catch up
+                if (longRtt > 2 * shortRtt) {
+                    longRtt *= 0.95;
+                }
+            }
+            double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longRtt / shortRtt));
+            next = current * gradient + Math.sqrt(current);
+            if (inFlightBefore < current / 2) {
+                // the limit is not what holds the calls back, do not grow it
+                next = Math.min(next, current);
+            }
+            next = current * (1 - SMOOTHING) + next * SMOOTHING;
+        }
+        limit = Math.max(minLimit, Math.min(maxLimit, next));
+    }
+
+    /**
+     * Get the number of calls a lane admits at the moment
+     * @param lane the lane
+     * @return the whole limit for writes, read-share of it for reads, always keeping one call for writes
+     */
+    public int getLimit(Lane lane) {
+        int whole = (int) limit;
+        if (lane == Lane.WRITE) {
+            return whole;
+        }
+        return Math.max(1, Math.min(whole - 1, (int) (whole * readShare)));
+    }
+
+    /**
+     * Get the number of calls in flight
+     * @return the calls admitted and not yet released
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * Get the number of rejected calls of a lane
+     * @param lane the lane
+     * @return the calls rejected since startup
+     */
+    public long getRejectedCount(Lane lane) {
+        return rejected.get(lane).get();
+    }
+
+    /**
+     * Registers gauges for the limit and the calls in flight, and counters for the rejections
+     *
+     * @param registry the registry to publish to
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("flight.limiter.limit", this, limiter -> limiter.getLimit(Lane.WRITE))
+                .description("Current adaptive limit on concurrent database calls")
+                .register(registry);
+        Gauge.builder("flight.limiter.inflight", this, ConcurrencyLimiter::getInFlight)
+                .description("Database calls in flight")
+                .register(registry);
+        for (Lane lane : Lane.values()) {
+            FunctionCounter.builder("flight.limiter.rejected", rejected.get(lane), AtomicLong::get)
+                    .tag("lane", lane.name().toLowerCase())
+                    .description("Database calls rejected because the concurrency limit was reached")
+                    .register(registry);
+        }
+    }
+}
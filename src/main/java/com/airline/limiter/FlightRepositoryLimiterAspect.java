@@ -0,0 +1,81 @@
+package com.airline.limiter;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Puts every FlightRepository call through the concurrency limiter. Calls inside a read-write
+ * transaction go in the write lane, e.g. the lookups of a bulk update, as they belong to the write
+ * and hold its connection. Other calls named like queries (find, exists, count, search, ...) go in
+ * the read lane, all others in the write lane.
+ *
+ * Calls returning a Stream are not limited: they return before the rows are read, so their
+ * duration says nothing about the database, and the export using them runs far longer than a
+ * request should be rejected for.
+ */
+@Aspect
+@Component
+public class FlightRepositoryLimiterAspect {
+
+    /**
+     * Method name prefixes of read-only repository calls
+     */
+    private static final String[] READ_PREFIXES = {"find", "get", "read", "query", "search", "count", "exists"};
+
+    /**
+     * The limiter the calls go through
+     */
+    @Autowired
+    private ConcurrencyLimiter concurrencyLimiter;
+
+    /**
+     * Admits, times and releases a repository call
+     *
+     * @param joinPoint the repository call
+     * @return the result of the call
+     * @throws Throwable the exception thrown by the call
+     */
+    @Around("this(com.airline.repository.FlightRepository) && !execution(java.util.stream.Stream *(..))")
+    public Object limit(ProceedingJoinPoint joinPoint) throws Throwable {
+        concurrencyLimiter.acquire(laneOf(joinPoint.getSignature().getName(),
+                TransactionSynchronizationManager.isActualTransactionActive()
+                        && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()));
+        long start = System.nanoTime();
+        boolean dropped = false;
+        try {
+            return joinPoint.proceed();
+        } catch (DataAccessResourceFailureException | TransientDataAccessException | CannotCreateTransactionException e) {
+            // no connection, a timeout or a lost connection: the database is struggling
+            dropped = true;
+            throw e;
+        } finally {
+            concurrencyLimiter.release(System.nanoTime() - start, dropped);
+        }
+    }
+
+    /**
+     * Picks the lane of a repository call by its transaction, then by the method name
+     *
+     * @param methodName the name of the repository method
+     * @param inWriteTransaction whether the call runs inside a read-write transaction
+     * @return the write lane inside a read-write transaction, the read lane for queries, the write lane otherwise
+     */
+    static ConcurrencyLimiter.Lane laneOf(String methodName, boolean inWriteTransaction) {
+        if (inWriteTransaction) {
+            return ConcurrencyLimiter.Lane.WRITE;
+        }
+        for (String prefix : READ_PREFIXES) {
+            if (methodName.startsWith(prefix)) {
+                return ConcurrencyLimiter.Lane.READ;
+            }
+        }
+        return ConcurrencyLimiter.Lane.WRITE;
+    }
+}
@@ -0,0 +1,82 @@
+package com.airline.logging;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Writes one structured log line per HTTP request, in place of the start and success messages
+ * each layer used to log at INFO.
+ *
+ * The line carries method, path, status and duration as key=value pairs. A request ID is taken
+ * from the X-Request-Id header or generated, echoed in the response and put in the MDC, so any
+ * DEBUG or error output of the controller and service can be tied back to the request.
+ */
+@Component
+// right inside the observation filter, so the request line carries the trace ID of the request
+@Order(Ordered.HIGHEST_PRECEDENCE + 2)
+public class RequestLoggingFilter extends OncePerRequestFilter {
+
+    /**
+     * Logger for the request lines, can be switched off on its own
+     */
+    private static final Logger logger = LoggerFactory.getLogger(RequestLoggingFilter.class);
+
+    /**
+     * Header carrying the request ID in and out
+     */
+    public static final String REQUEST_ID_HEADER = "X-Request-Id";
+
+    /**
+     * MDC key of the request ID, used by the log patterns
+     */
+    public static final String REQUEST_ID_MDC_KEY = "requestId";
+
+    /**
+     * Client supplied request IDs that are accepted, anything else is replaced so it cannot
+     * forge log lines
+     */
+    private static final Pattern VALID_REQUEST_ID = Pattern.compile("[A-Za-z0-9._-]{1,64}");
+
+    /**
+     * Logs the request once it has been handled
+     *
+     * @param request the current request
+     * @param response the current response
+     * @param filterChain the rest of the chain
+     */
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        String requestId = request.getHeader(REQUEST_ID_HEADER);
+        if (requestId == null || !VALID_REQUEST_ID.matcher(requestId).matches()) {
+            requestId = UUID.randomUUID().toString();
+        }
+        response.setHeader(REQUEST_ID_HEADER, requestId);
+        MDC.put(REQUEST_ID_MDC_KEY, requestId);
+        long start = System.nanoTime();
+        int status = HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+        try {
+            filterChain.doFilter(request, response);
+            status = response.getStatus();
+        } finally {
+            if (logger.isInfoEnabled()) {
+                logger.info("request method={} path={} status={} durationMs={}", request.getMethod(),
+                        request.getRequestURI(), status, (System.nanoTime() - start) / 1_000_000);
+            }
+            MDC.remove(REQUEST_ID_MDC_KEY);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.airline.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Data Transfer Object (DTO) with the outcome of one item of a bulk request.
+ */
+@Data
+@AllArgsConstructor
+public class BulkItemResult {
+    /**
+     * Position of the item in the request array
+     */
+    private int index;
+
+    /**
+     * ID of the flight the item refers to, null if it could not be determined
+     */
+    private Integer flightId;
+
+    /**
+     * Whether the item was applied
+     */
+    private boolean success;
+
+    /**
+     * Reason the item was not applied, null on success
+     */
+    private String error;
+}
@@ -0,0 +1,40 @@
+package com.airline.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object (DTO) returned by the bulk endpoints.
+ * Contains one result per request item, in request order, plus summary counts.
+ */
+@Data
+@AllArgsConstructor
+public class BulkResult {
+    /**
+     * Number of items that were applied
+     */
+    private int succeeded;
+
+    /**
+     * Number of items that were rejected
+     */
+    private int failed;
+
+    /**
+     * Per item results in request order
+     */
+    private List<BulkItemResult> items;
+
+    /**
+     * Builds a result from per item outcomes and computes the summary counts
+     *
+     * @param items per item results in request order
+     * @return the bulk result
+     */
+    public static BulkResult of(List<BulkItemResult> items) {
+        int succeeded = (int) items.stream().filter(BulkItemResult::isSuccess).count();
+        return new BulkResult(succeeded, items.size() - succeeded, items);
+    }
+}
@@ -1,20 +1,39 @@
 package com.airline.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
 
 /**
  * Flight entity class that represents the flight table in the database.
  * Contains information about flights including ID, name, source, destination, and ticket price.
+ * The route index covers route searches: equality on source and destination, then a range
+ * and ordering on ticket price, so those queries never scan the table or sort in memory.
+ * Updates only write the columns that changed, so a price change does not rewrite the route
+ * columns of the index.
+ * Flights are held in the "flight" region of the Hibernate second-level cache. READ_WRITE locks
+ * an entry while a transaction changes the flight, so other transactions read it from the
+ * database until the change is committed instead of reading a stale copy.
  */
 @Entity
-@Table(name = "flight")
+@DynamicUpdate
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "flight")
+@Table(name = "flight", indexes = {
+        // columnList uses the logical column names, i.e. the field names
+        @Index(name = "idx_flight_route_price", columnList = "source, Destination, ticketPrice")
+})
 public class Flight {
 
     /**
-     * Unique identifier for the flight, auto-generated
+     * Unique identifier for the flight, auto-generated.
+     * IDs come from a pooled sequence (a table on MySQL) so Hibernate can batch inserts,
+     * which it cannot do with IDENTITY columns.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "flight_seq")
+    @SequenceGenerator(name = "flight_seq", sequenceName = "flight_seq", allocationSize = 50)
     private int flightId;
     
     /**
@@ -37,6 +56,13 @@ public class Flight {
      */
     private Double ticketPrice;
 
+    /**
+     * Version of the row, incremented by every update. Used for optimistic locking and as the
+     * ETag of the flight; not part of equals, which compares the flight's data.
+     */
+    @Version
+    private long version;
+
     /**
      * Default constructor required by JPA
      */
@@ -138,7 +164,33 @@ public class Flight {
     public void setTicketPrice(Double ticketPrice) {
         this.ticketPrice = ticketPrice;
     }
-    
+
+    /**
+     * Get the row version
+     * @return the version, 0 for a flight that was never updated
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Set the row version
+     * @param version the version to set
+     */
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    /**
+     * Creates a detached copy of this flight, including its version
+     * @return a new flight with the same values
+     */
+    public Flight copy() {
+        Flight copy = new Flight(flightId, flightName, source, Destination, ticketPrice);
+        copy.setVersion(version);
+        return copy;
+    }
+
     /**
      * Compares this flight with another object for equality
      * 
@@ -187,6 +239,7 @@ public class Flight {
                 ", source='" + source + '\'' +
                 ", Destination='" + Destination + '\'' +
                 ", ticketPrice=" + ticketPrice +
+                ", version=" + version +
                 '}';
     }
 }
@@ -0,0 +1,42 @@
+package com.airline.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Data Transfer Object (DTO) with the counters of the flight cache.
+ * Used to size the cache per environment.
+ */
+@Data
+@AllArgsConstructor
+public class FlightCacheStats {
+    /**
+     * Whether the cache is switched on in this environment
+     */
+    private boolean enabled;
+
+    /**
+     * Approximate number of flights currently cached
+     */
+    private long size;
+
+    /**
+     * Number of lookups served from the cache
+     */
+    private long hitCount;
+
+    /**
+     * Number of lookups that had to go to the database
+     */
+    private long missCount;
+
+    /**
+     * Number of entries removed because of the size limit or the TTL
+     */
+    private long evictionCount;
+
+    /**
+     * Ratio of hits to all lookups, 1.0 when there were no lookups yet
+     */
+    private double hitRate;
+}
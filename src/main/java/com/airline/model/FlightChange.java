@@ -0,0 +1,55 @@
+package com.airline.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Data Transfer Object (DTO) describing one write to the flights, as recorded in the change log.
+ * Contains the new flight for creates and updates, the changed fields for patches, and only the
+ * flight ID for deletes and for writes made on another instance. After a missed message from
+ * another instance any flight may have changed, which is recorded as INVALIDATED_ALL with flight ID 0.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FlightChange {
+
+    /**
+     * Kind of write. INVALIDATED is a write to the flight on another instance, to be read again;
+     * INVALIDATED_ALL means every flight has to be read again.
+     */
+    public enum Type {
+        CREATED, UPDATED, PATCHED, DELETED, INVALIDATED, INVALIDATED_ALL
+    }
+
+    /**
+     * Position in the change log, starting at 1 and increasing by 1 with every change
+     */
+    private long sequence;
+
+    /**
+     * Kind of write
+     */
+    private Type type;
+
+    /**
+     * ID of the changed flight, 0 for INVALIDATED_ALL
+     */
+    private int flightId;
+
+    /**
+     * When the change was recorded, in milliseconds since the epoch
+     */
+    private long timestamp;
+
+    /**
+     * The flight after the change, for CREATED and UPDATED
+     */
+    private Flight flight;
+
+    /**
+     * The changed fields, for PATCHED
+     */
+    private FlightPatch patch;
+}
@@ -0,0 +1,24 @@
+package com.airline.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object (DTO) returned by the change feed.
+ * Contains the changes after the requested cursor and the cursor to continue from.
+ */
+@Data
+@AllArgsConstructor
+public class FlightChangePage {
+    /**
+     * Changes in sequence order, empty if nothing changed
+     */
+    private List<FlightChange> changes;
+
+    /**
+     * Cursor to pass as after in the next request, the log's epoch and the last sequence returned
+     */
+    private String nextAfter;
+}
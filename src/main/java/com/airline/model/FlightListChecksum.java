@@ -0,0 +1,28 @@
+package com.airline.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Data Transfer Object (DTO) holding the flight count and two sums over the ID and row version
+ * of every flight, computed by the database in one aggregate query.
+ * Used to build the ETag of the flight list without reading a row per flight.
+ */
+@Data
+@AllArgsConstructor
+public class FlightListChecksum {
+    /**
+     * Number of flights
+     */
+    private long count;
+
+    /**
+     * Sum of the first per-flight hash
+     */
+    private long first;
+
+    /**
+     * Sum of the second per-flight hash, with other constants
+     */
+    private long second;
+}
@@ -0,0 +1,30 @@
+package com.airline.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object (DTO) for version 2 of the flight list response.
+ * Carries the node metadata once for the whole list instead of once per flight,
+ * as {@link FlightWithIP} does.
+ */
+@Data
+@AllArgsConstructor
+public class FlightListResponse {
+    /**
+     * The server that handled the request
+     */
+    private NodeInfo node;
+
+    /**
+     * Number of flights in the list
+     */
+    private int count;
+
+    /**
+     * The flights
+     */
+    private List<Flight> flights;
+}
@@ -0,0 +1,23 @@
+package com.airline.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Data Transfer Object (DTO) summarising the state of the whole flight table.
+ * Any insert, update or delete changes the hash, so it is used to build the ETag of the flight
+ * list without loading the flights.
+ */
+@Data
+@AllArgsConstructor
+public class FlightListVersion {
+    /**
+     * Number of flights
+     */
+    private long count;
+
+    /**
+     * 64-bit hash over the ID and row version of every flight
+     */
+    private long hash;
+}
@@ -0,0 +1,25 @@
+package com.airline.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object (DTO) for one page of a cursor based flight listing.
+ * The nextCursor is an opaque token that has to be passed back to fetch the next page;
+ * it is null when there are no more flights.
+ */
+@Data
+@AllArgsConstructor
+public class FlightPage {
+    /**
+     * The flights on this page, ordered by flight ID
+     */
+    private List<Flight> flights;
+
+    /**
+     * Continuation token for the next page, or null if this is the last page
+     */
+    private String nextCursor;
+}
@@ -0,0 +1,65 @@
+package com.airline.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Data Transfer Object (DTO) with field level changes to a flight, used by the PATCH endpoints.
+ * Only the fields that are set are written; a null field leaves the stored value unchanged.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FlightPatch {
+    /**
+     * ID of the flight to change, required in bulk requests and ignored when the ID is in the URL
+     */
+    private Integer flightId;
+
+    /**
+     * New name of the flight, or null to keep it
+     */
+    private String flightName;
+
+    /**
+     * New departure location, or null to keep it
+     */
+    private String source;
+
+    /**
+     * New arrival location, or null to keep it
+     */
+    private String destination;
+
+    /**
+     * New ticket price, or null to keep it
+     */
+    private Double ticketPrice;
+
+    /**
+     * Check whether the patch changes nothing
+     * @return true if no field is set
+     */
+    @JsonIgnore
+    public boolean isEmpty() {
+        return flightName == null && source == null && destination == null && ticketPrice == null;
+    }
+
+    /**
+     * Applies the patch to a copy of a flight
+     *
+     * @param flight the flight as it was before the patch
+     * @return a new flight with the patched fields replaced and the version of the given flight
+     */
+    public Flight applyTo(Flight flight) {
+        Flight patched = new Flight(flight.getFlightId(),
+                flightName != null ? flightName : flight.getFlightName(),
+                source != null ? source : flight.getSource(),
+                destination != null ? destination : flight.getDestination(),
+                ticketPrice != null ? ticketPrice : flight.getTicketPrice());
+        patched.setVersion(flight.getVersion());
+        return patched;
+    }
+}
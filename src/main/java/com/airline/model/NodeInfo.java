@@ -0,0 +1,21 @@
+package com.airline.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Data Transfer Object (DTO) describing the server that handled a request.
+ */
+@Data
+@AllArgsConstructor
+public class NodeInfo {
+    /**
+     * The IP address of the server handling the request
+     */
+    private String serverIP;
+
+    /**
+     * The host name of the server handling the request
+     */
+    private String hostName;
+}
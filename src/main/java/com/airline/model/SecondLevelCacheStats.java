@@ -0,0 +1,58 @@
+package com.airline.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Data Transfer Object (DTO) with the counters of the Hibernate second-level cache: the flight
+ * entity region and the query cache.
+ * Counted since startup, all 0 when the cache or the Hibernate statistics are switched off.
+ */
+@Data
+@AllArgsConstructor
+public class SecondLevelCacheStats {
+    /**
+     * Whether the second-level cache is switched on and its statistics are collected
+     */
+    private boolean enabled;
+
+    /**
+     * Number of flights loaded from the flight region instead of the database
+     */
+    private long flightHitCount;
+
+    /**
+     * Number of flights looked up in the flight region and not found
+     */
+    private long flightMissCount;
+
+    /**
+     * Number of flights put into the flight region
+     */
+    private long flightPutCount;
+
+    /**
+     * Ratio of flight hits to flight lookups, 1.0 when there were no lookups yet
+     */
+    private double flightHitRate;
+
+    /**
+     * Number of cacheable queries answered from the query cache
+     */
+    private long queryHitCount;
+
+    /**
+     * Number of cacheable queries that had to go to the database
+     */
+    private long queryMissCount;
+
+    /**
+     * Number of query results put into the query cache
+     */
+    private long queryPutCount;
+
+    /**
+     * Ratio of query cache hits to cacheable queries, 1.0 when there were none yet
+     */
+    private double queryHitRate;
+}
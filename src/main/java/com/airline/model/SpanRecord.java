@@ -0,0 +1,59 @@
+package com.airline.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.Map;
+
+/**
+ * Data Transfer Object (DTO) for one finished tracing span.
+ * Used to inspect recent traces without an external collector.
+ */
+@Data
+@AllArgsConstructor
+public class SpanRecord {
+    /**
+     * ID of the trace the span belongs to, shared by every span of one request
+     */
+    private String traceId;
+
+    /**
+     * ID of the span
+     */
+    private String spanId;
+
+    /**
+     * ID of the enclosing span, null for the root span of a trace
+     */
+    private String parentSpanId;
+
+    /**
+     * Name of the operation, e.g. "http get /flight/{flightId}" or "query"
+     */
+    private String name;
+
+    /**
+     * Span kind: SERVER, CLIENT or INTERNAL
+     */
+    private String kind;
+
+    /**
+     * Start time in microseconds since the epoch
+     */
+    private long startEpochMicros;
+
+    /**
+     * Duration in microseconds
+     */
+    private long durationMicros;
+
+    /**
+     * Status code: UNSET, OK or ERROR
+     */
+    private String status;
+
+    /**
+     * Span attributes, such as the HTTP status or the SQL statement
+     */
+    private Map<String, String> attributes;
+}
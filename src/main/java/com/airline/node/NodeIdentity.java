@@ -0,0 +1,81 @@
+package com.airline.node;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+/**
+ * Identity of the node serving the request, i.e. its IP address and host name.
+ * Resolving the local host can block on DNS for a long time on some hosts, so the address is
+ * resolved once at startup and then refreshed in the background; requests only read the
+ * cached value.
+ */
+@Component
+public class NodeIdentity {
+
+    /**
+     * Logger for this class
+     */
+    private static final Logger logger = LoggerFactory.getLogger(NodeIdentity.class);
+
+    /**
+     * The last resolved IP address of this node
+     */
+    private volatile String serverIP;
+
+    /**
+     * The last resolved host name of this node
+     */
+    private volatile String hostName;
+
+    /**
+     * Resolves the node identity once, falling back to the loopback address if the
+     * local host cannot be resolved
+     */
+    public NodeIdentity() {
+        InetAddress loopback = InetAddress.getLoopbackAddress();
+        this.serverIP = loopback.getHostAddress();
+        this.hostName = loopback.getHostName();
+        refresh();
+    }
+
+    /**
+     * Resolves the local host again, keeping the previous values if that fails.
+     * Runs on the scheduler thread, never on a request thread.
+     */
+    @Scheduled(fixedDelayString = "${node.identity.refresh-interval:PT5M}",
+            initialDelayString = "${node.identity.refresh-interval:PT5M}")
+    public void refresh() {
+        try {
+            InetAddress localHost = InetAddress.getLocalHost();
+            String address = localHost.getHostAddress();
+            if (!address.equals(serverIP)) {
+                logger.info("Server IP resolved to {}", address);
+            }
+            serverIP = address;
+            hostName = localHost.getHostName();
+        } catch (UnknownHostException e) {
+            logger.warn("Could not resolve local host, keeping server IP {}: {}", serverIP, e.getMessage());
+        }
+    }
+
+    /**
+     * Get the IP address of this node
+     * @return the cached server IP
+     */
+    public String getServerIP() {
+        return serverIP;
+    }
+
+    /**
+     * Get the host name of this node
+     * @return the cached host name
+     */
+    public String getHostName() {
+        return hostName;
+    }
+}
@@ -0,0 +1,170 @@
+package com.airline.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-client rate limit on the /flight API, one token bucket per client and endpoint class.
+ *
+ * The buckets live in a bounded table. A bucket not used for idle-timeout is dropped, and when
+ * the table is full the least recently used ones go first, so a flood of distinct clients cannot
+ * exhaust the heap. A dropped bucket comes back full, which loses nothing as long as idle-timeout
+ * is longer than a bucket takes to refill. The table is a Caffeine cache, whose hash table and
+ * bookkeeping buffers are striped, and the buckets themselves are lock-free, so concurrent
+ * requests of different clients never wait for each other.
+ *
+ * Rejected requests per endpoint class and the number of tracked clients are published as
+ * flight.ratelimit.* metrics.
+ */
+@Component
+public class ClientRateLimiter implements MeterBinder {
+
+    /**
+     * Endpoint classes with a bucket each
+     */
+    public enum EndpointClass {
+        /**
+         * Endpoints returning or writing many flights: the list, pages, search, route, export and bulk
+         */
+        LIST,
+        /**
+         * Everything else, e.g. reading or writing one flight
+         */
+        POINT
+    }
+
+    /**
+     * Logger for this class
+     */
+    private static final Logger logger = LoggerFactory.getLogger(ClientRateLimiter.class);
+
+    /**
+     * Whether requests are limited at all
+     */
+    private final boolean enabled;
+
+    /**
+     * Limit of each endpoint class
+     */
+    private final Map<EndpointClass, RateLimit> limits = new EnumMap<>(EndpointClass.class);
+
+    /**
+     * Buckets by client and endpoint class
+     */
+    private final Cache<BucketKey, TokenBucket> buckets;
+
+    /**
+     * Rejected requests per endpoint class since startup
+     */
+    private final Map<EndpointClass, AtomicLong> rejected = new EnumMap<>(EndpointClass.class);
+
+    /**
+     * Creates the limiter from the flight.ratelimit.* properties
+     *
+     * @param enabled whether requests are limited
+     * @param listCapacity burst size of the list endpoints
+     * @param listPerSecond sustained requests per second to the list endpoints
+     * @param pointCapacity burst size of the other endpoints
+     * @param pointPerSecond sustained requests per second to the other endpoints
+     * @param maxClients most buckets kept, per client and endpoint class
+     * @param idleTimeout how long an unused bucket is kept
+     */
+    public ClientRateLimiter(@Value("${flight.ratelimit.enabled:true}") boolean enabled,
+                             @Value("${flight.ratelimit.list.capacity:20}") int listCapacity,
+                             @Value("${flight.ratelimit.list.per-second:5}") double listPerSecond,
+                             @Value("${flight.ratelimit.point.capacity:200}") int pointCapacity,
+                             @Value("${flight.ratelimit.point.per-second:100}") double pointPerSecond,
+                             @Value("${flight.ratelimit.max-clients:100000}") long maxClients,
+                             @Value("${flight.ratelimit.idle-timeout:PT10M}") Duration idleTimeout) {
+        this.enabled = enabled;
+        limits.put(EndpointClass.LIST, RateLimit.of(listCapacity, listPerSecond));
+        limits.put(EndpointClass.POINT, RateLimit.of(pointCapacity, pointPerSecond));
+        for (EndpointClass endpointClass : EndpointClass.values()) {
+            rejected.put(endpointClass, new AtomicLong());
+        }
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxClients)
+                .expireAfterAccess(idleTimeout)
+                .build();
+        if (enabled) {
+            logger.info("Rate limiting /flight to {} list requests ({}/s) and {} other requests ({}/s) per client",
+                    listCapacity, listPerSecond, pointCapacity, pointPerSecond);
+        }
+    }
+
+    /**
+     * Check whether requests are limited
+     * @return true if rate limiting is switched on
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Takes a token from the client's bucket for the endpoint class
+     *
+     * @param client the client, e.g. its API key or IP address
+     * @param endpointClass the class of the requested endpoint
+     * @return whether the request may proceed, with the numbers for the rate limit headers
+     */
+    public RateLimitDecision tryAcquire(String client, EndpointClass endpointClass) {
+        return tryAcquire(client, endpointClass, System.nanoTime());
+    }
+
+    /**
+     * Takes a token at the given time, for tests
+     */
+    RateLimitDecision tryAcquire(String client, EndpointClass endpointClass, long now) {
+        TokenBucket bucket = buckets.get(new BucketKey(client, endpointClass), key -> new TokenBucket(now));
+        RateLimitDecision decision = bucket.tryTake(limits.get(endpointClass), now);
+        if (!decision.allowed()) {
+            rejected.get(endpointClass).incrementAndGet();
+        }
+        return decision;
+    }
+
+    /**
+     * Get the number of buckets held
+     * @return the tracked client and endpoint class pairs, an estimate
+     */
+    public long getClientCount() {
+        return buckets.estimatedSize();
+    }
+
+    /**
+     * Registers counters for the rejected requests and a gauge for the tracked clients
+     *
+     * @param registry the registry to publish to
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (EndpointClass endpointClass : EndpointClass.values()) {
+            FunctionCounter.builder("flight.ratelimit.rejected", rejected.get(endpointClass), AtomicLong::get)
+                    .tag("endpoints", endpointClass.name().toLowerCase())
+                    .description("Requests rejected because the client exceeded its rate limit")
+                    .register(registry);
+        }
+        Gauge.builder("flight.ratelimit.clients", this, ClientRateLimiter::getClientCount)
+                .description("Token buckets held, one per client and endpoint class")
+                .register(registry);
+    }
+
+    /**
+     * Key of a bucket
+     */
+    private record BucketKey(String client, EndpointClass endpointClass) {
+    }
+}
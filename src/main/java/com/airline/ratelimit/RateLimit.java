@@ -0,0 +1,28 @@
+package com.airline.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Size and refill rate of a client's token bucket
+ *
+ * @param capacity the most requests a client can send at once after being idle
+ * @param refillNanos nanoseconds it takes to refill one token
+ * @param burstNanos nanoseconds it takes to refill the whole bucket
+ */
+record RateLimit(int capacity, long refillNanos, long burstNanos) {
+
+    /**
+     * Creates a limit from a burst size and a sustained rate
+     *
+     * @param capacity the most requests a client can send at once after being idle
+     * @param perSecond the requests per second a client can keep up
+     * @return the limit
+     */
+    static RateLimit of(int capacity, double perSecond) {
+        if (capacity < 1 || perSecond <= 0) {
+            throw new IllegalArgumentException("Rate limits need a capacity of at least 1 and a positive rate");
+        }
+        long refillNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / perSecond));
+        return new RateLimit(capacity, refillNanos, Math.multiplyExact(capacity, refillNanos));
+    }
+}
@@ -0,0 +1,13 @@
+package com.airline.ratelimit;
+
+/**
+ * Outcome of a request against a client's token bucket
+ *
+ * @param allowed whether the request may proceed
+ * @param limit the capacity of the bucket
+ * @param remaining the tokens left after this request
+ * @param resetNanos if allowed, nanoseconds until the bucket is full again; otherwise until the
+ *                   request would be allowed
+ */
+public record RateLimitDecision(boolean allowed, int limit, int remaining, long resetNanos) {
+}
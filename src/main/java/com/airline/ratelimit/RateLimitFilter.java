@@ -0,0 +1,176 @@
+package com.airline.ratelimit;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Rate limits requests to the /flight API per client, before they reach a controller.
+ *
+ * A client is identified by its X-API-Key header if the key is one of flight.ratelimit.api-keys,
+ * and by its IP address otherwise, so a client cannot get fresh buckets by sending made-up keys.
+ * Behind a proxy, server.forward-headers-strategy has to be set for the IP address to be the
+ * client's.
+ * Every response carries the RateLimit-Limit, RateLimit-Remaining and RateLimit-Reset headers; a
+ * request over the limit gets 429 (TOO MANY REQUESTS) with Retry-After.
+ */
+@Component
+// inside the request logging filter, so rejected requests are logged with their request ID
+@Order(Ordered.HIGHEST_PRECEDENCE + 3)
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    /**
+     * Logger for this class
+     */
+    private static final Logger logger = LoggerFactory.getLogger(RateLimitFilter.class);
+
+    /**
+     * Header carrying the client's API key
+     */
+    public static final String API_KEY_HEADER = "X-API-Key";
+
+    /**
+     * Header with the capacity of the client's bucket
+     */
+    public static final String LIMIT_HEADER = "RateLimit-Limit";
+
+    /**
+     * Header with the requests the client has left right now
+     */
+    public static final String REMAINING_HEADER = "RateLimit-Remaining";
+
+    /**
+     * Header with the seconds until the client's bucket is full again
+     */
+    public static final String RESET_HEADER = "RateLimit-Reset";
+
+    /**
+     * Path prefix of the rate limited API
+     */
+    private static final String API_PATH = "/flight";
+
+    /**
+     * Paths of the list endpoints when read
+     */
+    private static final Set<String> LIST_PATHS = Set.of("/flight", "/flight/", "/flight/page", "/flight/search",
+            "/flight/route", "/flight/export");
+
+    /**
+     * Path of the bulk endpoints, a list endpoint for every method
+     */
+    private static final String BULK_PATH = "/flight/bulk";
+
+    /**
+     * API keys that are accepted as a client identity, anything else falls back to the IP address
+     */
+    private final Set<String> apiKeys;
+
+    /**
+     * The token buckets
+     */
+    @Autowired
+    private ClientRateLimiter clientRateLimiter;
+
+    /**
+     * Creates the filter from the flight.ratelimit.* properties
+     *
+     * @param apiKeys the API keys clients are identified by, blank entries are ignored
+     */
+    public RateLimitFilter(@Value("${flight.ratelimit.api-keys:}") List<String> apiKeys) {
+        this.apiKeys = apiKeys.stream()
+                .map(String::trim)
+                .filter(apiKey -> !apiKey.isEmpty())
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    /**
+     * Only /flight requests are limited, and only while rate limiting is switched on
+     *
+     * @param request the current request
+     * @return true if the request is let through unchecked
+     */
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = pathOf(request);
+        return !clientRateLimiter.isEnabled() || !(path.equals(API_PATH) || path.startsWith(API_PATH + "/"));
+    }
+
+    /**
+     * Takes a token from the client's bucket and rejects the request if there is none
+     *
+     * @param request the current request
+     * @param response the current response
+     * @param filterChain the rest of the chain
+     */
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        String client = clientOf(request);
+        ClientRateLimiter.EndpointClass endpointClass = endpointClassOf(request);
+        RateLimitDecision decision = clientRateLimiter.tryAcquire(client, endpointClass);
+        long resetSeconds = toSeconds(decision.resetNanos());
+        response.setHeader(LIMIT_HEADER, Integer.toString(decision.limit()));
+        response.setHeader(REMAINING_HEADER, Integer.toString(decision.remaining()));
+        response.setHeader(RESET_HEADER, Long.toString(resetSeconds));
+        if (decision.allowed()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        logger.debug("Rate limit of {} {} requests exceeded by {}", decision.limit(),
+                endpointClass.name().toLowerCase(), client);
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(resetSeconds));
+        response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+        response.getWriter().write("Rate limit exceeded, retry in " + resetSeconds + " seconds");
+    }
+
+    /**
+     * Identifies the client by API key, or by IP address without a configured one
+     */
+    private String clientOf(HttpServletRequest request) {
+        String apiKey = request.getHeader(API_KEY_HEADER);
+        if (apiKey != null && apiKeys.contains(apiKey)) {
+            return "key:" + apiKey;
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    /**
+     * Sorts a request into the list or the point endpoints
+     */
+    private static ClientRateLimiter.EndpointClass endpointClassOf(HttpServletRequest request) {
+        String path = pathOf(request);
+        boolean list = path.equals(BULK_PATH)
+                || ("GET".equals(request.getMethod()) && LIST_PATHS.contains(path));
+        return list ? ClientRateLimiter.EndpointClass.LIST : ClientRateLimiter.EndpointClass.POINT;
+    }
+
+    private static String pathOf(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+
+    /**
+     * Rounds up to whole seconds, as the headers take no fractions
+     */
+    private static long toSeconds(long nanos) {
+        return (nanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1);
+    }
+}
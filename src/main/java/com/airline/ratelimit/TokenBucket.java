@@ -0,0 +1,52 @@
+package com.airline.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket of one client.
+ *
+ * Rather than a token count and a refill time, the bucket keeps a single value, the time at which
+ * it will be full again, and takes a token with one compare-and-set: a request moves that time one
+ * refill interval into the future, and is refused if that would put it more than the capacity's
+ * worth of intervals ahead of now. This is the same as a bucket refilled continuously, and needs
+ * no background refill and no lock.
+ */
+final class TokenBucket {
+
+    /**
+     * Time in System.nanoTime() terms at which the bucket is full again; at or before now means full
+     */
+    private final AtomicLong fullAt;
+
+    /**
+     * Creates a full bucket
+     *
+     * @param now the current time in nanoseconds
+     */
+    TokenBucket(long now) {
+        this.fullAt = new AtomicLong(now);
+    }
+
+    /**
+     * Takes one token if there is one
+     *
+     * @param limit capacity and refill rate of the bucket
+     * @param now the current time in nanoseconds
+     * @return whether the token was taken, the tokens left and when to expect more
+     */
+    RateLimitDecision tryTake(RateLimit limit, long now) {
+        long burst = limit.burstNanos();
+        while (true) {
+            long current = fullAt.get();
+            long next = Math.max(current, now) + limit.refillNanos();
+            long ahead = next - now;
+            if (ahead > burst) {
+                // wait until enough has been refilled for this request to fit
+                return new RateLimitDecision(false, limit.capacity(), 0, ahead - burst);
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return new RateLimitDecision(true, limit.capacity(), (int) ((burst - ahead) / limit.refillNanos()), ahead);
+            }
+        }
+    }
+}
@@ -1,15 +1,84 @@
 package com.airline.repository;
 
 import com.airline.model.Flight;
+import com.airline.model.FlightListChecksum;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 /**
  * Repository interface for Flight entity.
  * Extends JpaRepository to inherit basic CRUD operations.
  * The Integer type parameter refers to the type of the primary key (flightId).
+ * Field level updates and the conditional writes come from FlightRepositoryCustom.
+ * The list and search queries are cacheable: their results are kept in the Hibernate query
+ * cache until the next write to the flight table, and the flights they return are read from the
+ * second-level cache.
  */
 @Repository
-public interface FlightRepository extends JpaRepository<Flight,Integer> {
-    // No additional methods needed as basic CRUD operations are inherited from JpaRepository
+public interface FlightRepository extends JpaRepository<Flight,Integer>, FlightRepositoryCustom {
+
+    /**
+     * Reads all flights, served from the query cache until the flight table changes
+     *
+     * @return all flights
+     */
+    @Override
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<Flight> findAll();
+
+    /**
+     * Keyset query used for cursor based listing. Reads the flights that come after the
+     * given ID in primary key order, so the cost depends on the page size only and not on
+     * how deep into the table the caller has paged.
+     *
+     * @param flightId the last flight ID already returned to the caller (0 for the first page)
+     * @param pageable limit for the number of rows to read, should be unsorted
+     * @return flights with an ID greater than the given one, ordered by ID
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<Flight> findByFlightIdGreaterThanOrderByFlightIdAsc(int flightId, Pageable pageable);
+
+    /**
+     * Finds the flights of one route within a price range. Served by the idx_flight_route_price
+     * index on the flight table; sort the pageable by ticketPrice (then flightId) to read
+     * the rows in index order.
+     *
+     * @param source the departure location
+     * @param destination the arrival location
+     * @param minPrice lowest ticket price, inclusive
+     * @param maxPrice highest ticket price, inclusive
+     * @param pageable limit and sort order
+     * @return the matching flights
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    @Query("select f from Flight f where f.source = :source and f.Destination = :destination"
+            + " and f.ticketPrice between :minPrice and :maxPrice")
+    List<Flight> searchRoute(@Param("source") String source, @Param("destination") String destination,
+                             @Param("minPrice") double minPrice, @Param("maxPrice") double maxPrice,
+                             Pageable pageable);
+
+    /**
+     * Sums a hash of the ID and version of every flight in the database, for the ETag of the
+     * flight list. Each flight contributes the square of a linear hash, taken modulo a prime, so
+     * that moving a version from one flight to another changes the sums too. The ID is widened
+     * and the moduli are cast to BIGINT, as INT arithmetic overflows on some databases.
+     *
+     * @return the flight count and the two sums, 0 when there are no flights
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    @Query("select new com.airline.model.FlightListChecksum(count(f), "
+            + "coalesce(sum(mod(mod(cast(f.flightId as Long) * 31337 + f.version * 1000003 + 7, cast(2147483647 as Long))"
+            + " * mod(cast(f.flightId as Long) * 31337 + f.version * 1000003 + 7, cast(2147483647 as Long)), cast(2147483647 as Long))), 0L), "
+            + "coalesce(sum(mod(mod(cast(f.flightId as Long) * 1000033 + f.version * 7919 + 13, cast(2147483629 as Long))"
+            + " * mod(cast(f.flightId as Long) * 1000033 + f.version * 7919 + 13, cast(2147483629 as Long)), cast(2147483629 as Long))), 0L)) "
+            + "from Flight f")
+    FlightListChecksum findListChecksum();
 }
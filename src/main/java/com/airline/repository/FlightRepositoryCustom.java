@@ -0,0 +1,75 @@
+package com.airline.repository;
+
+import com.airline.model.Flight;
+import com.airline.model.FlightPatch;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Flight repository operations that Spring Data cannot derive, implemented by
+ * FlightRepositoryCustomImpl and exposed through FlightRepository. The writes evict only the
+ * flights they touch from the second-level cache, plus the cached query results.
+ */
+public interface FlightRepositoryCustom {
+
+    /**
+     * Reads a flight from the database, bypassing the second-level cache, and stores what it read
+     * there. Used to refill the caches with a flight that just changed.
+     *
+     * @param flightId the flight ID
+     * @return the flight, or empty if it does not exist
+     */
+    Optional<Flight> findFreshById(int flightId);
+
+    /**
+     * Streams every flight in ID order through a forward-only cursor. Rows are fetched from
+     * the driver with flight.datasource.stream-fetch-size and loaded read-only, so the caller can
+     * walk the whole table without holding it in memory. Must be called inside a transaction
+     * and the stream must be closed after use.
+     *
+     * @return a lazily populated stream of all flights
+     */
+    Stream<Flight> streamAll();
+
+    /**
+     * Writes only the fields set in the patch and increments the version, in a single UPDATE
+     * statement without reading the flight first
+     *
+     * @param flightId the flight ID
+     * @param patch the fields to change, must not be empty
+     * @param expectedVersion the version the row must still have, or null to update any version
+     * @return 1 if the flight was updated, 0 if it does not exist or has another version
+     */
+    int patch(int flightId, FlightPatch patch, Long expectedVersion);
+
+    /**
+     * Updates a flight only if its row still has the given version, and increments the version.
+     * A single UPDATE statement: the flight is not read first.
+     *
+     * @param flight the new state of the flight, identified by its flight ID
+     * @param version the version the caller last read
+     * @return 1 if the flight was updated, 0 if it does not exist or has another version
+     */
+    int updateIfVersion(Flight flight, long version);
+
+    /**
+     * Deletes a flight only if its row still has the given version
+     *
+     * @param flightId the flight ID
+     * @param version the version the caller last read
+     * @return 1 if the flight was deleted, 0 if it does not exist or has another version
+     */
+    int deleteIfVersion(int flightId, long version);
+
+    /**
+     * Applies many patches as JDBC batches. Patches that change the same set of fields share one
+     * statement, so a price feed is sent as a single batch.
+     *
+     * @param patches the patches, each with its flight ID and at least one field set
+     * @return the update count of each patch in request order: 0 if the flight does not exist,
+     *         or java.sql.Statement.SUCCESS_NO_INFO if the driver did not report it
+     */
+    int[] patchAll(List<FlightPatch> patches);
+}
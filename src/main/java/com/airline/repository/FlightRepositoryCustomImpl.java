@@ -0,0 +1,226 @@
+package com.airline.repository;
+
+import com.airline.model.Flight;
+import com.airline.model.FlightPatch;
+import jakarta.persistence.CacheRetrieveMode;
+import jakarta.persistence.CacheStoreMode;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Cache;
+import org.hibernate.jpa.HibernateHints;
+import org.hibernate.jpa.SpecHints;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Implementation of the custom flight repository operations.
+ * Fresh reads go past the second-level cache and put what they read into it.
+ * The full table stream sets its fetch size on its own statement only. MySQL streams rows only
+ * with a fetch size of Integer.MIN_VALUE, or with useCursorFetch on the JDBC URL, which would
+ * turn every statement into a server-side prepared one.
+ * The conditional and field level writes go to JDBC directly rather than through JPQL or
+ * criteria updates: Hibernate treats those as bulk operations and empties the whole flight region
+ * of the second-level cache after each one, and it runs every bulk update statement on its own so
+ * it cannot batch them either. The writes flush pending changes first and clear the persistence
+ * context after, so no stale flight is read back in the same transaction.
+ * Hibernate does not see the JDBC writes, so they remove the written flights and the cached query
+ * results from the second-level cache themselves, once right away and once more after the
+ * transaction has completed, as a reader may have cached the old rows in between.
+ */
+public class FlightRepositoryCustomImpl implements FlightRepositoryCustom {
+
+    /**
+     * Entity manager flushed and cleared around the JDBC writes
+     */
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * JDBC access for the writes, joins the current JPA transaction
+     */
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * JDBC fetch size of the full table stream, Integer.MIN_VALUE to stream row by row on MySQL
+     */
+    @Value("${flight.datasource.stream-fetch-size:500}")
+    private int streamFetchSize = 500;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Stream<Flight> streamAll() {
+        return entityManager.createQuery("select f from Flight f order by f.flightId", Flight.class)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, streamFetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Flight> findFreshById(int flightId) {
+        Map<String, Object> properties = Map.of(
+                SpecHints.HINT_SPEC_CACHE_RETRIEVE_MODE, CacheRetrieveMode.BYPASS,
+                SpecHints.HINT_SPEC_CACHE_STORE_MODE, CacheStoreMode.REFRESH);
+        return Optional.ofNullable(entityManager.find(Flight.class, flightId, properties));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional
+    public int patch(int flightId, FlightPatch patch, Long expectedVersion) {
+        FlightPatch identified = new FlightPatch(flightId, patch.getFlightName(), patch.getSource(),
+                patch.getDestination(), patch.getTicketPrice());
+        List<Object> parameters = new ArrayList<>(Arrays.asList(parameters(identified)));
+        String sql = updateSql(identified);
+        if (expectedVersion != null) {
+            sql += " and version = ?";
+            parameters.add(expectedVersion);
+        }
+
+        entityManager.flush();
+        int updated = jdbcTemplate.update(sql, parameters.toArray());
+        afterWrite(List.of(flightId));
+        return updated;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional
+    public int updateIfVersion(Flight flight, long version) {
+        entityManager.flush();
+        int updated = jdbcTemplate.update("update flight set flight_name = ?, source = ?, destination = ?,"
+                        + " ticket_price = ?, version = version + 1 where flight_id = ? and version = ?",
+                flight.getFlightName(), flight.getSource(), flight.getDestination(), flight.getTicketPrice(),
+                flight.getFlightId(), version);
+        afterWrite(List.of(flight.getFlightId()));
+        return updated;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional
+    public int deleteIfVersion(int flightId, long version) {
+        entityManager.flush();
+        int deleted = jdbcTemplate.update("delete from flight where flight_id = ? and version = ?", flightId, version);
+        afterWrite(List.of(flightId));
+        return deleted;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional
+    public int[] patchAll(List<FlightPatch> patches) {
+        Map<String, List<Integer>> positionsBySql = new LinkedHashMap<>();
+        for (int i = 0; i < patches.size(); i++) {
+            positionsBySql.computeIfAbsent(updateSql(patches.get(i)), sql -> new ArrayList<>()).add(i);
+        }
+
+        entityManager.flush();
+        int[] counts = new int[patches.size()];
+        positionsBySql.forEach((sql, positions) -> {
+            List<Object[]> args = new ArrayList<>(positions.size());
+            for (int position : positions) {
+                args.add(parameters(patches.get(position)));
+            }
+            int[] updated = jdbcTemplate.batchUpdate(sql, args);
+            for (int i = 0; i < positions.size(); i++) {
+                counts[positions.get(i)] = updated[i];
+            }
+        });
+        afterWrite(patches.stream().map(FlightPatch::getFlightId).toList());
+        return counts;
+    }
+
+    /**
+     * Clears the persistence context and removes the written flights and all cached query
+     * results from the second-level cache, now and again once the transaction has completed
+     */
+    private void afterWrite(List<Integer> flightIds) {
+        entityManager.clear();
+        evictFromSecondLevelCache(flightIds);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                evictFromSecondLevelCache(flightIds);
+            }
+        });
+    }
+
+    /**
+     * Removes the given flights and all cached query results from the second-level cache
+     */
+    private void evictFromSecondLevelCache(List<Integer> flightIds) {
+        Cache cache = entityManager.getEntityManagerFactory().getCache().unwrap(Cache.class);
+        for (Integer flightId : flightIds) {
+            cache.evictEntityData(Flight.class, flightId);
+        }
+        cache.evictQueryRegions();
+    }
+
+    /**
+     * Builds the UPDATE statement for the fields set in a patch
+     */
+    private static String updateSql(FlightPatch patch) {
+        StringBuilder sql = new StringBuilder("update flight set ");
+        if (patch.getFlightName() != null) {
+            sql.append("flight_name = ?, ");
+        }
+        if (patch.getSource() != null) {
+            sql.append("source = ?, ");
+        }
+        if (patch.getDestination() != null) {
+            sql.append("destination = ?, ");
+        }
+        if (patch.getTicketPrice() != null) {
+            sql.append("ticket_price = ?, ");
+        }
+        return sql.append("version = version + 1 where flight_id = ?").toString();
+    }
+
+    /**
+     * Lists the parameters of the statement built by updateSql, in the same order
+     */
+    private static Object[] parameters(FlightPatch patch) {
+        List<Object> parameters = new ArrayList<>(5);
+        if (patch.getFlightName() != null) {
+            parameters.add(patch.getFlightName());
+        }
+        if (patch.getSource() != null) {
+            parameters.add(patch.getSource());
+        }
+        if (patch.getDestination() != null) {
+            parameters.add(patch.getDestination());
+        }
+        if (patch.getTicketPrice() != null) {
+            parameters.add(patch.getTicketPrice());
+        }
+        parameters.add(patch.getFlightId());
+        return parameters.toArray();
+    }
+}
@@ -1,9 +1,15 @@
 package com.airline.service;
 
+import com.airline.model.BulkResult;
 import com.airline.model.Flight;
+import com.airline.model.FlightListVersion;
+import com.airline.model.FlightPage;
+import com.airline.model.FlightPatch;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Service interface for managing Flight entities.
@@ -26,6 +32,51 @@ public interface FlightService {
      */
     List<Flight> getAllFlight();
 
+    /**
+     * Retrieves one page of flights ordered by flight ID, continuing after the given cursor
+     * 
+     * @param cursor Continuation token from the previous page, or null for the first page
+     * @param limit Requested page size, capped at the configured maximum
+     * @return The page of flights and the cursor for the next page
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    FlightPage getFlightPage(String cursor, int limit);
+
+    /**
+     * Searches the flights between two locations, optionally within a ticket price range
+     * 
+     * @param source The departure location
+     * @param destination The arrival location
+     * @param minPrice Lowest ticket price, inclusive, or null for no lower bound
+     * @param maxPrice Highest ticket price, inclusive, or null for no upper bound
+     * @param direction Sort direction on ticket price
+     * @param limit Maximum number of flights to return, capped at the configured maximum
+     * @return The matching flights ordered by ticket price
+     * @throws IllegalArgumentException if the price range is invalid
+     */
+    List<Flight> searchFlights(String source, String destination, Double minPrice, Double maxPrice,
+                               Sort.Direction direction, int limit);
+
+    /**
+     * Retrieves the flights between two locations, cheapest first, without a price filter.
+     * This is the latency critical lookup and is served from memory where possible.
+     * 
+     * @param source The departure location
+     * @param destination The arrival location
+     * @param limit Maximum number of flights to return, capped at the configured maximum
+     * @return The flights of the route ordered by ticket price
+     */
+    List<Flight> getRouteFlights(String source, String destination, int limit);
+
+    /**
+     * Walks every flight in the system in ID order and hands each one to the given sink,
+     * without loading the whole catalogue into memory
+     * 
+     * @param sink Consumer that receives each flight, it must not keep a reference to it
+     * @return The number of flights exported
+     */
+    long exportFlights(Consumer<Flight> sink);
+
     /**
      * Retrieves a specific flight by its ID
      * 
@@ -43,6 +94,17 @@ public interface FlightService {
      */
     boolean deleteFlight(int flightId);
 
+    /**
+     * Deletes a flight only if it is still at the version the caller last read
+     * 
+     * @param flightId The ID of the flight to delete
+     * @param expectedVersion The version the caller last read
+     * @return true if deletion was successful
+     * @throws org.springframework.dao.OptimisticLockingFailureException if the flight has another version
+     * @throws org.springframework.dao.EmptyResultDataAccessException if the flight does not exist
+     */
+    boolean deleteFlight(int flightId, long expectedVersion);
+
     /**
      * Updates an existing flight
      * 
@@ -51,4 +113,82 @@ public interface FlightService {
      * @return The updated flight
      */
     Flight updateFlight(int flightId, Flight flight);
+
+    /**
+     * Updates an existing flight only if it is still at the version the caller last read
+     * 
+     * @param flightId The ID of the flight to update
+     * @param flight The updated flight information
+     * @param expectedVersion The version the caller last read
+     * @return The updated flight with its new version
+     * @throws org.springframework.dao.OptimisticLockingFailureException if the flight has another version
+     * @throws org.springframework.dao.EmptyResultDataAccessException if the flight does not exist
+     */
+    Flight updateFlight(int flightId, Flight flight, long expectedVersion);
+
+    /**
+     * Changes only the given fields of a flight, without reading it first
+     * 
+     * @param flightId The ID of the flight to change
+     * @param patch The fields to change
+     * @throws IllegalArgumentException if the patch changes nothing
+     * @throws org.springframework.dao.EmptyResultDataAccessException if the flight does not exist
+     */
+    void patchFlight(int flightId, FlightPatch patch);
+
+    /**
+     * Changes only the given fields of a flight if it is still at the version the caller last read
+     * 
+     * @param flightId The ID of the flight to change
+     * @param patch The fields to change
+     * @param expectedVersion The version the caller last read
+     * @return The new version of the flight
+     * @throws IllegalArgumentException if the patch changes nothing
+     * @throws org.springframework.dao.OptimisticLockingFailureException if the flight has another version
+     * @throws org.springframework.dao.EmptyResultDataAccessException if the flight does not exist
+     */
+    long patchFlight(int flightId, FlightPatch patch, long expectedVersion);
+
+    /**
+     * Summarises the current state of all flights without loading them
+     * 
+     * @return the flight count and a hash over the ID and version of every flight
+     */
+    FlightListVersion getFlightListVersion();
+
+    /**
+     * Adds many flights at once using batched inserts
+     * 
+     * @param flights The flights to add, any IDs they carry are ignored
+     * @return The outcome of each item with the generated IDs
+     * @throws IllegalArgumentException if the request has more items than allowed
+     */
+    BulkResult addFlights(List<Flight> flights);
+
+    /**
+     * Updates many existing flights at once using batched updates
+     * 
+     * @param flights The new state of the flights, identified by their flight ID
+     * @return The outcome of each item
+     * @throws IllegalArgumentException if the request has more items than allowed
+     */
+    BulkResult updateFlights(List<Flight> flights);
+
+    /**
+     * Deletes many flights at once
+     * 
+     * @param flightIds The IDs of the flights to delete
+     * @return The outcome of each item
+     * @throws IllegalArgumentException if the request has more items than allowed
+     */
+    BulkResult deleteFlights(List<Integer> flightIds);
+
+    /**
+     * Changes only the given fields of many flights at once, for example a price feed
+     * 
+     * @param patches The changes, each with the ID of its flight
+     * @return The outcome of each item
+     * @throws IllegalArgumentException if the request has more items than allowed
+     */
+    BulkResult patchFlights(List<FlightPatch> patches);
 }
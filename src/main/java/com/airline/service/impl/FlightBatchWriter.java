@@ -0,0 +1,91 @@
+package com.airline.service.impl;
+
+import com.airline.model.Flight;
+import com.airline.repository.FlightRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Writes one chunk of a bulk request in a single transaction.
+ * Hibernate groups the statements of a chunk into JDBC batches of
+ * hibernate.jdbc.batch_size, so a chunk costs a few round trips instead of one per flight.
+ */
+@Component
+public class FlightBatchWriter {
+
+    /**
+     * Repository for Flight entity operations
+     */
+    @Autowired
+    private FlightRepository flightRepository;
+
+    /**
+     * Inserts new flights, their IDs are assigned from the flight sequence
+     *
+     * @param flights the flights to insert
+     * @return the saved flights in the same order
+     */
+    @Transactional
+    public List<Flight> insert(List<Flight> flights) {
+        for (Flight flight : flights) {
+            // always insert, and clear IDs left over from a chunk that was rolled back
+            flight.setFlightId(0);
+            flight.setVersion(0);
+        }
+        List<Flight> saved = flightRepository.saveAll(flights);
+        flightRepository.flush();
+        return saved;
+    }
+
+    /**
+     * Updates existing flights. The current rows are read with a single query and the new
+     * values are copied onto them, so the updates are flushed as one batch. Hibernate increments
+     * the version of every changed row; the version sent by the caller is not checked.
+     *
+     * @param flights the new state of the flights, identified by flight ID
+     * @return the updated flights; flights that do not exist are left out
+     */
+    @Transactional
+    public List<Flight> update(List<Flight> flights) {
+        List<Integer> ids = flights.stream().map(Flight::getFlightId).collect(Collectors.toList());
+        Map<Integer, Flight> existing = flightRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Flight::getFlightId, Function.identity()));
+        List<Flight> updated = new ArrayList<>();
+        for (Flight flight : flights) {
+            Flight current = existing.get(flight.getFlightId());
+            if (current != null) {
+                current.setFlightName(flight.getFlightName());
+                current.setSource(flight.getSource());
+                current.setDestination(flight.getDestination());
+                current.setTicketPrice(flight.getTicketPrice());
+                updated.add(current);
+            }
+        }
+        flightRepository.flush();
+        return updated;
+    }
+
+    /**
+     * Deletes flights with a single statement
+     *
+     * @param flightIds the IDs of the flights to delete
+     * @return the IDs that existed and were deleted
+     */
+    @Transactional
+    public List<Integer> delete(List<Integer> flightIds) {
+        List<Integer> existing = flightRepository.findAllById(flightIds).stream()
+                .map(Flight::getFlightId)
+                .collect(Collectors.toList());
+        if (!existing.isEmpty()) {
+            flightRepository.deleteAllByIdInBatch(existing);
+        }
+        return existing;
+    }
+}
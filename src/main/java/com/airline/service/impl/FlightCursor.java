@@ -0,0 +1,57 @@
+package com.airline.service.impl;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Encodes and decodes the opaque continuation tokens used by the cursor based flight listing.
+ * A token carries the last flight ID returned to the client; clients must treat it as opaque.
+ */
+final class FlightCursor {
+
+    /**
+     * Prefix that versions the token format so it can be changed later
+     */
+    private static final String PREFIX = "f1:";
+
+    private FlightCursor() {
+    }
+
+    /**
+     * Builds the token that continues the listing after the given flight
+     *
+     * @param lastFlightId ID of the last flight on the current page
+     * @return URL safe continuation token
+     */
+    static String encode(int lastFlightId) {
+        byte[] raw = (PREFIX + lastFlightId).getBytes(StandardCharsets.UTF_8);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw);
+    }
+
+    /**
+     * Reads the flight ID from a token, a missing token starts from the beginning
+     *
+     * @param cursor token previously returned by {@link #encode(int)}, may be null or blank
+     * @return the last flight ID already seen by the client
+     * @throws IllegalArgumentException if the token is malformed
+     */
+    static int decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0;
+        }
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+        if (!raw.startsWith(PREFIX)) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+        try {
+            return Integer.parseInt(raw.substring(PREFIX.length()));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+    }
+}
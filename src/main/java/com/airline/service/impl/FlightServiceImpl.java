@@ -1,20 +1,56 @@
 package com.airline.service.impl;
 
+import com.airline.cache.FlightCache;
+import com.airline.cache.FlightRouteIndex;
+import com.airline.cache.SingleFlight;
+import com.airline.changes.FlightChangeLog;
+import com.airline.datasource.ReplicaLagWindow;
+import com.airline.invalidation.FlightInvalidationBus;
+import com.airline.limiter.ConcurrencyLimitExceededException;
+import com.airline.model.BulkItemResult;
+import com.airline.model.BulkResult;
 import com.airline.model.Flight;
+import com.airline.model.FlightChange;
+import com.airline.model.FlightListChecksum;
+import com.airline.model.FlightListVersion;
+import com.airline.model.FlightPage;
+import com.airline.model.FlightPatch;
 import com.airline.repository.FlightRepository;
 import com.airline.service.FlightService;
+import io.micrometer.observation.annotation.Observed;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 /**
  * Implementation of the FlightService interface.
  * Provides the business logic for flight-related operations.
+ * Every public method is observed: it is timed as flight.service and traced as a child span
+ * of the request.
  */
 @Service
+@Observed(name = "flight.service")
 public class FlightServiceImpl implements FlightService {
     
     /**
@@ -28,43 +64,229 @@ public class FlightServiceImpl implements FlightService {
     @Autowired
     private FlightRepository flightRepository;
 
+    /**
+     * Read-through cache of flights by ID, kept in step with every write below
+     */
+    @Autowired
+    private FlightCache flightCache;
+
+    /**
+     * In-memory route index, kept in step with every write below
+     */
+    @Autowired
+    private FlightRouteIndex flightRouteIndex;
+
+    /**
+     * Log of the writes below, read by the change feed
+     */
+    @Autowired
+    private FlightChangeLog flightChangeLog;
+
+    /**
+     * Tells the other instances about the writes below, so they drop their cached copies
+     */
+    @Autowired
+    private FlightInvalidationBus flightInvalidationBus;
+
+    /**
+     * Transactional writer used by the bulk operations, one transaction per chunk
+     */
+    @Autowired
+    private FlightBatchWriter flightBatchWriter;
+
+    /**
+     * Flights that changed too recently to be read from a replica
+     */
+    @Autowired
+    private ReplicaLagWindow replicaLagWindow;
+
+    /**
+     * Database loads of single flights running right now, shared by concurrent readers of the same flight
+     */
+    private final SingleFlight<FlightLoad, Flight> flightLoads = new SingleFlight<>();
+
+    /**
+     * Database loads of all flights running right now, shared by concurrent readers
+     */
+    private final SingleFlight<Long, List<Flight>> allFlightLoads = new SingleFlight<>();
+
+    /**
+     * Held by each write to an existing flight until its change is logged, so the writes to one
+     * flight are logged in the order the database applied them
+     */
+    private final FlightWriteLocks flightWriteLocks = new FlightWriteLocks(1024);
+
+    /**
+     * Entity manager used to detach streamed flights once they have been exported
+     */
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Page size used when the client does not ask for one
+     */
+    @Value("${flight.page.default-size:50}")
+    private int defaultPageSize = 50;
+
+    /**
+     * Upper bound for the page size, protects the heap from oversized requests
+     */
+    @Value("${flight.page.max-size:500}")
+    private int maxPageSize = 500;
+
+    /**
+     * Number of flights written per transaction by the bulk operations,
+     * matches hibernate.jdbc.batch_size so each chunk is sent as one JDBC batch
+     */
+    @Value("${flight.batch.size:50}")
+    private int batchSize = 50;
+
+    /**
+     * Upper bound for the number of items in one bulk request
+     */
+    @Value("${flight.batch.max-items:10000}")
+    private int maxBulkItems = 10000;
+
     /**
      * {@inheritDoc}
      * Saves a new flight to the database
      */
     @Override
     public Flight addFlight(Flight flight) {
-        logger.info("Adding new flight: {}", flight);
+        logger.debug("Adding new flight: {}", flight);
         Flight savedFlight = flightRepository.save(flight);
-        logger.info("Flight saved with ID: {}", savedFlight.getFlightId());
+        flightCache.put(savedFlight);
+        flightRouteIndex.put(savedFlight);
+        flightChangeLog.append(FlightChange.Type.CREATED, savedFlight.getFlightId(), savedFlight, null);
+        flightInvalidationBus.publish(savedFlight.getFlightId());
+        logger.debug("Flight saved with ID: {}", savedFlight.getFlightId());
         return savedFlight;
     }
 
     /**
      * {@inheritDoc}
-     * Retrieves all flights from the database
+     * Retrieves all flights from the database. Concurrent callers share one query, unless a write
+     * was made on this instance after it started. The list is shared and cannot be modified.
      */
     @Override
     public List<Flight> getAllFlight() {
-        logger.info("Retrieving all flights");
-        List<Flight> flights = flightRepository.findAll();
-        logger.info("Retrieved {} flights from database", flights.size());
+        logger.debug("Retrieving all flights");
+        List<Flight> flights = allFlightLoads.load(flightChangeLog.lastSequence(),
+                () -> Collections.unmodifiableList(flightRepository.findAll()));
+        logger.debug("Retrieved {} flights from database", flights.size());
         return flights;
     }
 
     /**
      * {@inheritDoc}
-     * Retrieves a specific flight by ID or throws an exception if not found
+     * Reads one extra row to find out whether another page follows
+     */
+    @Override
+    public FlightPage getFlightPage(String cursor, int limit) {
+        int afterId = FlightCursor.decode(cursor);
+        int pageSize = limit <= 0 ? defaultPageSize : Math.min(limit, maxPageSize);
+        logger.debug("Retrieving up to {} flights after ID: {}", pageSize, afterId);
+
+        List<Flight> flights = flightRepository.findByFlightIdGreaterThanOrderByFlightIdAsc(
+                afterId, PageRequest.of(0, pageSize + 1));
+        String nextCursor = null;
+        if (flights.size() > pageSize) {
+            flights = flights.subList(0, pageSize);
+            nextCursor = FlightCursor.encode(flights.get(pageSize - 1).getFlightId());
+        }
+        logger.debug("Retrieved {} flights, more available: {}", flights.size(), nextCursor != null);
+        return new FlightPage(flights, nextCursor);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Missing price bounds are replaced by the widest range, so the query always has the same
+     * shape and is served by the route index
+     */
+    @Override
+    public List<Flight> searchFlights(String source, String destination, Double minPrice, Double maxPrice,
+                                      Sort.Direction direction, int limit) {
+        double min = minPrice == null ? -Double.MAX_VALUE : minPrice;
+        double max = maxPrice == null ? Double.MAX_VALUE : maxPrice;
+        if (min > max) {
+            throw new IllegalArgumentException("minPrice must not be greater than maxPrice");
+        }
+        int pageSize = limit <= 0 ? defaultPageSize : Math.min(limit, maxPageSize);
+        logger.debug("Searching flights from {} to {} priced {} to {}", source, destination, minPrice, maxPrice);
+        Sort sort = Sort.by(direction, "ticketPrice").and(Sort.by(direction, "flightId"));
+        List<Flight> flights = flightRepository.searchRoute(source, destination, min, max,
+                PageRequest.of(0, pageSize, sort));
+        logger.debug("Found {} flights from {} to {}", flights.size(), source, destination);
+        return flights;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Served from the in-memory route index, or from the database while the index is not available
+     */
+    @Override
+    public List<Flight> getRouteFlights(String source, String destination, int limit) {
+        int pageSize = limit <= 0 ? defaultPageSize : Math.min(limit, maxPageSize);
+        List<Flight> flights = flightRouteIndex.find(source, destination, pageSize);
+        if (flights != null) {
+            logger.debug("Route {} to {} served from route index", source, destination);
+            return flights;
+        }
+        return searchFlights(source, destination, null, null, Sort.Direction.ASC, pageSize);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Reads through a database cursor and detaches each flight after the sink has used it,
+     * so the persistence context does not grow with the number of rows
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public long exportFlights(Consumer<Flight> sink) {
+        logger.debug("Exporting all flights");
+        long count = 0;
+        try (Stream<Flight> flights = flightRepository.streamAll()) {
+            for (Flight flight : (Iterable<Flight>) flights::iterator) {
+                sink.accept(flight);
+                entityManager.detach(flight);
+                count++;
+            }
+        }
+        logger.info("Exported {} flights", count);
+        return count;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Retrieves a specific flight by ID, from the cache when possible, or throws an exception if not found.
+     * A flight that changed within the replicas' maximum lag is read from the primary.
      */
     @Override
     public Flight getFlight(int flightId) throws Exception {
-        logger.info("Retrieving flight with ID: {}", flightId);
+        logger.debug("Retrieving flight with ID: {}", flightId);
+        Flight cached = flightCache.getIfPresent(flightId);
+        if (cached != null) {
+            logger.debug("Flight with ID {} served from cache", flightId);
+            return cached;
+        }
         try {
-            Flight flight = flightRepository.findById(flightId).orElseThrow(
-                () -> new Exception("No Flight with Id: " + flightId)
-            );
-            logger.info("Successfully retrieved flight with ID: {}", flightId);
-            return flight;
+            // concurrent misses share one query, unless a write was made on this instance after it started
+            Flight flight = flightLoads.call(new FlightLoad(flightId, flightChangeLog.lastSequence()), () -> {
+                long stamp = flightCache.beginLoad(flightId);
+                // a flight that just changed is read from the primary, past a possibly stale second-level cache entry
+                Optional<Flight> found = replicaLagWindow.isLagging(flightId)
+                        ? replicaLagWindow.onPrimary(() -> flightRepository.findFreshById(flightId))
+                        : flightRepository.findById(flightId);
+                Flight loaded = found.orElseThrow(
+                    () -> new Exception("No Flight with Id: " + flightId)
+                );
+                // dropped if the flight was invalidated while it was read
+                flightCache.putLoaded(loaded, stamp);
+                return loaded;
+            });
+            logger.debug("Successfully retrieved flight with ID: {}", flightId);
+            // every caller sharing the load gets its own copy
+            return flight.copy();
         } catch (Exception e) {
             logger.error("Error retrieving flight with ID {}: {}", flightId, e.getMessage());
             throw e;
@@ -77,10 +299,14 @@ public class FlightServiceImpl implements FlightService {
      */
     @Override
     public boolean deleteFlight(int flightId) {
-        logger.info("Deleting flight with ID: {}", flightId);
-        try {
+        logger.debug("Deleting flight with ID: {}", flightId);
+        try (FlightWriteLocks.Held locked = flightWriteLocks.lock(flightId)) {
             flightRepository.deleteById(flightId);
-            logger.info("Successfully deleted flight with ID: {}", flightId);
+            flightCache.invalidate(flightId);
+            flightRouteIndex.remove(flightId);
+            flightChangeLog.append(FlightChange.Type.DELETED, flightId, null, null);
+            flightInvalidationBus.publish(flightId);
+            logger.debug("Successfully deleted flight with ID: {}", flightId);
             return true;
         } catch (Exception e) {
             logger.error("Error deleting flight with ID {}: {}", flightId, e.getMessage());
@@ -90,21 +316,402 @@ public class FlightServiceImpl implements FlightService {
 
     /**
      * {@inheritDoc}
-     * Updates an existing flight in the database
+     * A single conditional DELETE statement, the flight is only read again if nothing was deleted
+     */
+    @Override
+    public boolean deleteFlight(int flightId, long expectedVersion) {
+        logger.debug("Deleting flight with ID: {} at version {}", flightId, expectedVersion);
+        try (FlightWriteLocks.Held locked = flightWriteLocks.lock(flightId)) {
+            if (flightRepository.deleteIfVersion(flightId, expectedVersion) == 0) {
+                throw versionMismatch(flightId, expectedVersion);
+            }
+            flightCache.invalidate(flightId);
+            flightRouteIndex.remove(flightId);
+            flightChangeLog.append(FlightChange.Type.DELETED, flightId, null, null);
+            flightInvalidationBus.publish(flightId);
+            logger.debug("Successfully deleted flight with ID: {}", flightId);
+            return true;
+        } catch (Exception e) {
+            logger.error("Error deleting flight with ID {}: {}", flightId, e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * Reads the current row and copies the new values onto it in one transaction, so Hibernate
+     * only writes the row if something changed and increments its version when it does
      */
     @Override
     public Flight updateFlight(int flightId, Flight flight) {
-        logger.info("Updating flight with ID: {}", flightId);
+        logger.debug("Updating flight with ID: {}", flightId);
         logger.debug("Update data: {}", flight);
-        try {
-            Flight updatedFlight = flightRepository.save(flight);
-            logger.info("Successfully updated flight with ID: {}", flightId);
+        try (FlightWriteLocks.Held locked = flightWriteLocks.lock(flightId)) {
+            flight.setFlightId(flightId);
+            List<Flight> updated = flightBatchWriter.update(List.of(flight));
+            if (updated.isEmpty()) {
+                throw new EmptyResultDataAccessException("No Flight with Id: " + flightId, 1);
+            }
+            Flight updatedFlight = updated.get(0);
+            flightCache.put(updatedFlight);
+            flightRouteIndex.put(updatedFlight);
+            flightChangeLog.append(FlightChange.Type.UPDATED, flightId, updatedFlight, null);
+            flightInvalidationBus.publish(flightId);
+            logger.debug("Successfully updated flight with ID: {}", flightId);
+            return updatedFlight;
+        } catch (Exception e) {
+            // the row may or may not have changed, make the next read go to the database
+            flightCache.invalidate(flightId);
+            logger.error("Error updating flight with ID {}: {}", flightId, e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * A single conditional UPDATE statement, the flight is not read first
+     */
+    @Override
+    public Flight updateFlight(int flightId, Flight flight, long expectedVersion) {
+        logger.debug("Updating flight with ID: {} at version {}", flightId, expectedVersion);
+        logger.debug("Update data: {}", flight);
+        try (FlightWriteLocks.Held locked = flightWriteLocks.lock(flightId)) {
+            flight.setFlightId(flightId);
+            if (flightRepository.updateIfVersion(flight, expectedVersion) == 0) {
+                throw versionMismatch(flightId, expectedVersion);
+            }
+            Flight updatedFlight = new Flight(flightId, flight.getFlightName(), flight.getSource(),
+                    flight.getDestination(), flight.getTicketPrice());
+            updatedFlight.setVersion(expectedVersion + 1);
+            flightCache.put(updatedFlight);
+            flightRouteIndex.put(updatedFlight);
+            flightChangeLog.append(FlightChange.Type.UPDATED, flightId, updatedFlight, null);
+            flightInvalidationBus.publish(flightId);
+            logger.debug("Successfully updated flight with ID: {} to version {}", flightId, updatedFlight.getVersion());
             return updatedFlight;
         } catch (Exception e) {
+            flightCache.invalidate(flightId);
             logger.error("Error updating flight with ID {}: {}", flightId, e.getMessage());
             throw e;
         }
     }
 
+    /**
+     * {@inheritDoc}
+     * A single UPDATE statement of the patched columns, the flight is not read first
+     */
+    @Override
+    public void patchFlight(int flightId, FlightPatch patch) {
+        logger.debug("Patching flight with ID: {}", flightId);
+        logger.debug("Patch data: {}", patch);
+        try (FlightWriteLocks.Held locked = flightWriteLocks.lock(flightId)) {
+            requireChanges(patch);
+            if (flightRepository.patch(flightId, patch, null) == 0) {
+                throw new EmptyResultDataAccessException("No Flight with Id: " + flightId, 1);
+            }
+            // the new version is not known, the next read goes to the database
+            flightCache.invalidate(flightId);
+            flightRouteIndex.patch(flightId, patch);
+            flightChangeLog.append(FlightChange.Type.PATCHED, flightId, null, patch);
+            flightInvalidationBus.publish(flightId);
+            logger.debug("Successfully patched flight with ID: {}", flightId);
+        } catch (Exception e) {
+            flightCache.invalidate(flightId);
+            logger.error("Error patching flight with ID {}: {}", flightId, e.getMessage());
+            throw e;
+        }
+    }
 
+    /**
+     * {@inheritDoc}
+     * A single conditional UPDATE statement of the patched columns, the flight is not read first
+     */
+    @Override
+    public long patchFlight(int flightId, FlightPatch patch, long expectedVersion) {
+        logger.debug("Patching flight with ID: {} at version {}", flightId, expectedVersion);
+        logger.debug("Patch data: {}", patch);
+        try (FlightWriteLocks.Held locked = flightWriteLocks.lock(flightId)) {
+            requireChanges(patch);
+            if (flightRepository.patch(flightId, patch, expectedVersion) == 0) {
+                throw versionMismatch(flightId, expectedVersion);
+            }
+            long newVersion = expectedVersion + 1;
+            Flight cached = flightCache.getIfPresent(flightId);
+            if (cached != null && cached.getVersion() == expectedVersion) {
+                Flight patched = patch.applyTo(cached);
+                patched.setVersion(newVersion);
+                flightCache.put(patched);
+            } else {
+                flightCache.invalidate(flightId);
+            }
+            flightRouteIndex.patch(flightId, patch);
+            flightChangeLog.append(FlightChange.Type.PATCHED, flightId, null, patch);
+            flightInvalidationBus.publish(flightId);
+            logger.debug("Successfully patched flight with ID: {} to version {}", flightId, newVersion);
+            return newVersion;
+        } catch (Exception e) {
+            flightCache.invalidate(flightId);
+            logger.error("Error patching flight with ID {}: {}", flightId, e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * Rejects patches that would only increment the version
+     */
+    private static void requireChanges(FlightPatch patch) {
+        if (patch == null || patch.isEmpty()) {
+            throw new IllegalArgumentException("A patch must change at least one field");
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public FlightListVersion getFlightListVersion() {
+        // summed by the database, so a list request reads one row however many flights there are
+        FlightListChecksum checksum = flightRepository.findListChecksum();
+        return new FlightListVersion(checksum.getCount(), mix(mix(checksum.getFirst()) ^ checksum.getSecond()));
+    }
+
+    /**
+     * Spreads every input bit over the whole result (the SplitMix64 finaliser), so that small
+     * differences in the sums give unrelated hashes
+     */
+    private static long mix(long value) {
+        long z = value + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Explains why a conditional write changed no row
+     *
+     * @return not found if the flight does not exist, otherwise a version conflict
+     */
+    private DataAccessException versionMismatch(int flightId, long expectedVersion) {
+        if (!flightRepository.existsById(flightId)) {
+            return new EmptyResultDataAccessException("No Flight with Id: " + flightId, 1);
+        }
+        return new OptimisticLockingFailureException(
+                "Flight with Id: " + flightId + " is no longer at version " + expectedVersion);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Inserts the flights chunk by chunk with batched inserts
+     */
+    @Override
+    public BulkResult addFlights(List<Flight> flights) {
+        logger.debug("Bulk adding {} flights", flights == null ? 0 : flights.size());
+        BulkResult result = applyInChunks(flights, flight -> null, (indexes, chunk) -> {
+            List<Flight> saved = flightBatchWriter.insert(chunk);
+            List<BulkItemResult> results = new ArrayList<>(saved.size());
+            List<Integer> savedIds = new ArrayList<>(saved.size());
+            for (int i = 0; i < saved.size(); i++) {
+                flightCache.put(saved.get(i));
+                flightRouteIndex.put(saved.get(i));
+                flightChangeLog.append(FlightChange.Type.CREATED, saved.get(i).getFlightId(), saved.get(i), null);
+                results.add(new BulkItemResult(indexes.get(i), saved.get(i).getFlightId(), true, null));
+                savedIds.add(saved.get(i).getFlightId());
+            }
+            flightInvalidationBus.publish(savedIds);
+            return results;
+        });
+        logger.info("Bulk add finished, {} succeeded, {} failed", result.getSucceeded(), result.getFailed());
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Updates the flights chunk by chunk with batched updates
+     */
+    @Override
+    public BulkResult updateFlights(List<Flight> flights) {
+        logger.debug("Bulk updating {} flights", flights == null ? 0 : flights.size());
+        BulkResult result = applyInChunks(flights, Flight::getFlightId, (indexes, chunk) -> {
+            Set<Integer> updatedIds = new HashSet<>();
+            for (Flight updated : flightBatchWriter.update(chunk)) {
+                flightCache.put(updated);
+                flightRouteIndex.put(updated);
+                flightChangeLog.append(FlightChange.Type.UPDATED, updated.getFlightId(), updated, null);
+                updatedIds.add(updated.getFlightId());
+            }
+            flightInvalidationBus.publish(updatedIds);
+            List<BulkItemResult> results = new ArrayList<>(chunk.size());
+            for (int i = 0; i < chunk.size(); i++) {
+                int flightId = chunk.get(i).getFlightId();
+                results.add(updatedIds.contains(flightId)
+                        ? new BulkItemResult(indexes.get(i), flightId, true, null)
+                        : new BulkItemResult(indexes.get(i), flightId, false, "No Flight with Id: " + flightId));
+            }
+            return results;
+        });
+        logger.info("Bulk update finished, {} succeeded, {} failed", result.getSucceeded(), result.getFailed());
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Deletes the flights chunk by chunk, one delete statement per chunk
+     */
+    @Override
+    public BulkResult deleteFlights(List<Integer> flightIds) {
+        logger.debug("Bulk deleting {} flights", flightIds == null ? 0 : flightIds.size());
+        BulkResult result = applyInChunks(flightIds, Function.identity(), (indexes, chunk) -> {
+            Set<Integer> deletedIds = new HashSet<>(flightBatchWriter.delete(chunk));
+            flightInvalidationBus.publish(deletedIds);
+            List<BulkItemResult> results = new ArrayList<>(chunk.size());
+            for (int i = 0; i < chunk.size(); i++) {
+                int flightId = chunk.get(i);
+                flightCache.invalidate(flightId);
+                flightRouteIndex.remove(flightId);
+                if (deletedIds.contains(flightId)) {
+                    flightChangeLog.append(FlightChange.Type.DELETED, flightId, null, null);
+                }
+                results.add(deletedIds.contains(flightId)
+                        ? new BulkItemResult(indexes.get(i), flightId, true, null)
+                        : new BulkItemResult(indexes.get(i), flightId, false, "No Flight with Id: " + flightId));
+            }
+            return results;
+        });
+        logger.info("Bulk delete finished, {} succeeded, {} failed", result.getSucceeded(), result.getFailed());
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     * Patches the flights chunk by chunk, one JDBC batch per set of patched fields
+     */
+    @Override
+    public BulkResult patchFlights(List<FlightPatch> patches) {
+        logger.debug("Bulk patching {} flights", patches == null ? 0 : patches.size());
+        BulkResult result = applyInChunks(patches, FlightPatch::getFlightId, (indexes, chunk) -> {
+            for (FlightPatch patch : chunk) {
+                if (patch.getFlightId() == null) {
+                    throw new IllegalArgumentException("Flight ID is required");
+                }
+                requireChanges(patch);
+            }
+            int[] counts = flightRepository.patchAll(chunk);
+            List<BulkItemResult> results = new ArrayList<>(chunk.size());
+            List<Integer> patchedIds = new ArrayList<>(chunk.size());
+            for (int i = 0; i < chunk.size(); i++) {
+                FlightPatch patch = chunk.get(i);
+                int flightId = patch.getFlightId();
+                flightCache.invalidate(flightId);
+                if (counts[i] == 0) {
+                    results.add(new BulkItemResult(indexes.get(i), flightId, false, "No Flight with Id: " + flightId));
+                } else {
+                    flightRouteIndex.patch(flightId, patch);
+                    flightChangeLog.append(FlightChange.Type.PATCHED, flightId, null, patch);
+                    results.add(new BulkItemResult(indexes.get(i), flightId, true, null));
+                    patchedIds.add(flightId);
+                }
+            }
+            flightInvalidationBus.publish(patchedIds);
+            return results;
+        });
+        logger.info("Bulk patch finished, {} succeeded, {} failed", result.getSucceeded(), result.getFailed());
+        return result;
+    }
+
+    /**
+     * Key of a single flight load: the flight, and the position of the change log when the load
+     * started, so a load is only shared by readers that come after the same writes
+     */
+    private record FlightLoad(int flightId, long changeSequence) {
+    }
+
+    /**
+     * Work done for one chunk of a bulk request
+     *
+     * @param <T> the type of the request items
+     */
+    @FunctionalInterface
+    private interface ChunkOperation<T> {
+        /**
+         * Applies the chunk in one transaction
+         *
+         * @param indexes positions of the chunk items in the request
+         * @param chunk the items to apply
+         * @return one result per chunk item, in chunk order
+         */
+        List<BulkItemResult> apply(List<Integer> indexes, List<T> chunk);
+    }
+
+    /**
+     * Splits a bulk request into chunks of the batch size and applies them one after another.
+     * Null items are rejected up front. When a chunk fails as a whole, its items are retried one
+     * by one so that a single bad item does not fail its neighbours, and the error is reported
+     * against the item that caused it.
+     *
+     * @param items the request items
+     * @param idOf extracts the flight ID reported for a failed item, may return null
+     * @param operation the work done per chunk
+     * @param <T> the type of the request items
+     * @return the per item results in request order
+     */
+    private <T> BulkResult applyInChunks(List<T> items, Function<T, Integer> idOf, ChunkOperation<T> operation) {
+        if (items == null || items.isEmpty()) {
+            return BulkResult.of(List.of());
+        }
+        if (items.size() > maxBulkItems) {
+            throw new IllegalArgumentException("A bulk request may contain at most " + maxBulkItems + " items");
+        }
+        BulkItemResult[] results = new BulkItemResult[items.size()];
+        List<Integer> indexes = new ArrayList<>(batchSize);
+        List<T> chunk = new ArrayList<>(batchSize);
+        for (int i = 0; i < items.size(); i++) {
+            if (items.get(i) == null) {
+                results[i] = new BulkItemResult(i, null, false, "Item is required");
+                continue;
+            }
+            indexes.add(i);
+            chunk.add(items.get(i));
+            if (chunk.size() == batchSize) {
+                applyChunk(indexes, chunk, idOf, operation, results);
+                indexes = new ArrayList<>(batchSize);
+                chunk = new ArrayList<>(batchSize);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            applyChunk(indexes, chunk, idOf, operation, results);
+        }
+        return BulkResult.of(Arrays.asList(results));
+    }
+
+    /**
+     * Applies one chunk, falling back to one transaction per item if the chunk fails. A chunk
+     * rejected by the concurrency limit fails as a whole, retrying its items would only add load.
+     * The write locks of the chunk's flights are held while it is applied and logged.
+     */
+    private <T> void applyChunk(List<Integer> indexes, List<T> chunk, Function<T, Integer> idOf,
+                                ChunkOperation<T> operation, BulkItemResult[] results) {
+        try (FlightWriteLocks.Held locked = flightWriteLocks.lock(chunk.stream().map(idOf).toList())) {
+            for (BulkItemResult result : operation.apply(indexes, chunk)) {
+                results[result.getIndex()] = result;
+            }
+            return;
+        } catch (ConcurrencyLimitExceededException e) {
+            logger.warn("Bulk chunk of {} items rejected: {}", chunk.size(), e.getMessage());
+            for (int i = 0; i < chunk.size(); i++) {
+                results[indexes.get(i)] = new BulkItemResult(indexes.get(i), idOf.apply(chunk.get(i)), false, e.getMessage());
+            }
+            return;
+        } catch (RuntimeException e) {
+            logger.warn("Bulk chunk of {} items failed, retrying items one by one: {}", chunk.size(), e.getMessage());
+        }
+        for (int i = 0; i < chunk.size(); i++) {
+            int index = indexes.get(i);
+            try (FlightWriteLocks.Held locked = flightWriteLocks.lock(Collections.singletonList(idOf.apply(chunk.get(i))))) {
+                results[index] = operation.apply(List.of(index), List.of(chunk.get(i))).get(0);
+            } catch (RuntimeException e) {
+                logger.error("Bulk item {} failed: {}", index, e.getMessage());
+                results[index] = new BulkItemResult(index, idOf.apply(chunk.get(i)), false, e.getMessage());
+            }
+        }
+    }
 }
@@ -0,0 +1,91 @@
+package com.airline.service.impl;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Striped locks that order the writes to one flight on this instance.
+ *
+ * A write holds the lock of its flight from its database statement until its change has been
+ * logged, so two writes to the same flight reach the change log, the cache and the route index
+ * in the order the database applied them. Flights share a lock by the low bits of their ID.
+ * Several locks are always taken in stripe order, so writers of overlapping chunks cannot
+ * deadlock. Locks rather than synchronized, so a writer waiting on the database does not pin
+ * a virtual thread's carrier.
+ */
+public class FlightWriteLocks {
+
+    /**
+     * The locks, a power of two of them
+     */
+    private final ReentrantLock[] stripes;
+
+    /**
+     * Creates the locks
+     *
+     * @param stripes number of locks, rounded up to a power of two
+     */
+    public FlightWriteLocks(int stripes) {
+        if (stripes <= 0) {
+            throw new IllegalArgumentException("stripes must be positive");
+        }
+        int size = Integer.highestOneBit(stripes - 1) << 1;
+        this.stripes = new ReentrantLock[Math.max(1, size)];
+        for (int i = 0; i < this.stripes.length; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Locks the writes to one flight
+     *
+     * @param flightId the flight ID
+     * @return the held lock, to be closed once the write has been logged
+     */
+    public Held lock(int flightId) {
+        ReentrantLock stripe = stripes[stripeOf(flightId)];
+        stripe.lock();
+        return stripe::unlock;
+    }
+
+    /**
+     * Locks the writes to several flights, e.g. the flights of a bulk chunk
+     *
+     * @param flightIds the flight IDs, null IDs are skipped
+     * @return the held locks, to be closed once the writes have been logged
+     */
+    public Held lock(Collection<Integer> flightIds) {
+        BitSet needed = new BitSet(stripes.length);
+        for (Integer flightId : flightIds) {
+            if (flightId != null) {
+                needed.set(stripeOf(flightId));
+            }
+        }
+        int[] taken = needed.stream().toArray();
+        for (int i = 0; i < taken.length; i++) {
+            stripes[taken[i]].lock();
+        }
+        return () -> {
+            for (int i = taken.length - 1; i >= 0; i--) {
+                stripes[taken[i]].unlock();
+            }
+        };
+    }
+
+    private int stripeOf(int flightId) {
+        return flightId & (stripes.length - 1);
+    }
+
+    /**
+     * Locks taken by {@link #lock}, released by closing them
+     */
+    @FunctionalInterface
+    public interface Held extends AutoCloseable {
+        /**
+         * Releases the locks
+         */
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,191 @@
+package com.airline.tracing;
+
+import com.airline.model.SpanRecord;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Span exporter that keeps the most recent spans in memory and optionally appends them to a
+ * local file, so traces can be inspected without an external collector.
+ *
+ * Spans arrive in batches from the OpenTelemetry batch processor thread, never from a request
+ * thread. The newest flight.tracing.buffer-size spans are kept; older ones are overwritten.
+ * When flight.tracing.file is set, every span is also written to it as one JSON object per line.
+ */
+@Component
+public class RingBufferSpanExporter implements SpanExporter {
+
+    /**
+     * Logger for this class
+     */
+    private static final Logger logger = LoggerFactory.getLogger(RingBufferSpanExporter.class);
+
+    /**
+     * Fixed size buffer of the newest spans, written round robin
+     */
+    private final SpanRecord[] buffer;
+
+    /**
+     * Total number of spans ever exported, the next write goes to written % buffer.length
+     */
+    private long written;
+
+    /**
+     * Guards the buffer between the exporting thread and readers
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * Writer for the optional span file, null when spans are kept in memory only
+     */
+    private final BufferedWriter fileWriter;
+
+    /**
+     * Mapper used to write the span file
+     */
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * Creates the exporter from the flight.tracing.* properties
+     *
+     * @param bufferSize number of spans kept in memory
+     * @param file path of the NDJSON span file, blank to keep spans in memory only
+     * @throws IOException if the span file cannot be opened
+     */
+    public RingBufferSpanExporter(@Value("${flight.tracing.buffer-size:2048}") int bufferSize,
+                                  @Value("${flight.tracing.file:}") String file) throws IOException {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("flight.tracing.buffer-size must be positive");
+        }
+        this.buffer = new SpanRecord[bufferSize];
+        if (file == null || file.isBlank()) {
+            this.fileWriter = null;
+        } else {
+            Path path = Path.of(file);
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            this.fileWriter = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            logger.info("Writing tracing spans to {}", path.toAbsolutePath());
+        }
+    }
+
+    /**
+     * Stores a batch of finished spans
+     *
+     * @param spans the finished spans
+     * @return success, or failure if the span file could not be written
+     */
+    @Override
+    public CompletableResultCode export(Collection<SpanData> spans) {
+        List<SpanRecord> records = new ArrayList<>(spans.size());
+        for (SpanData span : spans) {
+            records.add(toRecord(span));
+        }
+        lock.lock();
+        try {
+            for (SpanRecord record : records) {
+                buffer[(int) (written++ % buffer.length)] = record;
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (fileWriter == null) {
+            return CompletableResultCode.ofSuccess();
+        }
+        try {
+            for (SpanRecord record : records) {
+                fileWriter.write(objectMapper.writeValueAsString(record));
+                fileWriter.newLine();
+            }
+            fileWriter.flush();
+            return CompletableResultCode.ofSuccess();
+        } catch (IOException e) {
+            logger.warn("Could not write tracing spans: {}", e.getMessage());
+            return CompletableResultCode.ofFailure();
+        }
+    }
+
+    /**
+     * Nothing is buffered beyond what export already wrote
+     *
+     * @return success
+     */
+    @Override
+    public CompletableResultCode flush() {
+        return CompletableResultCode.ofSuccess();
+    }
+
+    /**
+     * Closes the span file
+     *
+     * @return success, or failure if the file could not be closed
+     */
+    @Override
+    public CompletableResultCode shutdown() {
+        if (fileWriter == null) {
+            return CompletableResultCode.ofSuccess();
+        }
+        try {
+            fileWriter.close();
+            return CompletableResultCode.ofSuccess();
+        } catch (IOException e) {
+            logger.warn("Could not close tracing span file: {}", e.getMessage());
+            return CompletableResultCode.ofFailure();
+        }
+    }
+
+    /**
+     * Get the spans still held in memory
+     *
+     * @param traceId only return spans of this trace, or null for all spans
+     * @return the spans, newest first
+     */
+    public List<SpanRecord> recentSpans(String traceId) {
+        lock.lock();
+        try {
+            int count = (int) Math.min(written, buffer.length);
+            List<SpanRecord> spans = new ArrayList<>(count);
+            for (long i = written - 1; i >= written - count; i--) {
+                SpanRecord record = buffer[(int) (i % buffer.length)];
+                if (traceId == null || traceId.equals(record.getTraceId())) {
+                    spans.add(record);
+                }
+            }
+            return spans;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static SpanRecord toRecord(SpanData span) {
+        Map<String, String> attributes = new LinkedHashMap<>();
+        span.getAttributes().forEach((key, value) -> attributes.put(key.getKey(), String.valueOf(value)));
+        return new SpanRecord(span.getTraceId(), span.getSpanId(),
+                span.getParentSpanContext().isValid() ? span.getParentSpanId() : null,
+                span.getName(), span.getKind().name(),
+                span.getStartEpochNanos() / 1000,
+                (span.getEndEpochNanos() - span.getStartEpochNanos()) / 1000,
+                span.getStatus().getStatusCode().name(), attributes);
+    }
+}
@@ -0,0 +1,45 @@
+package com.airline.tracing;
+
+import com.airline.model.SpanRecord;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Actuator endpoint listing the spans held by the in-memory span exporter.
+ * GET /actuator/traces returns the newest spans, GET /actuator/traces/{traceId} the spans of
+ * one trace, for example the one whose ID was logged with a slow request.
+ */
+@Component
+@Endpoint(id = "traces")
+public class TracesEndpoint {
+
+    /**
+     * Exporter holding the recent spans
+     */
+    @Autowired
+    private RingBufferSpanExporter spanExporter;
+
+    /**
+     * Lists the recent spans
+     * @return the spans still in memory, newest first
+     */
+    @ReadOperation
+    public List<SpanRecord> spans() {
+        return spanExporter.recentSpans(null);
+    }
+
+    /**
+     * Lists the spans of one trace
+     * @param traceId the trace ID
+     * @return the spans of the trace still in memory, newest first
+     */
+    @ReadOperation
+    public List<SpanRecord> trace(@Selector String traceId) {
+        return spanExporter.recentSpans(traceId);
+    }
+}
@@ -0,0 +1,47 @@
+package com.airline;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration test for the Prometheus scrape endpoint
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "management.endpoints.web.exposure.include=health,prometheus",
+        "management.metrics.distribution.percentiles-histogram.http.server.requests=true",
+        "management.metrics.distribution.percentiles-histogram.spring.data.repository.invocations=true"})
+@AutoConfigureObservability(tracing = false)
+class MetricsEndpointTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    /**
+     * Test that endpoint, repository, pool, JVM and cache metrics are exposed after a request
+     */
+    @Test
+    void testPrometheusEndpoint() {
+        restTemplate.getForEntity("/flight/", String.class);
+        restTemplate.getForEntity("/flight/1", String.class);
+
+        ResponseEntity<String> response = restTemplate.getForEntity("/actuator/prometheus", String.class);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        String body = response.getBody();
+        assertNotNull(body);
+        assertTrue(body.contains("http_server_requests_seconds_bucket{"), "endpoint latency histogram");
+        assertTrue(body.contains("uri=\"/flight/\""), "endpoint tag");
+        assertTrue(body.contains("spring_data_repository_invocations_seconds_bucket{"), "repository timings");
+        assertTrue(body.contains("hikaricp_connections_active"), "connection pool gauges");
+        assertTrue(body.contains("jvm_gc_"), "GC metrics");
+        assertTrue(body.contains("cache_gets_total{cache=\"flights\""), "flight cache metrics");
+        assertTrue(body.contains("flight_route_index_flights"), "route index gauges");
+    }
+}
@@ -0,0 +1,173 @@
+package com.airline.cache;
+
+import com.airline.model.Flight;
+import com.airline.model.FlightCacheStats;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the FlightCache class
+ */
+class FlightCacheTest {
+
+    /**
+     * Test that cached flights are returned and counted as hits
+     */
+    @Test
+    void testPutAndGet() {
+        FlightCache cache = new FlightCache(true, 10, Duration.ofMinutes(1));
+        Flight flight = new Flight(1, "AI101", "Delhi", "Mumbai", 5000.00);
+
+        assertNull(cache.getIfPresent(1));
+        cache.put(flight);
+
+        assertEquals(flight, cache.getIfPresent(1));
+        FlightCacheStats stats = cache.stats();
+        assertTrue(stats.isEnabled());
+        assertEquals(1, stats.getHitCount());
+        assertEquals(1, stats.getMissCount());
+        assertEquals(1, stats.getSize());
+    }
+
+    /**
+     * Test that invalidated flights are no longer returned
+     */
+    @Test
+    void testInvalidate() {
+        FlightCache cache = new FlightCache(true, 10, Duration.ofMinutes(1));
+        cache.put(new Flight(1, "AI101", "Delhi", "Mumbai", 5000.00));
+        cache.put(new Flight(2, "SG202", "Mumbai", "Bangalore", 4500.00));
+
+        cache.invalidate(1);
+        assertNull(cache.getIfPresent(1));
+        assertNotNull(cache.getIfPresent(2));
+
+        cache.invalidateAll();
+        assertNull(cache.getIfPresent(2));
+    }
+
+    /**
+     * Test that callers get copies and cannot change the cached flight
+     */
+    @Test
+    void testEntriesAreCopied() {
+        FlightCache cache = new FlightCache(true, 10, Duration.ofMinutes(1));
+        Flight flight = new Flight(1, "AI101", "Delhi", "Mumbai", 5000.00);
+        cache.put(flight);
+
+        flight.setTicketPrice(1.0);
+        cache.getIfPresent(1).setFlightName("changed");
+
+        assertEquals(new Flight(1, "AI101", "Delhi", "Mumbai", 5000.00), cache.getIfPresent(1));
+        assertNotSame(cache.getIfPresent(1), cache.getIfPresent(1));
+    }
+
+    /**
+     * Test that an older version never replaces a newer cached one
+     */
+    @Test
+    void testPutKeepsNewestVersion() {
+        FlightCache cache = new FlightCache(true, 10, Duration.ofMinutes(1));
+        Flight newer = new Flight(1, "AI101", "Delhi", "Mumbai", 6000.00);
+        newer.setVersion(2);
+        Flight older = new Flight(1, "AI101", "Delhi", "Mumbai", 5000.00);
+        older.setVersion(1);
+
+        cache.put(newer);
+        cache.put(older);
+        assertEquals(2, cache.getIfPresent(1).getVersion());
+
+        cache.putLoaded(older, cache.beginLoad(1));
+        assertEquals(6000.00, cache.getIfPresent(1).getTicketPrice());
+    }
+
+    /**
+     * Test that a load is not cached when the flight was invalidated while it ran
+     */
+    @Test
+    void testLoadInvalidatedWhileRunningIsDropped() {
+        FlightCache cache = new FlightCache(true, 10, Duration.ofMinutes(1));
+        Flight loaded = new Flight(1, "AI101", "Delhi", "Mumbai", 5000.00);
+
+        long stamp = cache.beginLoad(1);
+        cache.invalidate(1);
+        cache.putLoaded(loaded, stamp);
+        assertNull(cache.getIfPresent(1));
+
+        stamp = cache.beginLoad(1);
+        cache.invalidateAll();
+        cache.putLoaded(loaded, stamp);
+        assertNull(cache.getIfPresent(1));
+
+        cache.putLoaded(loaded, cache.beginLoad(1));
+        assertEquals(loaded, cache.getIfPresent(1));
+    }
+
+    /**
+     * Test that the cache does not grow past its maximum size
+     */
+    @Test
+    void testSizeEviction() throws InterruptedException {
+        FlightCache cache = new FlightCache(true, 5, Duration.ofMinutes(1));
+        for (int i = 1; i <= 50; i++) {
+            cache.put(new Flight(i, "F" + i, "Delhi", "Mumbai", 1000.0 + i));
+        }
+
+        // eviction runs asynchronously, wait for it to catch up
+        for (int i = 0; i < 250 && cache.stats().getEvictionCount() < 45; i++) {
+            Thread.sleep(20);
+        }
+        FlightCacheStats stats = cache.stats();
+        assertEquals(45, stats.getEvictionCount());
+        assertEquals(5, stats.getSize());
+    }
+
+    /**
+     * Test that a disabled cache never returns anything
+     */
+    @Test
+    void testDisabled() {
+        FlightCache cache = new FlightCache(false, 10, Duration.ofMinutes(1));
+        cache.put(new Flight(1, "AI101", "Delhi", "Mumbai", 5000.00));
+
+        assertFalse(cache.isEnabled());
+        assertNull(cache.getIfPresent(1));
+        assertFalse(cache.stats().isEnabled());
+    }
+
+    /**
+     * Test that the cache counters are published as metrics
+     */
+    @Test
+    void testMetrics() {
+        FlightCache cache = new FlightCache(true, 10, Duration.ofMinutes(1));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        cache.bindTo(registry);
+
+        cache.put(new Flight(1, "AI101", "Delhi", "Mumbai", 5000.00));
+        cache.getIfPresent(1);
+        cache.getIfPresent(2);
+
+        assertEquals(1.0, registry.get("cache.gets").tag("cache", FlightCache.METRICS_NAME)
+                .tag("result", "hit").functionCounter().count());
+        assertEquals(1.0, registry.get("cache.gets").tag("cache", FlightCache.METRICS_NAME)
+                .tag("result", "miss").functionCounter().count());
+    }
+
+    /**
+     * Test that a disabled cache publishes no metrics
+     */
+    @Test
+    void testNoMetricsWhenDisabled() {
+        FlightCache cache = new FlightCache(false, 10, Duration.ofMinutes(1));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+        cache.bindTo(registry);
+
+        assertTrue(registry.getMeters().isEmpty());
+    }
+}
@@ -0,0 +1,295 @@
+package com.airline.cache;
+
+import com.airline.limiter.ConcurrencyLimiter;
+import com.airline.model.Flight;
+import com.airline.model.FlightPatch;
+import com.airline.repository.FlightRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for the FlightRouteIndex class
+ */
+class FlightRouteIndexTest {
+
+    @Mock
+    private FlightRepository flightRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Spy
+    private ConcurrencyLimiter concurrencyLimiter = new ConcurrencyLimiter(true, 4, 4, 4, 0.9, Duration.ofSeconds(1));
+
+    @InjectMocks
+    private FlightRouteIndex rebuiltIndex = new FlightRouteIndex(true);
+
+    private static List<Integer> ids(List<Flight> flights) {
+        return flights.stream().map(Flight::getFlightId).collect(Collectors.toList());
+    }
+
+    private static FlightRouteIndex indexOf(Flight... flights) {
+        FlightRouteIndex index = new FlightRouteIndex(true);
+        index.replaceAll(List.of(flights));
+        return index;
+    }
+
+    /**
+     * Test that lookups are refused until the index is built
+     */
+    @Test
+    void testNotReadyBeforeBuild() {
+        FlightRouteIndex index = new FlightRouteIndex(true);
+
+        assertFalse(index.isReady());
+        assertNull(index.find("Delhi", "Mumbai", 10));
+    }
+
+    /**
+     * Test that a route is returned cheapest first and limited
+     */
+    @Test
+    void testFindSortedByPrice() {
+        FlightRouteIndex index = indexOf(
+                new Flight(1, "AI101", "Delhi", "Mumbai", 5000.0),
+                new Flight(2, "AI102", "Delhi", "Mumbai", 4200.0),
+                new Flight(3, "AI103", "Delhi", "Mumbai", 6100.0),
+                new Flight(4, "SG202", "Mumbai", "Delhi", 1000.0));
+
+        assertTrue(index.isReady());
+        assertEquals(List.of(2, 1, 3), ids(index.find("Delhi", "Mumbai", 10)));
+        assertEquals(List.of(2, 1), ids(index.find("Delhi", "Mumbai", 2)));
+        assertEquals(new Flight(2, "AI102", "Delhi", "Mumbai", 4200.0), index.find("Delhi", "Mumbai", 1).get(0));
+        assertTrue(index.find("Delhi", "Goa", 10).isEmpty());
+    }
+
+    /**
+     * Test that a price change moves the flight inside its route
+     */
+    @Test
+    void testPutReordersRoute() {
+        FlightRouteIndex index = indexOf(
+                new Flight(1, "AI101", "Delhi", "Mumbai", 5000.0),
+                new Flight(2, "AI102", "Delhi", "Mumbai", 4200.0));
+
+        index.put(new Flight(1, "AI101", "Delhi", "Mumbai", 3000.0));
+        index.put(new Flight(3, "AI103", "Delhi", "Mumbai", 4500.0));
+
+        assertEquals(List.of(1, 2, 3), ids(index.find("Delhi", "Mumbai", 10)));
+    }
+
+    /**
+     * Test that a route change moves the flight to its new route
+     */
+    @Test
+    void testPutMovesFlightBetweenRoutes() {
+        FlightRouteIndex index = indexOf(new Flight(1, "AI101", "Delhi", "Mumbai", 5000.0));
+
+        index.put(new Flight(1, "AI101", "Delhi", "Goa", 5000.0));
+
+        assertTrue(index.find("Delhi", "Mumbai", 10).isEmpty());
+        assertEquals(List.of(1), ids(index.find("Delhi", "Goa", 10)));
+    }
+
+    /**
+     * Test that a flight alone on its route is never missing while its price changes
+     */
+    @Test
+    void testRepricedFlightIsNeverMissing() throws Exception {
+        FlightRouteIndex index = indexOf(new Flight(1, "AI101", "Delhi", "Mumbai", 5000.0));
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicInteger misses = new AtomicInteger();
+        Thread reader = new Thread(() -> {
+            while (!done.get()) {
+                if (index.find("Delhi", "Mumbai", 10).isEmpty()) {
+                    misses.incrementAndGet();
+                }
+            }
+        });
+        reader.start();
+
+        for (int i = 1; i <= 20000; i++) {
+            Flight flight = new Flight(1, "AI101", "Delhi", "Mumbai", 5000.0 + i);
+            flight.setVersion(i);
+            index.put(flight);
+        }
+        done.set(true);
+        reader.join();
+
+        assertEquals(0, misses.get());
+        assertEquals(25000.0, index.find("Delhi", "Mumbai", 1).get(0).getTicketPrice());
+    }
+
+    /**
+     * Test that removed flights are no longer returned and flights without a price sort last
+     */
+    @Test
+    void testRemoveAndMissingPrice() {
+        FlightRouteIndex index = indexOf(
+                new Flight(1, "AI101", "Delhi", "Mumbai", null),
+                new Flight(2, "AI102", "Delhi", "Mumbai", 4200.0),
+                new Flight(3, "AI103", "Delhi", "Mumbai", 6100.0));
+
+        index.remove(3);
+        index.remove(42);
+
+        List<Flight> flights = index.find("Delhi", "Mumbai", 10);
+        assertEquals(List.of(2, 1), ids(flights));
+        assertNull(flights.get(1).getTicketPrice());
+    }
+
+    /**
+     * Test that a disabled index is never ready
+     */
+    @Test
+    void testDisabled() {
+        FlightRouteIndex index = new FlightRouteIndex(false);
+        index.replaceAll(List.of(new Flight(1, "AI101", "Delhi", "Mumbai", 5000.0)));
+
+        assertFalse(index.isReady());
+        assertNull(index.find("Delhi", "Mumbai", 10));
+    }
+
+    /**
+     * Test that the gauges follow the contents of the index
+     */
+    @Test
+    void testGauges() {
+        FlightRouteIndex index = new FlightRouteIndex(true);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        index.bindTo(registry);
+
+        assertEquals(0.0, registry.get("flight.route.index.flights").gauge().value());
+        index.replaceAll(List.of(
+                new Flight(1, "AI101", "Delhi", "Mumbai", 5000.0),
+                new Flight(2, "AI102", "Delhi", "Mumbai", 4200.0),
+                new Flight(3, "SG202", "Mumbai", "Delhi", 1000.0)));
+
+        assertEquals(3.0, registry.get("flight.route.index.flights").gauge().value());
+        assertEquals(2.0, registry.get("flight.route.index.routes").gauge().value());
+    }
+
+    /**
+     * Test that a price patch moves the flight inside its route and keeps its other fields
+     */
+    @Test
+    void testPatchReordersRouteAndIncrementsVersion() {
+        FlightRouteIndex index = indexOf(
+                new Flight(1, "AI101", "Delhi", "Mumbai", 5000.0),
+                new Flight(2, "AI102", "Delhi", "Mumbai", 4200.0));
+
+        index.patch(1, new FlightPatch(null, null, null, null, 3000.0));
+
+        List<Flight> route = index.find("Delhi", "Mumbai", 10);
+        assertEquals(List.of(1, 2), ids(route));
+        assertEquals(new Flight(1, "AI101", "Delhi", "Mumbai", 3000.0), route.get(0));
+        assertEquals(1, route.get(0).getVersion());
+
+        index.patch(1, new FlightPatch(null, null, null, "Goa", null));
+        assertEquals(List.of(2), ids(index.find("Delhi", "Mumbai", 10)));
+        assertEquals(List.of(1), ids(index.find("Delhi", "Goa", 10)));
+    }
+
+    /**
+     * Test that airport codes match regardless of case, as they do in the database
+     */
+    @Test
+    void testFindIgnoresCase() {
+        FlightRouteIndex index = indexOf(
+                new Flight(1, "AI101", "Delhi", "Mumbai", 5000.0),
+                new Flight(2, "AI102", "DELHI", "mumbai", 4200.0));
+
+        List<Flight> flights = index.find("delhi", "MUMBAI", 10);
+
+        assertEquals(List.of(2, 1), ids(flights));
+        assertEquals(new Flight(2, "AI102", "DELHI", "mumbai", 4200.0), flights.get(0));
+        assertEquals(new Flight(1, "AI101", "Delhi", "Mumbai", 5000.0), flights.get(1));
+    }
+
+    /**
+     * Test that an older version of a flight does not replace a newer one
+     */
+    @Test
+    void testPutIgnoresOlderVersion() {
+        Flight newer = new Flight(1, "AI101", "Delhi", "Mumbai", 5000.0);
+        newer.setVersion(2);
+        FlightRouteIndex index = indexOf(newer);
+
+        Flight older = new Flight(1, "AI101", "Delhi", "Goa", 4000.0);
+        older.setVersion(1);
+        index.put(older);
+
+        assertEquals(List.of(newer), index.find("Delhi", "Mumbai", 10));
+        assertTrue(index.find("Delhi", "Goa", 10).isEmpty());
+    }
+
+    /**
+     * Test that flights written while the index is rebuilt are read again once it is published
+     */
+    @Test
+    void testWritesDuringRebuildAreReadAgain() {
+        MockitoAnnotations.openMocks(this);
+        Flight stale = new Flight(2, "AI102", "Delhi", "Mumbai", 4200.0);
+        Flight updated = new Flight(2, "AI102", "Delhi", "Mumbai", 3900.0);
+        updated.setVersion(1);
+        // the writes are applied while the snapshot is read, before the new index exists
+        when(flightRepository.streamAll()).thenReturn(Stream.of(
+                new Flight(1, "AI101", "Delhi", "Mumbai", 5000.0), stale,
+                new Flight(3, "AI103", "Delhi", "Mumbai", 6100.0)).peek(flight -> {
+                    if (flight.getFlightId() == 1) {
+                        rebuiltIndex.put(updated);
+                        rebuiltIndex.remove(3);
+                    }
+                }));
+        when(flightRepository.findAllById(Set.of(2, 3))).thenReturn(List.of(updated));
+
+        rebuiltIndex.rebuild();
+
+        List<Flight> flights = rebuiltIndex.find("Delhi", "Mumbai", 10);
+        assertEquals(List.of(2, 1), ids(flights));
+        assertEquals(1, flights.get(0).getVersion());
+    }
+
+    /**
+     * Test that reloading flights is not shed while the database is at its concurrency limit
+     */
+    @Test
+    void testReloadIsNotShed() {
+        MockitoAnnotations.openMocks(this);
+        when(flightRepository.streamAll()).thenReturn(Stream.empty());
+        rebuiltIndex.rebuild();
+        Flight written = new Flight(1, "AI101", "Delhi", "Mumbai", 5000.0);
+        when(flightRepository.findAllById(List.of(1))).thenAnswer(invocation -> {
+            concurrencyLimiter.acquire(ConcurrencyLimiter.Lane.READ);
+            return List.of(written);
+        });
+        for (int i = 0; i < 4; i++) {
+            concurrencyLimiter.acquire(ConcurrencyLimiter.Lane.WRITE);
+        }
+
+        rebuiltIndex.reload(List.of(1));
+
+        assertEquals(List.of(1), ids(rebuiltIndex.find("Delhi", "Mumbai", 10)));
+        assertEquals(0, concurrencyLimiter.getRejectedCount(ConcurrencyLimiter.Lane.READ));
+    }
+}
@@ -0,0 +1,102 @@
+package com.airline.cache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the SingleFlight class
+ */
+class SingleFlightTest {
+
+    private final SingleFlight<Integer, String> singleFlight = new SingleFlight<>();
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(8);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testConcurrentCallersShareOneLoad() throws Exception {
+        // Arrange
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<String> leader = executor.submit(() -> singleFlight.call(1, () -> {
+            loads.incrementAndGet();
+            started.countDown();
+            release.await();
+            return "flight-1";
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        // Act
+        List<Future<String>> followers = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            followers.add(executor.submit(() -> singleFlight.call(1, () -> {
+                loads.incrementAndGet();
+                return "other";
+            })));
+        }
+        // give the followers time to join the running load before it finishes
+        Thread.sleep(200);
+        release.countDown();
+
+        // Assert
+        assertEquals("flight-1", leader.get(5, TimeUnit.SECONDS));
+        for (Future<String> follower : followers) {
+            assertEquals("flight-1", follower.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, loads.get());
+        assertEquals(0, singleFlight.getRunningCount());
+    }
+
+    @Test
+    void testFailureIsSharedAndNotKept() throws Exception {
+        // Arrange
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<String> leader = executor.submit(() -> singleFlight.call(1, () -> {
+            started.countDown();
+            release.await();
+            throw new Exception("No Flight with Id: 1");
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        Future<String> follower = executor.submit(() -> singleFlight.call(1, () -> "other"));
+        Thread.sleep(200);
+
+        // Act
+        release.countDown();
+
+        // Assert
+        Exception leaderError = assertThrows(Exception.class, () -> leader.get(5, TimeUnit.SECONDS));
+        Exception followerError = assertThrows(Exception.class, () -> follower.get(5, TimeUnit.SECONDS));
+        assertEquals("No Flight with Id: 1", leaderError.getCause().getMessage());
+        assertEquals("No Flight with Id: 1", followerError.getCause().getMessage());
+        assertEquals("flight-1", singleFlight.call(1, () -> "flight-1"));
+    }
+
+    @Test
+    void testDifferentKeysLoadSeparately() {
+        // Act
+        String first = singleFlight.load(1, () -> "flight-1");
+        String second = singleFlight.load(2, () -> "flight-2");
+
+        // Assert
+        assertEquals("flight-1", first);
+        assertEquals("flight-2", second);
+        assertEquals(0, singleFlight.getRunningCount());
+    }
+}
@@ -0,0 +1,172 @@
+package com.airline.changes;
+
+import com.airline.model.Flight;
+import com.airline.model.FlightChangePage;
+import com.airline.service.FlightService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration test for the flight change feed over HTTP
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "flight.changes.buffer-size=5"})
+class FlightChangeFeedTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private FlightService flightService;
+
+    @Autowired
+    private FlightChangeLog flightChangeLog;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    private HttpResponse<String> get(String path) throws Exception {
+        return httpClient.send(HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header("Accept", "application/json")
+                .build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    /**
+     * Test that a waiting poll is answered by the next write
+     */
+    @Test
+    void testLongPollReturnsNextChange() throws Exception {
+        long after = flightChangeLog.lastSequence();
+        CompletableFuture<HttpResponse<String>> poll = httpClient.sendAsync(
+                HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/flight/changes?after=" + flightChangeLog.cursor(after) + "&wait=10"))
+                        .header("Accept", "application/json")
+                        .build(), HttpResponse.BodyHandlers.ofString());
+        Thread.sleep(200);
+
+        Flight flight = flightService.addFlight(new Flight(0, "AI101", "Delhi", "Mumbai", 5000.0));
+        HttpResponse<String> response = poll.get(10, TimeUnit.SECONDS);
+
+        assertEquals(200, response.statusCode());
+        FlightChangePage page = objectMapper.readValue(response.body(), FlightChangePage.class);
+        assertEquals(flightChangeLog.cursor(after + 1), page.getNextAfter());
+        assertEquals("CREATED", page.getChanges().get(0).getType().name());
+        assertEquals(flight.getFlightId(), page.getChanges().get(0).getFlightId());
+    }
+
+    /**
+     * Test that a poll without after returns the current position at once
+     */
+    @Test
+    void testPollWithoutAfterReturnsPosition() throws Exception {
+        flightService.addFlight(new Flight(0, "AI102", "Delhi", "Mumbai", 4200.0));
+
+        HttpResponse<String> response = get("/flight/changes");
+
+        assertEquals(200, response.statusCode());
+        FlightChangePage page = objectMapper.readValue(response.body(), FlightChangePage.class);
+        assertTrue(page.getChanges().isEmpty());
+        assertEquals(flightChangeLog.cursor(flightChangeLog.lastSequence()), page.getNextAfter());
+    }
+
+    /**
+     * Test that resuming from a sequence no longer held is answered with 410
+     */
+    @Test
+    void testExpiredSequenceIsGone() throws Exception {
+        for (int i = 0; i < 6; i++) {
+            flightService.addFlight(new Flight(0, "AI20" + i, "Pune", "Goa", 3000.0 + i));
+        }
+
+        assertEquals(410, get("/flight/changes?after=" + flightChangeLog.cursor(0)).statusCode());
+        assertEquals(410, get("/flight/changes?after=" + flightChangeLog.cursor(flightChangeLog.lastSequence() + 1)).statusCode());
+    }
+
+    /**
+     * Test that a cursor of an earlier log, e.g. from before a restart, is answered with 410
+     */
+    @Test
+    void testCursorOfOtherEpochIsGone() throws Exception {
+        flightService.addFlight(new Flight(0, "AI210", "Pune", "Goa", 3100.0));
+        long last = flightChangeLog.lastSequence();
+
+        assertEquals(410, get("/flight/changes?after=other:" + last).statusCode());
+        assertEquals(410, get("/flight/changes?after=" + last).statusCode());
+        assertEquals(200, get("/flight/changes?after=" + flightChangeLog.cursor(last)).statusCode());
+    }
+
+    /**
+     * Test that a malformed cursor is answered with 400
+     */
+    @Test
+    void testMalformedCursorIsBadRequest() throws Exception {
+        assertEquals(400, get("/flight/changes?after=" + flightChangeLog.getEpoch() + ":abc").statusCode());
+    }
+
+    /**
+     * Test that the event stream resumes after Last-Event-ID and then delivers new changes
+     */
+    @Test
+    void testEventStreamResumesAndFollows() throws Exception {
+        Flight flight = flightService.addFlight(new Flight(0, "AI301", "Delhi", "Goa", 6000.0));
+        long resumeAfter = flightChangeLog.lastSequence() - 1;
+
+        HttpResponse<InputStream> response = httpClient.send(
+                HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/flight/changes"))
+                        .header("Accept", "text/event-stream")
+                        .header("Last-Event-ID", flightChangeLog.cursor(resumeAfter))
+                        .timeout(Duration.ofSeconds(10))
+                        .build(), HttpResponse.BodyHandlers.ofInputStream());
+        assertEquals(200, response.statusCode());
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(response.body(), StandardCharsets.UTF_8))) {
+            List<String> first = readEvent(reader);
+            flightService.deleteFlight(flight.getFlightId());
+            List<String> second = readEvent(reader);
+
+            assertTrue(first.contains("id:" + flightChangeLog.cursor(resumeAfter + 1)), first.toString());
+            assertTrue(first.contains("event:CREATED"), first.toString());
+            assertTrue(second.contains("id:" + flightChangeLog.cursor(resumeAfter + 2)), second.toString());
+            assertTrue(second.contains("event:DELETED"), second.toString());
+        }
+    }
+
+    /**
+     * Reads the lines of one event, up to the blank line that ends it
+     */
+    private static List<String> readEvent(BufferedReader reader) throws Exception {
+        List<String> lines = new ArrayList<>();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isEmpty()) {
+                if (!lines.isEmpty()) {
+                    return lines;
+                }
+                continue;
+            }
+            lines.add(line);
+        }
+        fail("stream ended after " + lines);
+        return lines;
+    }
+}
@@ -0,0 +1,104 @@
+package com.airline.changes;
+
+import com.airline.model.Flight;
+import com.airline.model.FlightChange;
+import com.airline.model.FlightPatch;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the FlightChangeLog class
+ */
+class FlightChangeLogTest {
+
+    private static List<Long> sequences(List<FlightChange> changes) {
+        return changes.stream().map(FlightChange::getSequence).collect(Collectors.toList());
+    }
+
+    /**
+     * Test that changes are numbered in order and read back after a sequence
+     */
+    @Test
+    void testAppendAndReadSince() throws Exception {
+        FlightChangeLog log = new FlightChangeLog(10, "");
+        Flight flight = new Flight(1, "AI101", "Delhi", "Mumbai", 5000.0);
+
+        log.append(FlightChange.Type.CREATED, 1, flight, null);
+        log.append(FlightChange.Type.PATCHED, 1, null, new FlightPatch(null, null, null, null, 4800.0));
+        log.append(FlightChange.Type.DELETED, 1, null, null);
+        flight.setTicketPrice(1.0);
+
+        assertEquals(3, log.lastSequence());
+        assertEquals(List.of(1L, 2L, 3L), sequences(log.since(0, 10)));
+        assertEquals(List.of(2L), sequences(log.since(1, 1)));
+        assertTrue(log.since(3, 10).isEmpty());
+        // the log keeps its own copy of the flight
+        assertEquals(5000.0, log.since(0, 1).get(0).getFlight().getTicketPrice());
+    }
+
+    /**
+     * Test that resuming from an overwritten or unknown sequence is refused
+     */
+    @Test
+    void testExpiredSequences() throws Exception {
+        FlightChangeLog log = new FlightChangeLog(3, "");
+        for (int i = 1; i <= 5; i++) {
+            log.append(FlightChange.Type.DELETED, i, null, null);
+        }
+
+        assertEquals(List.of(3L, 4L, 5L), sequences(log.since(2, 10)));
+        assertThrows(FlightChangesExpiredException.class, () -> log.since(1, 10));
+        assertThrows(FlightChangesExpiredException.class, () -> log.since(6, 10));
+    }
+
+    /**
+     * Test that the change file restores the log and its sequence after a restart
+     */
+    @Test
+    void testRestoreFromFile(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("changes.ndjson");
+        FlightChangeLog log = new FlightChangeLog(10, file.toString());
+        log.append(FlightChange.Type.CREATED, 1, new Flight(1, "AI101", "Delhi", "Mumbai", 5000.0), null);
+        log.append(FlightChange.Type.DELETED, 1, null, null);
+        log.close();
+        // a line cut short by a crash is skipped
+        Files.writeString(file, "{\"sequence\":3,\"ty", StandardOpenOption.APPEND);
+
+        FlightChangeLog restored = new FlightChangeLog(10, file.toString());
+        restored.append(FlightChange.Type.DELETED, 2, null, null);
+
+        assertEquals(3, restored.lastSequence());
+        List<FlightChange> changes = restored.since(0, 10);
+        assertEquals(List.of(1L, 2L, 3L), sequences(changes));
+        assertEquals("AI101", changes.get(0).getFlight().getFlightName());
+        assertEquals(2, changes.get(2).getFlightId());
+        // cursors handed out before the restart stay valid
+        assertEquals(log.getEpoch(), restored.getEpoch());
+        assertEquals(2, restored.sequenceOf(log.cursor(2)));
+        restored.close();
+    }
+
+    /**
+     * Test that a log without a change file starts a new epoch and refuses cursors of other epochs
+     */
+    @Test
+    void testCursorsCarryTheEpoch() throws Exception {
+        FlightChangeLog log = new FlightChangeLog(10, "");
+        FlightChangeLog restarted = new FlightChangeLog(10, "");
+        log.append(FlightChange.Type.DELETED, 1, null, null);
+
+        assertNotEquals(log.getEpoch(), restarted.getEpoch());
+        assertEquals(1, log.sequenceOf(log.cursor(1)));
+        assertThrows(FlightChangesExpiredException.class, () -> restarted.sequenceOf(log.cursor(1)));
+        assertThrows(FlightChangesExpiredException.class, () -> log.sequenceOf("1"));
+        assertThrows(IllegalArgumentException.class, () -> log.sequenceOf(log.getEpoch() + ":x"));
+    }
+}
@@ -0,0 +1,32 @@
+package com.airline.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the VirtualThreadConfig class
+ */
+class VirtualThreadConfigTest {
+
+    /**
+     * Test that tasks run on virtual threads on Java 21, and that older JVMs fail fast
+     */
+    @Test
+    void testNewVirtualThreadPerTaskExecutor() throws Exception {
+        if (Runtime.version().feature() < 21) {
+            assertThrows(IllegalStateException.class, VirtualThreadConfig::newVirtualThreadPerTaskExecutor);
+            return;
+        }
+        ExecutorService executor = VirtualThreadConfig.newVirtualThreadPerTaskExecutor();
+        try {
+            Boolean virtual = executor.submit(() ->
+                    (Boolean) Thread.class.getMethod("isVirtual").invoke(Thread.currentThread())).get();
+            assertTrue(virtual);
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
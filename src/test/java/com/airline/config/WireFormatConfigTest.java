@@ -0,0 +1,152 @@
+package com.airline.config;
+
+import com.airline.model.Flight;
+import com.airline.service.FlightService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration test for the binary encodings and compression of the flight responses
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        // as in the main application.properties, which the test configuration replaces
+        "server.compression.enabled=true",
+        "server.compression.mime-types=application/json,application/x-jackson-smile,application/cbor",
+        "server.compression.min-response-size=2KB"})
+class WireFormatConfigTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private FlightService flightService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    /**
+     * Seeded once for the class, the context and its database are shared by the tests
+     */
+    private static Flight flight;
+
+    @BeforeEach
+    void setUp() {
+        if (flight == null) {
+            List<Flight> flights = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                flights.add(new Flight(0, "AI" + (100 + i), "Delhi", "Mumbai", 4000.0 + i));
+            }
+            flightService.addFlights(flights);
+            flight = flightService.addFlight(new Flight(0, "SG202", "Mumbai", "Delhi", 4500.0));
+        }
+    }
+
+    private HttpResponse<byte[]> get(String path, String accept, String acceptEncoding) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header("Accept", accept);
+        if (acceptEncoding != null) {
+            request.header("Accept-Encoding", acceptEncoding);
+        }
+        return httpClient.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    /**
+     * Test that the flight list is served in Smile and CBOR with the same content as in JSON
+     */
+    @Test
+    void testFlightListInBinaryFormats() throws Exception {
+        HttpResponse<byte[]> json = get("/flight/", "application/json", null);
+        HttpResponse<byte[]> smile = get("/flight/", WireFormatConfig.APPLICATION_SMILE, null);
+        HttpResponse<byte[]> cbor = get("/flight/", WireFormatConfig.APPLICATION_CBOR, null);
+
+        JsonNode expected = objectMapper.readTree(json.body());
+        assertTrue(expected.size() > 100);
+        assertEquals(WireFormatConfig.APPLICATION_SMILE, smile.headers().firstValue("Content-Type").orElseThrow());
+        assertEquals(expected, new SmileMapper().readTree(smile.body()));
+        assertEquals(WireFormatConfig.APPLICATION_CBOR, cbor.headers().firstValue("Content-Type").orElseThrow());
+        assertEquals(expected, new CBORMapper().readTree(cbor.body()));
+        assertTrue(smile.body().length < json.body().length);
+        assertTrue(cbor.body().length < json.body().length);
+    }
+
+    /**
+     * Test that JSON stays the default and single flights are negotiated as well
+     */
+    @Test
+    void testJsonIsDefault() throws Exception {
+        HttpResponse<byte[]> any = get("/flight/" + flight.getFlightId(), "*/*", null);
+        HttpResponse<byte[]> smile = get("/flight/" + flight.getFlightId(), WireFormatConfig.APPLICATION_SMILE, null);
+
+        assertTrue(any.headers().firstValue("Content-Type").orElseThrow().startsWith("application/json"));
+        assertEquals(flight, objectMapper.readValue(any.body(), Flight.class));
+        assertEquals(flight, new SmileMapper().readValue(smile.body(), Flight.class));
+    }
+
+    /**
+     * Test that each encoding of a flight has its own ETag, so a cached JSON body is never
+     * confirmed for a Smile request
+     */
+    @Test
+    void testFlightETagDependsOnEncoding() throws Exception {
+        String path = "/flight/" + flight.getFlightId();
+        HttpResponse<byte[]> json = get(path, "application/json", null);
+        HttpResponse<byte[]> smile = get(path, WireFormatConfig.APPLICATION_SMILE, null);
+        HttpResponse<byte[]> cbor = get(path, "application/json;q=0.5, " + WireFormatConfig.APPLICATION_CBOR, null);
+        String jsonETag = json.headers().firstValue("ETag").orElseThrow();
+        String smileETag = smile.headers().firstValue("ETag").orElseThrow();
+
+        assertEquals("\"" + flight.getVersion() + "\"", jsonETag);
+        assertEquals("\"" + flight.getVersion() + "-smile\"", smileETag);
+        assertEquals("\"" + flight.getVersion() + "-cbor\"", cbor.headers().firstValue("ETag").orElseThrow());
+        assertEquals(WireFormatConfig.APPLICATION_CBOR, cbor.headers().firstValue("Content-Type").orElseThrow());
+        assertTrue(smile.headers().allValues("Vary").stream().anyMatch(vary -> vary.contains("Accept")));
+
+        HttpRequest.Builder conditional = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .header("Accept", WireFormatConfig.APPLICATION_SMILE);
+        assertEquals(200, httpClient.send(conditional.copy().header("If-None-Match", jsonETag).build(),
+                HttpResponse.BodyHandlers.discarding()).statusCode());
+        assertEquals(304, httpClient.send(conditional.copy().header("If-None-Match", smileETag).build(),
+                HttpResponse.BodyHandlers.discarding()).statusCode());
+    }
+
+    /**
+     * Test that large responses are gzipped when the client accepts it
+     */
+    @Test
+    void testLargeResponsesAreCompressed() throws Exception {
+        HttpResponse<byte[]> plain = get("/flight/", "application/json", null);
+        HttpResponse<byte[]> gzipped = get("/flight/", "application/json", "gzip");
+
+        assertTrue(plain.headers().firstValue("Content-Encoding").isEmpty());
+        assertEquals("gzip", gzipped.headers().firstValue("Content-Encoding").orElseThrow());
+        assertTrue(gzipped.body().length < plain.body().length);
+        assertArrayEquals(plain.body(), gunzip(gzipped.body()));
+    }
+
+    private static byte[] gunzip(byte[] body) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            return in.readAllBytes();
+        }
+    }
+}
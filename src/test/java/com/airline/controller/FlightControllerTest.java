@@ -1,29 +1,63 @@
 package com.airline.controller;
 
+import com.airline.limiter.ConcurrencyLimitExceededException;
+import com.airline.limiter.ConcurrencyLimiter;
+import com.airline.model.BulkItemResult;
+import com.airline.model.BulkResult;
 import com.airline.model.Flight;
+import com.airline.model.FlightListResponse;
+import com.airline.model.FlightListVersion;
+import com.airline.model.FlightPage;
+import com.airline.model.FlightPatch;
 import com.airline.model.FlightWithIP;
+import com.airline.node.NodeIdentity;
 import com.airline.service.FlightService;
+import com.fasterxml.jackson.databind.ObjectMapper;
         import org.junit.jupiter.api.BeforeEach;
         import org.junit.jupiter.api.Test;
         import org.mockito.InjectMocks;
         import org.mockito.Mock;
         import org.mockito.MockitoAnnotations;
+        import org.mockito.Spy;
+        import org.springframework.dao.OptimisticLockingFailureException;
+        import org.springframework.data.domain.Sort;
         import org.springframework.http.HttpStatus;
         import org.springframework.http.ResponseEntity;
+        import org.springframework.mock.web.MockHttpServletResponse;
+        import org.springframework.test.web.servlet.MockMvc;
+        import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
-import java.net.UnknownHostException;
+import java.io.IOException;
+import java.time.Duration;
 import java.util.Arrays;
         import java.util.List;
+        import java.util.function.Consumer;
 
         import static org.junit.jupiter.api.Assertions.assertEquals;
         import static org.junit.jupiter.api.Assertions.assertNotNull;
+        import static org.junit.jupiter.api.Assertions.assertTrue;
+        import static org.mockito.ArgumentMatchers.any;
         import static org.mockito.Mockito.*;
+        import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+        import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+        import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+        import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+        import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+        import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+        import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+        import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 class FlightControllerTest {
 
     @Mock
     private FlightService flightService;
 
+    @Mock
+    private NodeIdentity nodeIdentity;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
     @InjectMocks
     private FlightController flightController;
 
@@ -46,17 +80,19 @@ class FlightControllerTest {
     }
 
     @Test
-    void testGetAllFlight() throws UnknownHostException {
+    void testGetAllFlight() {
         // Create test flights
         Flight flight1 = new Flight(1, "Flight1", "Source1", "Destination1", 100.0);
         Flight flight2 = new Flight(2, "Flight2", "Source2", "Destination2", 200.0);
         List<Flight> flights = Arrays.asList(flight1, flight2);
         
-        // Mock the service method
+        // Mock the service method and the node identity
         when(flightService.getAllFlight()).thenReturn(flights);
+        when(flightService.getFlightListVersion()).thenReturn(new FlightListVersion(2, 2));
+        when(nodeIdentity.getServerIP()).thenReturn("10.0.0.1");
         
         // Call the controller method
-        ResponseEntity<List<FlightWithIP>> response = flightController.getAllFlight();
+        ResponseEntity<List<FlightWithIP>> response = flightController.getAllFlight(null);
         
         // Verify the response
         assertEquals(HttpStatus.OK, response.getStatusCode());
@@ -64,9 +100,11 @@ class FlightControllerTest {
         assertEquals(2, response.getBody().size());
         assertEquals(flight1, response.getBody().get(0).getFlight());
         assertEquals(flight2, response.getBody().get(1).getFlight());
+        assertEquals("10.0.0.1", response.getBody().get(0).getServerIP());
         
         // Verify service method was called
         verify(flightService, times(1)).getAllFlight();
+        verify(flightService, times(1)).getFlightListVersion();
         verifyNoMoreInteractions(flightService);
     }
 
@@ -77,10 +115,11 @@ class FlightControllerTest {
         flight.setFlightId(flightId); // Assuming Flight class has setFlightId or an equivalent constructor
         when(flightService.getFlight(flightId)).thenReturn(flight);
 
-        ResponseEntity<Flight> response = flightController.getFlight(flightId);
+        ResponseEntity<Flight> response = flightController.getFlight(flightId, null);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(flight, response.getBody());
+        assertEquals("\"0\"", response.getHeaders().getETag());
         verify(flightService, times(1)).getFlight(flightId);
         verifyNoMoreInteractions(flightService);
     }
@@ -89,7 +128,7 @@ class FlightControllerTest {
     void testDeleteFlight() {
         int flightId = 1;
 
-        ResponseEntity<String> response = flightController.deleteFlight(flightId);
+        ResponseEntity<String> response = flightController.deleteFlight(flightId, null);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals("Flight ID: " + flightId, response.getBody());
@@ -104,11 +143,305 @@ class FlightControllerTest {
         flight.setFlightId(flightId); // Ensure Flight class has setFlightId or use a constructor
         when(flightService.updateFlight(flightId, flight)).thenReturn(flight);
 
-        ResponseEntity<Flight> response = flightController.updateFlight(flightId, flight);
+        ResponseEntity<Flight> response = flightController.updateFlight(flightId, flight, null);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(flight, response.getBody());
         verify(flightService, times(1)).updateFlight(flightId, flight);
         verifyNoMoreInteractions(flightService);
     }
-}
\ No newline at end of file
+
+    @Test
+    void testGetFlightPage() {
+        Flight flight = new Flight(1, "Flight1", "Source1", "Destination1", 100.0);
+        FlightPage page = new FlightPage(List.of(flight), "next");
+        when(flightService.getFlightPage(null, 10)).thenReturn(page);
+
+        ResponseEntity<FlightPage> response = flightController.getFlightPage(null, 10);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(page, response.getBody());
+        verify(flightService, times(1)).getFlightPage(null, 10);
+        verifyNoMoreInteractions(flightService);
+    }
+
+    @Test
+    void testHandleBadRequest() {
+        ResponseEntity<String> response = flightController.handleBadRequest(new IllegalArgumentException("Invalid cursor: x"));
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals("Invalid cursor: x", response.getBody());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testExportFlights() throws IOException {
+        Flight flight1 = new Flight(1, "Flight1", "Source1", "Destination1", 100.0);
+        Flight flight2 = new Flight(2, "Flight2", "Source2", "Destination2", 200.0);
+        when(flightService.exportFlights(any())).thenAnswer(invocation -> {
+            Consumer<Flight> sink = invocation.getArgument(0);
+            sink.accept(flight1);
+            sink.accept(flight2);
+            return 2L;
+        });
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        flightController.exportFlights(response);
+
+        assertEquals(FlightController.APPLICATION_NDJSON, response.getContentType());
+        String[] lines = response.getContentAsString().split("\n");
+        assertEquals(2, lines.length);
+        assertEquals(flight1, objectMapper.readValue(lines[0], Flight.class));
+        assertEquals(flight2, objectMapper.readValue(lines[1], Flight.class));
+        assertTrue(response.getContentAsString().endsWith("\n"));
+        verify(flightService, times(1)).exportFlights(any());
+        verifyNoMoreInteractions(flightService);
+    }
+
+    @Test
+    void testAddFlights() {
+        List<Flight> flights = List.of(new Flight(0, "Flight1", "Source1", "Destination1", 100.0));
+        BulkResult result = BulkResult.of(List.of(new BulkItemResult(0, 1, true, null)));
+        when(flightService.addFlights(flights)).thenReturn(result);
+
+        ResponseEntity<BulkResult> response = flightController.addFlights(flights);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(result, response.getBody());
+        verify(flightService, times(1)).addFlights(flights);
+        verifyNoMoreInteractions(flightService);
+    }
+
+    @Test
+    void testUpdateFlights() {
+        List<Flight> flights = List.of(new Flight(1, "Flight1", "Source1", "Destination1", 100.0));
+        BulkResult result = BulkResult.of(List.of(new BulkItemResult(0, 1, true, null)));
+        when(flightService.updateFlights(flights)).thenReturn(result);
+
+        ResponseEntity<BulkResult> response = flightController.updateFlights(flights);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(result, response.getBody());
+        verify(flightService, times(1)).updateFlights(flights);
+        verifyNoMoreInteractions(flightService);
+    }
+
+    @Test
+    void testDeleteFlights() {
+        List<Integer> flightIds = List.of(1, 2);
+        BulkResult result = BulkResult.of(List.of(new BulkItemResult(0, 1, true, null),
+                new BulkItemResult(1, 2, false, "No Flight with Id: 2")));
+        when(flightService.deleteFlights(flightIds)).thenReturn(result);
+
+        ResponseEntity<BulkResult> response = flightController.deleteFlights(flightIds);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(1, response.getBody().getFailed());
+        verify(flightService, times(1)).deleteFlights(flightIds);
+        verifyNoMoreInteractions(flightService);
+    }
+
+    @Test
+    void testSearchFlights() {
+        List<Flight> flights = List.of(new Flight(1, "Flight1", "Delhi", "Mumbai", 100.0));
+        when(flightService.searchFlights("Delhi", "Mumbai", null, 500.0, Sort.Direction.DESC, 5)).thenReturn(flights);
+
+        ResponseEntity<List<Flight>> response = flightController.searchFlights("Delhi", "Mumbai", null, 500.0, "desc", 5);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(flights, response.getBody());
+        verify(flightService, times(1)).searchFlights("Delhi", "Mumbai", null, 500.0, Sort.Direction.DESC, 5);
+        verifyNoMoreInteractions(flightService);
+    }
+
+    @Test
+    void testGetRouteFlights() {
+        List<Flight> flights = List.of(new Flight(1, "Flight1", "Delhi", "Mumbai", 100.0));
+        when(flightService.getRouteFlights("Delhi", "Mumbai", 0)).thenReturn(flights);
+
+        ResponseEntity<List<Flight>> response = flightController.getRouteFlights("Delhi", "Mumbai", 0);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(flights, response.getBody());
+        verify(flightService, times(1)).getRouteFlights("Delhi", "Mumbai", 0);
+        verifyNoMoreInteractions(flightService);
+    }
+
+    @Test
+    void testGetAllFlightV2() {
+        Flight flight1 = new Flight(1, "Flight1", "Source1", "Destination1", 100.0);
+        Flight flight2 = new Flight(2, "Flight2", "Source2", "Destination2", 200.0);
+        when(flightService.getAllFlight()).thenReturn(Arrays.asList(flight1, flight2));
+        when(flightService.getFlightListVersion()).thenReturn(new FlightListVersion(2, 2));
+        when(nodeIdentity.getServerIP()).thenReturn("10.0.0.1");
+        when(nodeIdentity.getHostName()).thenReturn("node-1");
+
+        ResponseEntity<FlightListResponse> response = flightController.getAllFlightV2(null);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(2, response.getBody().getCount());
+        assertEquals(Arrays.asList(flight1, flight2), response.getBody().getFlights());
+        assertEquals("10.0.0.1", response.getBody().getNode().getServerIP());
+        assertEquals("node-1", response.getBody().getNode().getHostName());
+    }
+
+    @Test
+    void testGetAllFlightVersionNegotiation() throws Exception {
+        when(flightService.getAllFlight()).thenReturn(List.of(new Flight(1, "Flight1", "Source1", "Destination1", 100.0)));
+        when(flightService.getFlightListVersion()).thenReturn(new FlightListVersion(1, 1));
+        when(nodeIdentity.getServerIP()).thenReturn("10.0.0.1");
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(flightController).build();
+
+        // existing clients keep the per flight format, including the default Accept header of RestTemplate
+        mockMvc.perform(get("/flight/"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].serverIP").value("10.0.0.1"));
+        mockMvc.perform(get("/flight/").header("Accept", "text/plain, application/json, application/*+json, */*"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].serverIP").value("10.0.0.1"));
+
+        mockMvc.perform(get("/flight/").accept(FlightController.FLIGHT_LIST_V2_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(FlightController.FLIGHT_LIST_V2_JSON))
+                .andExpect(jsonPath("$.node.serverIP").value("10.0.0.1"))
+                .andExpect(jsonPath("$.flights[0].flightId").value(1));
+
+        mockMvc.perform(get("/flight/").header(FlightController.API_VERSION_HEADER, "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.count").value(1))
+                .andExpect(jsonPath("$.flights[0].serverIP").doesNotExist());
+    }
+
+    @Test
+    void testGetFlightNotModified() throws Exception {
+        Flight flight = new Flight(1, "Flight1", "Source1", "Destination1", 100.0);
+        flight.setVersion(3);
+        when(flightService.getFlight(1)).thenReturn(flight);
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(flightController).build();
+
+        mockMvc.perform(get("/flight/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"3\""));
+        mockMvc.perform(get("/flight/1").header("If-None-Match", "\"3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        mockMvc.perform(get("/flight/1").header("If-None-Match", "\"2\""))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void testGetAllFlightNotModified() throws Exception {
+        when(flightService.getFlightListVersion()).thenReturn(new FlightListVersion(1, 1));
+        when(flightService.getAllFlight()).thenReturn(List.of(new Flight(1, "Flight1", "Source1", "Destination1", 100.0)));
+        when(nodeIdentity.getServerIP()).thenReturn("10.0.0.1");
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(flightController).build();
+
+        String eTag = mockMvc.perform(get("/flight/"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        mockMvc.perform(get("/flight/").header("If-None-Match", eTag))
+                .andExpect(status().isNotModified());
+
+        // the flights are only loaded for the first request
+        verify(flightService, times(1)).getAllFlight();
+        verify(flightService, times(2)).getFlightListVersion();
+
+        // the version 2 format has its own ETag
+        mockMvc.perform(get("/flight/").accept(FlightController.FLIGHT_LIST_V2_JSON).header("If-None-Match", eTag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void testUpdateFlightIfMatch() throws Exception {
+        Flight updated = new Flight(1, "Flight1", "Source1", "Destination1", 150.0);
+        updated.setVersion(4);
+        when(flightService.updateFlight(eq(1), any(Flight.class), eq(3L))).thenReturn(updated);
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(flightController).build();
+
+        mockMvc.perform(put("/flight/1").header("If-Match", "\"3\"")
+                        .contentType("application/json")
+                        .content("{\"flightName\":\"Flight1\",\"source\":\"Source1\",\"destination\":\"Destination1\",\"ticketPrice\":150.0}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"4\""));
+        verify(flightService, never()).updateFlight(anyInt(), any(Flight.class));
+    }
+
+    @Test
+    void testUpdateFlightIfMatchConflict() throws Exception {
+        when(flightService.updateFlight(eq(1), any(Flight.class), eq(2L)))
+                .thenThrow(new OptimisticLockingFailureException("Flight with Id: 1 is no longer at version 2"));
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(flightController).build();
+
+        mockMvc.perform(put("/flight/1").header("If-Match", "\"2\"")
+                        .contentType("application/json")
+                        .content("{\"flightName\":\"Flight1\"}"))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(put("/flight/1").header("If-Match", "W/\"2\"")
+                        .contentType("application/json")
+                        .content("{\"flightName\":\"Flight1\"}"))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(put("/flight/1").header("If-Match", "\"a\", \"b\"")
+                        .contentType("application/json")
+                        .content("{\"flightName\":\"Flight1\"}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testDeleteFlightIfMatch() throws Exception {
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(flightController).build();
+
+        mockMvc.perform(delete("/flight/1").header("If-Match", "\"5\""))
+                .andExpect(status().isOk());
+        mockMvc.perform(delete("/flight/2").header("If-Match", "*"))
+                .andExpect(status().isOk());
+        // the ETag of a flight read as Smile names the same version
+        mockMvc.perform(delete("/flight/3").header("If-Match", "\"7-smile\""))
+                .andExpect(status().isOk());
+
+        verify(flightService, times(1)).deleteFlight(1, 5L);
+        verify(flightService, times(1)).deleteFlight(2);
+        verify(flightService, times(1)).deleteFlight(3, 7L);
+    }
+
+    @Test
+    void testPatchFlight() throws Exception {
+        FlightPatch patch = new FlightPatch(null, null, null, null, 4999.0);
+        when(flightService.patchFlight(1, patch, 3L)).thenReturn(4L);
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(flightController).build();
+
+        mockMvc.perform(patch("/flight/1").contentType("application/json").content("{\"ticketPrice\":4999.0}"))
+                .andExpect(status().isNoContent())
+                .andExpect(header().doesNotExist("ETag"));
+        mockMvc.perform(patch("/flight/1").header("If-Match", "\"3\"")
+                        .contentType("application/merge-patch+json").content("{\"ticketPrice\":4999.0}"))
+                .andExpect(status().isNoContent())
+                .andExpect(header().string("ETag", "\"4\""));
+
+        verify(flightService, times(1)).patchFlight(1, patch);
+        verify(flightService, times(1)).patchFlight(1, patch, 3L);
+    }
+
+    @Test
+    void testPatchFlights() {
+        List<FlightPatch> patches = List.of(new FlightPatch(1, null, null, null, 4999.0));
+        BulkResult result = new BulkResult(1, 0, List.of(new BulkItemResult(0, 1, true, null)));
+        when(flightService.patchFlights(patches)).thenReturn(result);
+
+        ResponseEntity<BulkResult> response = flightController.patchFlights(patches);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(result, response.getBody());
+        verify(flightService, times(1)).patchFlights(patches);
+    }
+
+    @Test
+    void testGetFlight_RejectedWhenOverloaded() throws Exception {
+        when(flightService.getFlight(1)).thenThrow(new ConcurrencyLimitExceededException(
+                ConcurrencyLimiter.Lane.READ, 9, Duration.ofMillis(1500)));
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(flightController).build();
+
+        mockMvc.perform(get("/flight/1"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "2"));
+    }
+}
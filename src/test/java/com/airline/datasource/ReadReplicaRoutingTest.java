@@ -0,0 +1,141 @@
+package com.airline.datasource;
+
+import com.airline.model.Flight;
+import com.airline.service.FlightService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration test for read/write splitting, with two in-memory H2 databases standing in for the
+ * primary and a replica and a second replica that cannot be reached.
+ * Nothing replicates between them, so a row only found in the replica shows that a read went there.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=" + ReadReplicaRoutingTest.PRIMARY_URL,
+        "flight.datasource.replica-urls=" + ReadReplicaRoutingTest.REPLICA_URL + ",jdbc:h2:tcp://127.0.0.1:1/missing",
+        "flight.datasource.replica-connection-timeout=PT0.5S",
+        "jdbc.excluded-data-source-bean-names=readWriteDataSource",
+        "flight.cache.enabled=false"})
+class ReadReplicaRoutingTest {
+
+    static final String PRIMARY_URL = "jdbc:h2:mem:primary;DB_CLOSE_DELAY=-1";
+
+    static final String REPLICA_URL = "jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1;INIT=RUNSCRIPT FROM 'classpath:replica-schema.sql'";
+
+    private static final int REPLICA_ONLY_ID = 1000;
+
+    @Autowired
+    private FlightService flightService;
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Autowired
+    private ReplicaHealthChecker replicaHealthChecker;
+
+    private final JdbcTemplate primary = new JdbcTemplate(new DriverManagerDataSource(PRIMARY_URL, "sa", ""));
+
+    private final JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+
+    @BeforeEach
+    void setUp() {
+        replica.update("MERGE INTO flight (flight_id, flight_name, source, destination, ticket_price, version) "
+                + "KEY (flight_id) VALUES (?, 'REPLICA', 'DEL', 'BOM', 4500, 0)", REPLICA_ONLY_ID);
+        replicaHealthChecker.checkReplicas();
+    }
+
+    /**
+     * Test that read-only transactions are served by the replica
+     */
+    @Test
+    void testReadsGoToReplica() throws Exception {
+        // Act
+        Flight flight = flightService.getFlight(REPLICA_ONLY_ID);
+        List<Flight> flights = flightService.getAllFlight();
+
+        // Assert
+        assertEquals("REPLICA", flight.getFlightName());
+        assertTrue(flights.stream().anyMatch(f -> f.getFlightId() == REPLICA_ONLY_ID));
+    }
+
+    /**
+     * Test that writes go to the primary only
+     */
+    @Test
+    void testWritesGoToPrimary() {
+        // Act
+        Flight saved = flightService.addFlight(new Flight(0, "PRIMARY", "BLR", "MAA", 3100.0));
+
+        // Assert
+        assertEquals(1, primary.queryForObject("SELECT COUNT(*) FROM flight WHERE flight_id = ?",
+                Integer.class, saved.getFlightId()));
+        assertEquals(0, replica.queryForObject("SELECT COUNT(*) FROM flight WHERE flight_name = 'PRIMARY'",
+                Integer.class));
+    }
+
+    /**
+     * Test that a flight just written is read back from the primary while other reads stay on the replica
+     */
+    @Test
+    void testRecentlyWrittenFlightIsReadFromPrimary() throws Exception {
+        // Arrange
+        Flight saved = flightService.addFlight(new Flight(0, "RECENT", "BLR", "MAA", 3100.0));
+
+        // Act
+        Flight flight = flightService.getFlight(saved.getFlightId());
+        List<Flight> flights = flightService.getAllFlight();
+
+        // Assert
+        assertEquals("RECENT", flight.getFlightName());
+        assertTrue(flights.stream().anyMatch(f -> f.getFlightId() == REPLICA_ONLY_ID));
+    }
+
+    /**
+     * Test that the unreachable replica is taken out of rotation and reported as down
+     */
+    @Test
+    void testUnreachableReplicaIsReportedDown() {
+        // Act
+        Health health = replicaHealthChecker.health();
+
+        // Assert
+        assertEquals(Status.UP, health.getStatus());
+        assertEquals("UP", health.getDetails().get("replica-1"));
+        assertEquals("DOWN", health.getDetails().get("replica-2"));
+        assertEquals(false, health.getDetails().get("readsOnPrimary"));
+    }
+
+    /**
+     * Test that reads fall back to the primary without a healthy replica, and return to the
+     * replica once it passes a check again
+     */
+    @Test
+    void testReadsFallBackToPrimary() throws Exception {
+        // Arrange
+        ReplicaRoutingDataSource routing = applicationContext.getBean("replicaRoutingDataSource", DataSource.class)
+                .unwrap(ReplicaRoutingDataSource.class);
+        routing.markDown("replica-1", new SQLException("test"));
+
+        // Act
+        List<Flight> onPrimary = flightService.getAllFlight();
+        replicaHealthChecker.checkReplicas();
+        List<Flight> onReplica = flightService.getAllFlight();
+
+        // Assert
+        assertTrue(onPrimary.stream().noneMatch(f -> f.getFlightId() == REPLICA_ONLY_ID));
+        assertTrue(onReplica.stream().anyMatch(f -> f.getFlightId() == REPLICA_ONLY_ID));
+    }
+}
@@ -0,0 +1,79 @@
+package com.airline.datasource;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the ReplicaLagWindow class
+ */
+class ReplicaLagWindowTest {
+
+    @Test
+    void testOnlyChangedFlightsLag() {
+        // Arrange
+        ReplicaLagWindow window = new ReplicaLagWindow(Duration.ofMinutes(1));
+
+        // Act
+        window.markChanged(List.of(1, 2));
+
+        // Assert
+        assertTrue(window.isLagging(1));
+        assertTrue(window.isLagging(2));
+        assertFalse(window.isLagging(3));
+    }
+
+    @Test
+    void testFlightsStopLaggingAfterMaxLag() throws Exception {
+        // Arrange
+        ReplicaLagWindow window = new ReplicaLagWindow(Duration.ofMillis(20));
+        window.markChanged(List.of(1));
+
+        // Act
+        Thread.sleep(50);
+
+        // Assert
+        assertFalse(window.isLagging(1));
+    }
+
+    @Test
+    void testMissedChangesMakeEveryFlightLag() {
+        // Arrange
+        ReplicaLagWindow window = new ReplicaLagWindow(Duration.ofMinutes(1));
+
+        // Act
+        window.markAllChanged();
+
+        // Assert
+        assertTrue(window.isLagging(42));
+    }
+
+    @Test
+    void testZeroMaxLagNeverLags() {
+        // Arrange
+        ReplicaLagWindow window = new ReplicaLagWindow(Duration.ZERO);
+
+        // Act
+        window.markChanged(List.of(1));
+        window.markAllChanged();
+
+        // Assert
+        assertFalse(window.isLagging(1));
+    }
+
+    @Test
+    void testPrimaryIsRequestedOnlyInsideOnPrimary() throws Exception {
+        // Arrange
+        ReplicaLagWindow window = new ReplicaLagWindow(Duration.ofMinutes(1));
+
+        // Act
+        boolean inside = window.onPrimary(() -> window.onPrimary(window::isPrimaryRequested));
+
+        // Assert
+        assertTrue(inside);
+        assertFalse(window.isPrimaryRequested());
+    }
+}
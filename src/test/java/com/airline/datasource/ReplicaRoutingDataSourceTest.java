@@ -0,0 +1,112 @@
+package com.airline.datasource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for the ReplicaRoutingDataSource class
+ */
+class ReplicaRoutingDataSourceTest {
+
+    @Mock
+    private DataSource primary;
+
+    @Mock
+    private DataSource replica1;
+
+    @Mock
+    private DataSource replica2;
+
+    private ReplicaRoutingDataSource routing;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        replicas.put("replica-1", replica1);
+        replicas.put("replica-2", replica2);
+        routing = new ReplicaRoutingDataSource(primary, replicas);
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+
+    @Test
+    void testReadOnlyTransactionsAreSpreadOverReplicas() {
+        // Arrange
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        // Act & Assert
+        assertEquals("replica-1", routing.determineCurrentLookupKey());
+        assertEquals("replica-2", routing.determineCurrentLookupKey());
+        assertEquals("replica-1", routing.determineCurrentLookupKey());
+    }
+
+    @Test
+    void testWritesGoToPrimary() {
+        // Act & Assert
+        assertEquals(ReplicaRoutingDataSource.PRIMARY, routing.determineCurrentLookupKey());
+    }
+
+    @Test
+    void testFailingReplicaFallsBackToPrimary() throws Exception {
+        // Arrange
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        Connection connection = mock(Connection.class);
+        when(replica1.getConnection()).thenThrow(new SQLException("Connection refused"));
+        when(primary.getConnection()).thenReturn(connection);
+
+        // Act
+        Connection opened = routing.getConnection();
+
+        // Assert
+        assertSame(connection, opened);
+        assertFalse(routing.isHealthy("replica-1"));
+        assertEquals("replica-2", routing.determineCurrentLookupKey());
+    }
+
+    @Test
+    void testReadsGoToPrimaryWithoutHealthyReplica() {
+        // Arrange
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        routing.markDown("replica-1", new SQLException("down"));
+        routing.markDown("replica-2", new SQLException("down"));
+
+        // Act & Assert
+        assertEquals(ReplicaRoutingDataSource.PRIMARY, routing.determineCurrentLookupKey());
+        routing.markUp("replica-2");
+        assertEquals("replica-2", routing.determineCurrentLookupKey());
+    }
+
+    @Test
+    void testReadsAskingForPrimaryGoToPrimary() throws Exception {
+        // Arrange
+        ReplicaLagWindow lagWindow = new ReplicaLagWindow(Duration.ofMinutes(1));
+        ReplicaRoutingDataSource lagging = new ReplicaRoutingDataSource(primary, Map.of("replica-1", replica1), lagWindow);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        // Act
+        String onPrimary = lagWindow.onPrimary(lagging::determineCurrentLookupKey);
+        String other = lagging.determineCurrentLookupKey();
+
+        // Assert
+        assertEquals(ReplicaRoutingDataSource.PRIMARY, onPrimary);
+        assertEquals("replica-1", other);
+    }
+}
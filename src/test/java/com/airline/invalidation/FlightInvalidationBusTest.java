@@ -0,0 +1,304 @@
+package com.airline.invalidation;
+
+import com.airline.cache.FlightCache;
+import com.airline.cache.FlightRouteIndex;
+import com.airline.changes.FlightChangeLog;
+import com.airline.datasource.ReplicaLagWindow;
+import com.airline.model.Flight;
+import com.airline.model.FlightChange;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for the FlightInvalidationBus class, with a peer on the same loopback group
+ */
+class FlightInvalidationBusTest {
+
+    private static final String GROUP = "bus-test-" + UUID.randomUUID();
+
+    @Spy
+    private FlightCache flightCache = new FlightCache(true, 100, Duration.ofMinutes(10));
+
+    @Mock
+    private FlightRouteIndex flightRouteIndex;
+
+    @Mock
+    private EntityManagerFactory entityManagerFactory;
+
+    @Mock
+    private jakarta.persistence.Cache cache;
+
+    @Mock
+    private Cache secondLevelCache;
+
+    @Spy
+    private FlightChangeLog flightChangeLog;
+
+    @Spy
+    private ReplicaLagWindow replicaLagWindow = new ReplicaLagWindow(Duration.ofSeconds(5));
+
+    @Spy
+    private Executor indexRefreshExecutor = new SyncTaskExecutor();
+
+    @Spy
+    private InvalidationTransport transport = new LoopbackInvalidationTransport(GROUP);
+
+    @InjectMocks
+    private FlightInvalidationBus bus;
+
+    private final LoopbackInvalidationTransport peer = new LoopbackInvalidationTransport(GROUP);
+
+    private final List<FlightInvalidation> peerReceived = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        flightChangeLog = new FlightChangeLog(100, "");
+        MockitoAnnotations.openMocks(this);
+        when(entityManagerFactory.getCache()).thenReturn(cache);
+        when(cache.unwrap(Cache.class)).thenReturn(secondLevelCache);
+        bus.start();
+        peer.start(message -> peerReceived.add(FlightInvalidation.decode(message)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        transport.close();
+        peer.close();
+    }
+
+    @Test
+    void testReceivedInvalidationDropsFlights() {
+        // Arrange
+        flightCache.put(new Flight(1, "Flight1", "Source1", "Destination1", 100.0));
+        flightCache.put(new Flight(3, "Flight3", "Source3", "Destination3", 300.0));
+
+        // Act
+        peer.send(new FlightInvalidation(42L, 1L, new int[]{1, 2}).encode());
+
+        // Assert
+        assertNull(flightCache.getIfPresent(1));
+        assertNotNull(flightCache.getIfPresent(3));
+        verify(secondLevelCache).evictEntityData(Flight.class, 1);
+        verify(secondLevelCache).evictEntityData(Flight.class, 2);
+        verify(secondLevelCache).evictQueryRegions();
+        verify(flightRouteIndex).reload(List.of(1, 2));
+        verify(flightRouteIndex, never()).rebuild();
+    }
+
+    @Test
+    void testOwnMessagesAreIgnored() {
+        // Arrange
+        flightCache.put(new Flight(1, "Flight1", "Source1", "Destination1", 100.0));
+
+        // Act
+        bus.receive(new FlightInvalidation(bus.getNodeId(), 1L, new int[]{1}).encode());
+
+        // Assert
+        assertNotNull(flightCache.getIfPresent(1));
+        verifyNoInteractions(flightRouteIndex);
+    }
+
+    @Test
+    void testMissedMessageDropsEverything() {
+        // Arrange
+        flightCache.put(new Flight(3, "Flight3", "Source3", "Destination3", 300.0));
+        peer.send(new FlightInvalidation(42L, 1L, new int[]{1}).encode());
+
+        // Act
+        peer.send(new FlightInvalidation(42L, 3L, new int[]{2}).encode());
+        peer.send(new FlightInvalidation(42L, 2L, new int[]{1}).encode());
+
+        // Assert
+        assertNull(flightCache.getIfPresent(3));
+        verify(secondLevelCache).evictEntityData(Flight.class);
+        verify(flightRouteIndex, times(1)).rebuild();
+        verify(flightRouteIndex, times(2)).reload(List.of(1));
+        assertTrue(replicaLagWindow.isLagging(3));
+    }
+
+    @Test
+    void testHeartbeatRevealsLostLastMessage() {
+        // Arrange
+        flightCache.put(new Flight(3, "Flight3", "Source3", "Destination3", 300.0));
+        peer.send(new FlightInvalidation(42L, 1L, new int[]{1}).encode());
+        peer.send(FlightInvalidation.heartbeat(42L, 1L).encode());
+        assertNotNull(flightCache.getIfPresent(3));
+
+        // Act: message 2 was lost and the peer writes nothing more
+        peer.send(FlightInvalidation.heartbeat(42L, 2L).encode());
+        peer.send(FlightInvalidation.heartbeat(42L, 2L).encode());
+
+        // Assert
+        assertNull(flightCache.getIfPresent(3));
+        verify(flightRouteIndex, times(1)).rebuild();
+        verify(flightRouteIndex, times(1)).reload(anyList());
+    }
+
+    @Test
+    void testFirstMessageOfKnownSenderIsAGap() {
+        // Arrange
+        flightCache.put(new Flight(3, "Flight3", "Source3", "Destination3", 300.0));
+        peer.send(FlightInvalidation.heartbeat(7L, 0L).encode());
+
+        // Act: node 7 has not written yet, node 42 wrote before this instance heard from it
+        peer.send(new FlightInvalidation(7L, 1L, new int[]{1}).encode());
+        assertNotNull(flightCache.getIfPresent(3));
+        peer.send(new FlightInvalidation(42L, 5L, new int[]{2}).encode());
+
+        // Assert
+        assertNull(flightCache.getIfPresent(3));
+        verify(flightRouteIndex, times(1)).rebuild();
+    }
+
+    @Test
+    void testHeartbeatCarriesLastSequence() {
+        // Act
+        bus.heartbeat();
+        bus.publish(List.of(1, 2));
+        bus.heartbeat();
+
+        // Assert
+        assertEquals(3, peerReceived.size());
+        assertTrue(peerReceived.get(0).isHeartbeat());
+        assertEquals(0L, peerReceived.get(0).sequence());
+        assertEquals(1L, peerReceived.get(1).sequence());
+        assertTrue(peerReceived.get(2).isHeartbeat());
+        assertEquals(1L, peerReceived.get(2).sequence());
+    }
+
+    @Test
+    void testPublishSplitsLargeWrites() {
+        // Arrange
+        List<Integer> flightIds = IntStream.rangeClosed(1, FlightInvalidation.MAX_FLIGHT_IDS + 10)
+                .boxed().collect(Collectors.toList());
+
+        // Act
+        bus.publish(flightIds);
+        bus.publish(7);
+
+        // Assert
+        assertEquals(3, peerReceived.size());
+        assertEquals(List.of(1L, 2L, 3L), peerReceived.stream().map(FlightInvalidation::sequence).toList());
+        assertTrue(peerReceived.stream().allMatch(invalidation -> invalidation.origin() == bus.getNodeId()));
+        assertEquals(FlightInvalidation.MAX_FLIGHT_IDS, peerReceived.get(0).flightIds().length);
+        assertArrayEquals(IntStream.rangeClosed(FlightInvalidation.MAX_FLIGHT_IDS + 1, FlightInvalidation.MAX_FLIGHT_IDS + 10)
+                .toArray(), peerReceived.get(1).flightIds());
+        assertArrayEquals(new int[]{7}, peerReceived.get(2).flightIds());
+    }
+
+    @Test
+    void testPublishWithoutTransportDoesNothing() {
+        // Arrange
+        FlightInvalidationBus standalone = new FlightInvalidationBus();
+        ReflectionTestUtils.setField(standalone, "replicaLagWindow", replicaLagWindow);
+
+        // Act
+        standalone.start();
+        standalone.publish(List.of(1, 2));
+
+        // Assert
+        assertFalse(standalone.isEnabled());
+        assertTrue(peerReceived.isEmpty());
+        assertTrue(replicaLagWindow.isLagging(1));
+        assertFalse(replicaLagWindow.isLagging(3));
+    }
+
+    @Test
+    void testReceivedInvalidationKeepsReadsOnPrimary() {
+        // Act
+        peer.send(new FlightInvalidation(42L, 1L, new int[]{1}).encode());
+
+        // Assert
+        assertTrue(replicaLagWindow.isLagging(1));
+        assertFalse(replicaLagWindow.isLagging(2));
+        InOrder inOrder = inOrder(replicaLagWindow, flightRouteIndex);
+        inOrder.verify(replicaLagWindow).markChanged(List.of(1));
+        inOrder.verify(flightRouteIndex).reload(List.of(1));
+    }
+
+    @Test
+    void testPublishKeepsReadsOnPrimary() {
+        // Arrange
+        assertFalse(replicaLagWindow.isLagging(1));
+
+        // Act
+        bus.publish(1);
+
+        // Assert
+        assertTrue(replicaLagWindow.isLagging(1));
+        assertFalse(replicaLagWindow.isLagging(2));
+    }
+
+    @Test
+    void testIndexRefreshRunsOffTheReceiverAndMergesRebuilds() {
+        // Arrange
+        List<Runnable> queued = new ArrayList<>();
+        doAnswer(invocation -> queued.add(invocation.getArgument(0))).when(indexRefreshExecutor).execute(any());
+        flightCache.put(new Flight(1, "Flight1", "Source1", "Destination1", 100.0));
+
+        // Act
+        peer.send(new FlightInvalidation(42L, 1L, new int[]{1}).encode());
+        peer.send(new FlightInvalidation(42L, 3L, new int[]{2}).encode());
+        peer.send(new FlightInvalidation(42L, 5L, new int[]{3}).encode());
+        assertNull(flightCache.getIfPresent(1));
+        verifyNoInteractions(flightRouteIndex);
+        queued.forEach(Runnable::run);
+
+        // Assert
+        assertEquals(1, queued.size());
+        verify(flightRouteIndex, times(1)).rebuild();
+        verify(flightRouteIndex, never()).reload(anyList());
+    }
+
+    @Test
+    void testQueuedReloadsAreMerged() {
+        // Arrange
+        List<Runnable> queued = new ArrayList<>();
+        doAnswer(invocation -> queued.add(invocation.getArgument(0))).when(indexRefreshExecutor).execute(any());
+
+        // Act
+        peer.send(new FlightInvalidation(42L, 1L, new int[]{1}).encode());
+        peer.send(new FlightInvalidation(42L, 2L, new int[]{2, 1}).encode());
+        queued.forEach(Runnable::run);
+
+        // Assert
+        assertEquals(1, queued.size());
+        verify(flightRouteIndex, times(1)).reload(List.of(1, 2));
+        verify(flightRouteIndex, never()).rebuild();
+    }
+
+    @Test
+    void testReceivedWritesAreRecordedInChangeLog() {
+        // Act
+        peer.send(new FlightInvalidation(42L, 1L, new int[]{1, 2}).encode());
+        peer.send(new FlightInvalidation(42L, 3L, new int[]{3}).encode());
+        bus.receive(new FlightInvalidation(bus.getNodeId(), 1L, new int[]{4}).encode());
+
+        // Assert
+        List<FlightChange> changes = flightChangeLog.since(0, 10);
+        assertEquals(List.of(FlightChange.Type.INVALIDATED, FlightChange.Type.INVALIDATED, FlightChange.Type.INVALIDATED_ALL),
+                changes.stream().map(FlightChange::getType).toList());
+        assertEquals(List.of(1, 2, 0), changes.stream().map(FlightChange::getFlightId).toList());
+    }
+}
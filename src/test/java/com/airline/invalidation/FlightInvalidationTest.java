@@ -0,0 +1,44 @@
+package com.airline.invalidation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the FlightInvalidation message format
+ */
+class FlightInvalidationTest {
+
+    @Test
+    void testEncodeAndDecode() {
+        // Arrange
+        FlightInvalidation invalidation = new FlightInvalidation(-7L, 42L, new int[]{1, 2, Integer.MAX_VALUE});
+
+        // Act
+        byte[] message = invalidation.encode();
+        FlightInvalidation decoded = FlightInvalidation.decode(message);
+
+        // Assert
+        assertEquals(21 + 3 * 4, message.length);
+        assertEquals(-7L, decoded.origin());
+        assertEquals(42L, decoded.sequence());
+        assertArrayEquals(new int[]{1, 2, Integer.MAX_VALUE}, decoded.flightIds());
+    }
+
+    @Test
+    void testDecodeRejectsMalformedMessages() {
+        // Arrange
+        byte[] message = new FlightInvalidation(1L, 1L, new int[]{1, 2}).encode();
+        byte[] unknownVersion = message.clone();
+        unknownVersion[0] = 99;
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> FlightInvalidation.decode(unknownVersion));
+        assertThrows(IllegalArgumentException.class,
+                () -> FlightInvalidation.decode(Arrays.copyOf(message, message.length - 1)));
+        assertThrows(IllegalArgumentException.class, () -> FlightInvalidation.decode(Arrays.copyOf(message, 10)));
+        assertThrows(IllegalArgumentException.class, () -> FlightInvalidation.decode(new byte[0]));
+    }
+}
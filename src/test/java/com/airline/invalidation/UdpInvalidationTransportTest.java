@@ -0,0 +1,58 @@
+package com.airline.invalidation;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the UdpInvalidationTransport class, over the loopback interface
+ */
+class UdpInvalidationTransportTest {
+
+    private UdpInvalidationTransport receiver;
+
+    private UdpInvalidationTransport sender;
+
+    @AfterEach
+    void tearDown() {
+        if (receiver != null) {
+            receiver.close();
+        }
+        if (sender != null) {
+            sender.close();
+        }
+    }
+
+    @Test
+    void testSendsToPeers() throws Exception {
+        // Arrange
+        BlockingQueue<byte[]> received = new LinkedBlockingQueue<>();
+        receiver = new UdpInvalidationTransport(new InetSocketAddress("127.0.0.1", 0), List.of());
+        receiver.start(received::add);
+        sender = new UdpInvalidationTransport(new InetSocketAddress("127.0.0.1", 0), List.of(receiver.getLocalAddress()));
+        byte[] message = new FlightInvalidation(1L, 1L, new int[FlightInvalidation.MAX_FLIGHT_IDS]).encode();
+
+        // Act
+        sender.send(message);
+
+        // Assert
+        assertArrayEquals(message, received.poll(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testUnreachablePeerDoesNotFailSend() {
+        // Arrange
+        sender = new UdpInvalidationTransport(new InetSocketAddress("127.0.0.1", 0),
+                List.of(new InetSocketAddress("127.0.0.1", 1)));
+
+        // Act & Assert
+        assertDoesNotThrow(() -> sender.send(new FlightInvalidation(1L, 1L, new int[]{1}).encode()));
+    }
+}
@@ -0,0 +1,154 @@
+package com.airline.limiter;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the ConcurrencyLimiter class
+ */
+class ConcurrencyLimiterTest {
+
+    private static final long ONE_MS = Duration.ofMillis(1).toNanos();
+
+    private static ConcurrencyLimiter limiter(int initialLimit) {
+        return new ConcurrencyLimiter(true, initialLimit, 4, 100, 0.9, Duration.ofMillis(1500));
+    }
+
+    /**
+     * Runs rounds of calls that fill the write lane and all take the same time
+     */
+    private static void runFullRounds(ConcurrencyLimiter limiter, int rounds, long rttNanos) {
+        for (int round = 0; round < rounds; round++) {
+            int calls = limiter.getLimit(ConcurrencyLimiter.Lane.WRITE);
+            for (int i = 0; i < calls; i++) {
+                limiter.acquire(ConcurrencyLimiter.Lane.WRITE);
+            }
+            for (int i = 0; i < calls; i++) {
+                limiter.release(rttNanos, false);
+            }
+        }
+    }
+
+    @Test
+    void testReadsAreShedBeforeWrites() {
+        // Arrange
+        ConcurrencyLimiter limiter = limiter(10);
+        for (int i = 0; i < 9; i++) {
+            limiter.acquire(ConcurrencyLimiter.Lane.READ);
+        }
+
+        // Act
+        ConcurrencyLimitExceededException rejected = assertThrows(ConcurrencyLimitExceededException.class,
+                () -> limiter.acquire(ConcurrencyLimiter.Lane.READ));
+        limiter.acquire(ConcurrencyLimiter.Lane.WRITE);
+
+        // Assert
+        assertEquals(ConcurrencyLimiter.Lane.READ, rejected.getLane());
+        assertEquals(Duration.ofMillis(1500), rejected.getRetryAfter());
+        assertThrows(ConcurrencyLimitExceededException.class, () -> limiter.acquire(ConcurrencyLimiter.Lane.WRITE));
+        assertEquals(10, limiter.getInFlight());
+        assertEquals(1, limiter.getRejectedCount(ConcurrencyLimiter.Lane.READ));
+        assertEquals(1, limiter.getRejectedCount(ConcurrencyLimiter.Lane.WRITE));
+    }
+
+    @Test
+    void testLimitGrowsWhileLatencyIsSteady() {
+        // Arrange
+        ConcurrencyLimiter limiter = limiter(10);
+
+        // Act
+        runFullRounds(limiter, 20, ONE_MS);
+
+        // Assert
+        assertTrue(limiter.getLimit(ConcurrencyLimiter.Lane.WRITE) > 20,
+                "limit is " + limiter.getLimit(ConcurrencyLimiter.Lane.WRITE));
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void testLimitDoesNotGrowWhenUnused() {
+        // Arrange
+        ConcurrencyLimiter limiter = limiter(10);
+
+        // Act
+        for (int i = 0; i < 500; i++) {
+            limiter.acquire(ConcurrencyLimiter.Lane.READ);
+            limiter.release(ONE_MS, false);
+        }
+
+        // Assert
+        assertEquals(10, limiter.getLimit(ConcurrencyLimiter.Lane.WRITE));
+    }
+
+    @Test
+    void testLimitShrinksWhenLatencyRises() {
+        // Arrange
+        ConcurrencyLimiter limiter = limiter(50);
+        runFullRounds(limiter, 10, ONE_MS);
+        int before = limiter.getLimit(ConcurrencyLimiter.Lane.WRITE);
+
+        // Act
+        runFullRounds(limiter, 10, 20 * ONE_MS);
+
+        // Assert
+        assertEquals(4, limiter.getLimit(ConcurrencyLimiter.Lane.WRITE), "limit was " + before);
+        assertEquals(3, limiter.getLimit(ConcurrencyLimiter.Lane.READ));
+    }
+
+    @Test
+    void testDroppedCallsCutLimit() {
+        // Arrange
+        ConcurrencyLimiter limiter = limiter(20);
+
+        // Act
+        limiter.acquire(ConcurrencyLimiter.Lane.WRITE);
+        limiter.release(ONE_MS, true);
+
+        // Assert
+        assertEquals(18, limiter.getLimit(ConcurrencyLimiter.Lane.WRITE));
+    }
+
+    @Test
+    void testDisabledLimiterAdmitsEverything() {
+        // Arrange
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(false, 4, 4, 4, 0.9, Duration.ofSeconds(1));
+
+        // Act & Assert
+        for (int i = 0; i < 100; i++) {
+            assertDoesNotThrow(() -> limiter.acquire(ConcurrencyLimiter.Lane.READ));
+        }
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void testExemptCallsAreAdmittedOverTheLimit() {
+        // Arrange
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(true, 4, 4, 4, 0.9, Duration.ofSeconds(1));
+        for (int i = 0; i < 4; i++) {
+            limiter.acquire(ConcurrencyLimiter.Lane.WRITE);
+        }
+
+        // Act
+        limiter.runExempt(() -> limiter.runExempt(() -> limiter.acquire(ConcurrencyLimiter.Lane.READ)));
+
+        // Assert
+        assertEquals(5, limiter.getInFlight());
+        assertEquals(0, limiter.getRejectedCount(ConcurrencyLimiter.Lane.READ));
+        assertThrows(ConcurrencyLimitExceededException.class, () -> limiter.acquire(ConcurrencyLimiter.Lane.WRITE));
+    }
+
+    @Test
+    void testLaneOfRepositoryMethods() {
+        // Act & Assert
+        assertEquals(ConcurrencyLimiter.Lane.READ, FlightRepositoryLimiterAspect.laneOf("findById", false));
+        assertEquals(ConcurrencyLimiter.Lane.READ, FlightRepositoryLimiterAspect.laneOf("existsById", false));
+        assertEquals(ConcurrencyLimiter.Lane.READ, FlightRepositoryLimiterAspect.laneOf("searchRoute", false));
+        assertEquals(ConcurrencyLimiter.Lane.WRITE, FlightRepositoryLimiterAspect.laneOf("save", false));
+        assertEquals(ConcurrencyLimiter.Lane.WRITE, FlightRepositoryLimiterAspect.laneOf("patchAll", false));
+        assertEquals(ConcurrencyLimiter.Lane.WRITE, FlightRepositoryLimiterAspect.laneOf("deleteIfVersion", false));
+        assertEquals(ConcurrencyLimiter.Lane.WRITE, FlightRepositoryLimiterAspect.laneOf("findAllById", true));
+    }
+}
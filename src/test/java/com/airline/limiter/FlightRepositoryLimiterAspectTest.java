@@ -0,0 +1,88 @@
+package com.airline.limiter;
+
+import com.airline.model.Flight;
+import com.airline.repository.FlightRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+/**
+ * Integration test checking that FlightRepository calls go through the concurrency limiter
+ */
+@SpringBootTest(properties = "flight.cache.enabled=false")
+class FlightRepositoryLimiterAspectTest {
+
+    @Autowired
+    private FlightRepository flightRepository;
+
+    @SpyBean
+    private ConcurrencyLimiter concurrencyLimiter;
+
+    @Test
+    void testRepositoryCallsAreLimitedByLane() {
+        // Arrange
+        clearInvocations(concurrencyLimiter);
+
+        // Act
+        Flight saved = flightRepository.save(new Flight(0, "LIMIT1", "DEL", "BOM", 4500.0));
+        flightRepository.findById(saved.getFlightId());
+
+        // Assert
+        verify(concurrencyLimiter, times(1)).acquire(ConcurrencyLimiter.Lane.WRITE);
+        verify(concurrencyLimiter, times(1)).acquire(ConcurrencyLimiter.Lane.READ);
+        verify(concurrencyLimiter, times(2)).release(anyLong(), eq(false));
+        assertEquals(0, concurrencyLimiter.getInFlight());
+    }
+
+    @Test
+    @Transactional
+    void testQueriesInsideWriteTransactionUseWriteLane() {
+        // Arrange
+        clearInvocations(concurrencyLimiter);
+
+        // Act
+        flightRepository.findAllById(List.of(1, 2));
+
+        // Assert
+        verify(concurrencyLimiter, times(1)).acquire(ConcurrencyLimiter.Lane.WRITE);
+        verify(concurrencyLimiter, never()).acquire(ConcurrencyLimiter.Lane.READ);
+    }
+
+    @Test
+    @Transactional(readOnly = true)
+    void testStreamingCallsAreNotLimited() {
+        // Arrange
+        clearInvocations(concurrencyLimiter);
+
+        // Act
+        try (Stream<Flight> flights = flightRepository.streamAll()) {
+            flights.count();
+        }
+
+        // Assert
+        verify(concurrencyLimiter, never()).acquire(any());
+        verify(concurrencyLimiter, never()).release(anyLong(), anyBoolean());
+    }
+
+    @Test
+    void testRejectedCallDoesNotReachTheDatabase() {
+        // Arrange
+        doThrow(new ConcurrencyLimitExceededException(ConcurrencyLimiter.Lane.READ, 1, Duration.ofSeconds(1)))
+                .when(concurrencyLimiter).acquire(ConcurrencyLimiter.Lane.READ);
+
+        // Act & Assert
+        assertThrows(ConcurrencyLimitExceededException.class, () -> flightRepository.count());
+        verify(concurrencyLimiter, never()).release(anyLong(), anyBoolean());
+    }
+}
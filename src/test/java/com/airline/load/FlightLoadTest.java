@@ -0,0 +1,298 @@
+package com.airline.load;
+
+import com.airline.model.Flight;
+import com.airline.service.FlightService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Load test driving a mixed read/write workload through real HTTP against FlightController.
+ *
+ * The application runs on a random port against the in-memory H2 database, seeded with
+ * load.flights flights. load.threads clients then send load.rate requests per second between
+ * them, on a fixed schedule, for load.warmup followed by load.duration. Each request has an
+ * intended start time; when the server falls behind, later requests start late and the delay
+ * counts towards their response time. Measuring from the actual send instead would hide that
+ * queueing (coordinated omission), so that service time is only reported alongside.
+ * Both are recorded in one HdrHistogram per endpoint. A summary is logged and the full
+ * response time distributions are written to target/load-test/&lt;endpoint&gt;.hgrm.
+ *
+ * Tagged "load" and skipped by a normal build, run it with: mvn test -Pload-test
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.jpa.show-sql=false",
+        // all clients share one IP address, which the rate limit would throttle
+        "flight.ratelimit.enabled=false",
+        // the test measures response times under the offered load, not load shedding, so no 503s
+        "flight.limiter.enabled=false",
+        "logging.level.root=WARN",
+        "logging.level.com.airline=WARN"})
+class FlightLoadTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(FlightLoadTest.class);
+
+    private static final String[] AIRPORTS = {"DEL", "BOM", "BLR", "MAA", "CCU", "HYD", "PNQ", "GOI"};
+
+    /**
+     * Highest latency the histograms can record, in microseconds
+     */
+    private static final long MAX_LATENCY_MICROS = Duration.ofMinutes(1).toNanos() / 1000;
+
+    /**
+     * The endpoints of the workload and their share of the read or write traffic in percent
+     */
+    enum Endpoint {
+        GET_FLIGHT(true, 55),
+        GET_PAGE(true, 20),
+        GET_ROUTE(true, 20),
+        GET_ALL(true, 5),
+        ADD_FLIGHT(false, 50),
+        UPDATE_FLIGHT(false, 50);
+
+        private final boolean read;
+        private final int share;
+
+        Endpoint(boolean read, int share) {
+            this.read = read;
+            this.share = share;
+        }
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private FlightService flightService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final int flights = Integer.getInteger("load.flights", 10000);
+    private final int threads = Integer.getInteger("load.threads", 16);
+    private final int writePercent = Integer.getInteger("load.write-percent", 10);
+    private final int rate = Integer.getInteger("load.rate", 2000);
+    private final Duration warmup = Duration.parse(System.getProperty("load.warmup", "PT10S"));
+    private final Duration duration = Duration.parse(System.getProperty("load.duration", "PT30S"));
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .build();
+
+    @Test
+    void testMixedWorkload() throws Exception {
+        // Arrange
+        List<Integer> flightIds = seed();
+        long measureFrom = System.nanoTime() + warmup.toNanos();
+        long stopAt = measureFrom + duration.toNanos();
+        long interval = Duration.ofSeconds(threads).toNanos() / rate;
+        logger.warn("Running {} clients at {} requests/s against {} flights for {} after a {} warmup, {}% writes",
+                threads, rate, flights, duration, warmup, writePercent);
+
+        // Act
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<ClientResult>> futures = new ArrayList<>();
+        long firstStart = System.nanoTime();
+        for (int i = 0; i < threads; i++) {
+            // clients are spread over one interval so the requests do not arrive in bursts
+            long start = firstStart + interval * i / threads;
+            futures.add(executor.submit(() -> runClient(flightIds, start, interval, measureFrom, stopAt)));
+        }
+        ClientResult total = new ClientResult();
+        for (Future<ClientResult> future : futures) {
+            total.add(future.get());
+        }
+        executor.shutdown();
+
+        // Assert
+        report(total, duration);
+        assertEquals(0, total.errors, "requests failed during the load test");
+        for (Endpoint endpoint : Endpoint.values()) {
+            boolean exercised = endpoint.read ? writePercent < 100 : writePercent > 0;
+            if (exercised) {
+                assertTrue(total.responseTimes.get(endpoint).getTotalCount() > 0, endpoint + " was never called");
+            }
+        }
+    }
+
+    /**
+     * Fills the database through the bulk service call
+     */
+    private List<Integer> seed() {
+        List<Integer> ids = new ArrayList<>(flights);
+        List<Flight> chunk = new ArrayList<>();
+        for (int i = 0; i < flights; i++) {
+            chunk.add(newFlight());
+            if (chunk.size() == 1000 || i == flights - 1) {
+                flightService.addFlights(chunk).getItems().forEach(item -> ids.add(item.getFlightId()));
+                chunk.clear();
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * One client sending a request every interval from start until stopAt. A request that is due
+     * while the previous one is still running is sent as soon as that one completes.
+     */
+    private ClientResult runClient(List<Integer> flightIds, long start, long interval, long measureFrom,
+                                   long stopAt) throws Exception {
+        ClientResult result = new ClientResult();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (long intended = start; intended < stopAt; intended += interval) {
+            Endpoint endpoint = pick(random);
+            HttpRequest request = request(endpoint, flightIds.get(random.nextInt(flightIds.size())), random);
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            long sent = System.nanoTime();
+            HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+            long end = System.nanoTime();
+            if (intended >= measureFrom) {
+                result.responseTimes.get(endpoint).recordValue(Math.min((end - intended) / 1000, MAX_LATENCY_MICROS));
+                result.serviceTimes.get(endpoint).recordValue(Math.min((end - sent) / 1000, MAX_LATENCY_MICROS));
+                if (response.statusCode() >= 400) {
+                    result.errors++;
+                }
+            }
+        }
+        return result;
+    }
+
+    private Endpoint pick(ThreadLocalRandom random) {
+        boolean read = random.nextInt(100) >= writePercent;
+        int roll = random.nextInt(100);
+        for (Endpoint endpoint : Endpoint.values()) {
+            if (endpoint.read == read) {
+                roll -= endpoint.share;
+                if (roll < 0) {
+                    return endpoint;
+                }
+            }
+        }
+        throw new IllegalStateException("endpoint shares do not add up to 100");
+    }
+
+    private HttpRequest request(Endpoint endpoint, int flightId, ThreadLocalRandom random) throws Exception {
+        String base = "http://localhost:" + port + "/flight";
+        switch (endpoint) {
+            case GET_FLIGHT:
+                return get(base + "/" + flightId);
+            case GET_PAGE:
+                return get(base + "/page?limit=50");
+            case GET_ROUTE:
+                return get(base + "/route?source=" + AIRPORTS[random.nextInt(AIRPORTS.length)]
+                        + "&destination=" + AIRPORTS[random.nextInt(AIRPORTS.length)] + "&limit=20");
+            case GET_ALL:
+                return get(base + "/");
+            case ADD_FLIGHT:
+                return withBody(base + "/", "POST", newFlight());
+            case UPDATE_FLIGHT:
+                Flight flight = newFlight();
+                flight.setFlightId(flightId);
+                return withBody(base + "/" + flightId, "PUT", flight);
+            default:
+                throw new IllegalArgumentException(endpoint.name());
+        }
+    }
+
+    private static HttpRequest get(String uri) {
+        return HttpRequest.newBuilder(URI.create(uri))
+                .header("Accept", "application/json")
+                .GET()
+                .build();
+    }
+
+    private HttpRequest withBody(String uri, String method, Flight flight) throws Exception {
+        return HttpRequest.newBuilder(URI.create(uri))
+                .header("Content-Type", "application/json")
+                .method(method, HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(flight)))
+                .build();
+    }
+
+    private static Flight newFlight() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return new Flight(0, "AI" + random.nextInt(100, 1000),
+                AIRPORTS[random.nextInt(AIRPORTS.length)], AIRPORTS[random.nextInt(AIRPORTS.length)],
+                (double) random.nextInt(2000, 10000));
+    }
+
+    /**
+     * Logs throughput, response time percentiles and the p99 service time per endpoint and writes
+     * the full response time distributions
+     */
+    private static void report(ClientResult total, Duration duration) throws Exception {
+        Path dir = Files.createDirectories(Path.of("target", "load-test"));
+        double seconds = duration.toMillis() / 1000.0;
+        StringBuilder summary = new StringBuilder(String.format(
+                "%nresponse time from the intended start, service time from the actual send%n"
+                        + "%-14s %9s %9s %9s %9s %9s %9s %9s %12s%n",
+                "endpoint", "requests", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "svc p99 ms"));
+        for (Map.Entry<Endpoint, Histogram> entry : total.responseTimes.entrySet()) {
+            Histogram histogram = entry.getValue();
+            summary.append(String.format("%-14s %9d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f %12.2f%n",
+                    entry.getKey(), histogram.getTotalCount(), histogram.getTotalCount() / seconds,
+                    histogram.getValueAtPercentile(50) / 1000.0, histogram.getValueAtPercentile(90) / 1000.0,
+                    histogram.getValueAtPercentile(99) / 1000.0, histogram.getValueAtPercentile(99.9) / 1000.0,
+                    histogram.getMaxValue() / 1000.0,
+                    total.serviceTimes.get(entry.getKey()).getValueAtPercentile(99) / 1000.0));
+            try (PrintStream out = new PrintStream(
+                    Files.newOutputStream(dir.resolve(entry.getKey().name().toLowerCase() + ".hgrm")))) {
+                histogram.outputPercentileDistribution(out, 1000.0);
+            }
+        }
+        summary.append(String.format("errors: %d, distributions in %s", total.errors, dir.toAbsolutePath()));
+        logger.warn(summary.toString());
+    }
+
+    /**
+     * What one client measured; merged into a total when all clients are done
+     */
+    private static final class ClientResult {
+        private final Map<Endpoint, Histogram> responseTimes = new EnumMap<>(Endpoint.class);
+        private final Map<Endpoint, Histogram> serviceTimes = new EnumMap<>(Endpoint.class);
+        private long errors;
+
+        private ClientResult() {
+            for (Endpoint endpoint : Endpoint.values()) {
+                responseTimes.put(endpoint, new Histogram(MAX_LATENCY_MICROS, 3));
+                serviceTimes.put(endpoint, new Histogram(MAX_LATENCY_MICROS, 3));
+            }
+        }
+
+        private void add(ClientResult other) {
+            responseTimes.forEach((endpoint, histogram) -> histogram.add(other.responseTimes.get(endpoint)));
+            serviceTimes.forEach((endpoint, histogram) -> histogram.add(other.serviceTimes.get(endpoint)));
+            errors += other.errors;
+        }
+    }
+}
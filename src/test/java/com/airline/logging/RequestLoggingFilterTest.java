@@ -0,0 +1,78 @@
+package com.airline.logging;
+
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the RequestLoggingFilter class
+ */
+class RequestLoggingFilterTest {
+
+    private final RequestLoggingFilter filter = new RequestLoggingFilter();
+
+    @Test
+    void testRequestIdFromHeaderIsUsed() throws Exception {
+        // Arrange
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/flight/1");
+        request.addHeader(RequestLoggingFilter.REQUEST_ID_HEADER, "abc-123");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        AtomicReference<String> mdcInChain = new AtomicReference<>();
+        MockFilterChain chain = new MockFilterChain() {
+            @Override
+            public void doFilter(ServletRequest req, ServletResponse res) {
+                mdcInChain.set(MDC.get(RequestLoggingFilter.REQUEST_ID_MDC_KEY));
+            }
+        };
+
+        // Act
+        filter.doFilter(request, response, chain);
+
+        // Assert
+        assertEquals("abc-123", mdcInChain.get());
+        assertEquals("abc-123", response.getHeader(RequestLoggingFilter.REQUEST_ID_HEADER));
+        assertNull(MDC.get(RequestLoggingFilter.REQUEST_ID_MDC_KEY));
+    }
+
+    @Test
+    void testInvalidRequestIdIsReplaced() throws Exception {
+        // Arrange
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/flight/1");
+        request.addHeader(RequestLoggingFilter.REQUEST_ID_HEADER, "forged\nline");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // Act
+        filter.doFilter(request, response, new MockFilterChain());
+
+        // Assert
+        String requestId = response.getHeader(RequestLoggingFilter.REQUEST_ID_HEADER);
+        assertNotNull(requestId);
+        assertNotEquals("forged\nline", requestId);
+        assertEquals(36, requestId.length());
+    }
+
+    @Test
+    void testMdcIsClearedWhenChainFails() {
+        // Arrange
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/flight/1");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain() {
+            @Override
+            public void doFilter(ServletRequest req, ServletResponse res) {
+                throw new IllegalStateException("boom");
+            }
+        };
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> filter.doFilter(request, response, chain));
+        assertNull(MDC.get(RequestLoggingFilter.REQUEST_ID_MDC_KEY));
+    }
+}
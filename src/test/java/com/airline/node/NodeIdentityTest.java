@@ -0,0 +1,37 @@
+package com.airline.node;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the NodeIdentity class
+ */
+class NodeIdentityTest {
+
+    /**
+     * Test that the address is resolved when the node identity is created
+     */
+    @Test
+    void testResolvedAtStartup() throws Exception {
+        NodeIdentity nodeIdentity = new NodeIdentity();
+
+        assertEquals(InetAddress.getLocalHost().getHostAddress(), nodeIdentity.getServerIP());
+        assertNotNull(nodeIdentity.getHostName());
+    }
+
+    /**
+     * Test that a refresh keeps a usable address
+     */
+    @Test
+    void testRefresh() {
+        NodeIdentity nodeIdentity = new NodeIdentity();
+        String before = nodeIdentity.getServerIP();
+
+        nodeIdentity.refresh();
+
+        assertEquals(before, nodeIdentity.getServerIP());
+    }
+}
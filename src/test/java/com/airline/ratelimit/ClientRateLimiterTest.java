@@ -0,0 +1,116 @@
+package com.airline.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the ClientRateLimiter class
+ */
+class ClientRateLimiterTest {
+
+    private static final long ONE_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final ClientRateLimiter limiter = new ClientRateLimiter(true, 3, 1, 100, 50, 1000, Duration.ofMinutes(10));
+
+    @Test
+    void testBurstThenRejected() {
+        // Arrange
+        long now = 1_000 * ONE_SECOND;
+
+        // Act
+        RateLimitDecision first = limiter.tryAcquire("ip:10.0.0.1", ClientRateLimiter.EndpointClass.LIST, now);
+        limiter.tryAcquire("ip:10.0.0.1", ClientRateLimiter.EndpointClass.LIST, now);
+        RateLimitDecision third = limiter.tryAcquire("ip:10.0.0.1", ClientRateLimiter.EndpointClass.LIST, now);
+        RateLimitDecision fourth = limiter.tryAcquire("ip:10.0.0.1", ClientRateLimiter.EndpointClass.LIST, now);
+
+        // Assert
+        assertTrue(first.allowed());
+        assertEquals(3, first.limit());
+        assertEquals(2, first.remaining());
+        assertEquals(ONE_SECOND, first.resetNanos());
+        assertTrue(third.allowed());
+        assertEquals(0, third.remaining());
+        assertEquals(3 * ONE_SECOND, third.resetNanos());
+        assertFalse(fourth.allowed());
+        assertEquals(0, fourth.remaining());
+        assertEquals(ONE_SECOND, fourth.resetNanos());
+    }
+
+    @Test
+    void testTokensAreRefilledOverTime() {
+        // Arrange
+        long now = 1_000 * ONE_SECOND;
+        for (int i = 0; i < 3; i++) {
+            limiter.tryAcquire("ip:10.0.0.1", ClientRateLimiter.EndpointClass.LIST, now);
+        }
+
+        // Act
+        RateLimitDecision halfSecondLater = limiter.tryAcquire("ip:10.0.0.1", ClientRateLimiter.EndpointClass.LIST,
+                now + ONE_SECOND / 2);
+        RateLimitDecision oneSecondLater = limiter.tryAcquire("ip:10.0.0.1", ClientRateLimiter.EndpointClass.LIST,
+                now + ONE_SECOND);
+        RateLimitDecision longAfter = limiter.tryAcquire("ip:10.0.0.1", ClientRateLimiter.EndpointClass.LIST,
+                now + 60 * ONE_SECOND);
+
+        // Assert
+        assertFalse(halfSecondLater.allowed());
+        assertEquals(ONE_SECOND / 2, halfSecondLater.resetNanos());
+        assertTrue(oneSecondLater.allowed());
+        assertEquals(0, oneSecondLater.remaining());
+        assertTrue(longAfter.allowed());
+        assertEquals(2, longAfter.remaining());
+    }
+
+    @Test
+    void testClientsAndEndpointClassesHaveSeparateBuckets() {
+        // Arrange
+        long now = 1_000 * ONE_SECOND;
+        for (int i = 0; i < 3; i++) {
+            limiter.tryAcquire("ip:10.0.0.1", ClientRateLimiter.EndpointClass.LIST, now);
+        }
+
+        // Act
+        RateLimitDecision sameClientList = limiter.tryAcquire("ip:10.0.0.1", ClientRateLimiter.EndpointClass.LIST, now);
+        RateLimitDecision sameClientPoint = limiter.tryAcquire("ip:10.0.0.1", ClientRateLimiter.EndpointClass.POINT, now);
+        RateLimitDecision otherClient = limiter.tryAcquire("key:partner-1", ClientRateLimiter.EndpointClass.LIST, now);
+
+        // Assert
+        assertFalse(sameClientList.allowed());
+        assertTrue(sameClientPoint.allowed());
+        assertEquals(100, sameClientPoint.limit());
+        assertTrue(otherClient.allowed());
+        assertEquals(3, limiter.getClientCount());
+    }
+
+    @Test
+    void testConcurrentRequestsNeverExceedCapacity() throws Exception {
+        // Arrange
+        ClientRateLimiter slow = new ClientRateLimiter(true, 100, 0.001, 100, 0.001, 1000, Duration.ofMinutes(10));
+        long now = System.nanoTime();
+        AtomicInteger allowed = new AtomicInteger();
+        Thread[] threads = new Thread[8];
+
+        // Act
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 100; i++) {
+                    if (slow.tryAcquire("ip:10.0.0.1", ClientRateLimiter.EndpointClass.POINT, now).allowed()) {
+                        allowed.incrementAndGet();
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // Assert
+        assertEquals(100, allowed.get());
+    }
+}
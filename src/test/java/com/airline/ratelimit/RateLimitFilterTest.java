@@ -0,0 +1,118 @@
+package com.airline.ratelimit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for the RateLimitFilter class
+ */
+class RateLimitFilterTest {
+
+    @Spy
+    private ClientRateLimiter clientRateLimiter = new ClientRateLimiter(true, 2, 1, 100, 50, 1000, Duration.ofMinutes(10));
+
+    @InjectMocks
+    private RateLimitFilter filter = new RateLimitFilter(List.of("partner-1", " partner-2 ", ""));
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    private MockHttpServletResponse perform(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    private static MockHttpServletRequest request(String method, String path, String remoteAddr) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+        request.setRemoteAddr(remoteAddr);
+        return request;
+    }
+
+    @Test
+    void testListRequestsOverLimitAreRejected() throws Exception {
+        // Arrange
+        perform(request("GET", "/flight/", "10.0.0.1"));
+        MockHttpServletResponse second = perform(request("GET", "/flight/", "10.0.0.1"));
+
+        // Act
+        MockHttpServletResponse third = perform(request("GET", "/flight/", "10.0.0.1"));
+
+        // Assert
+        assertEquals(200, second.getStatus());
+        assertEquals("2", second.getHeader(RateLimitFilter.LIMIT_HEADER));
+        assertEquals("0", second.getHeader(RateLimitFilter.REMAINING_HEADER));
+        assertEquals("2", second.getHeader(RateLimitFilter.RESET_HEADER));
+        assertEquals(429, third.getStatus());
+        assertEquals("1", third.getHeader("Retry-After"));
+        assertEquals("0", third.getHeader(RateLimitFilter.REMAINING_HEADER));
+    }
+
+    @Test
+    void testPointReadsUseTheirOwnBucket() throws Exception {
+        // Arrange
+        perform(request("GET", "/flight/page", "10.0.0.1"));
+        perform(request("GET", "/flight/search", "10.0.0.1"));
+
+        // Act
+        MockHttpServletResponse pointRead = perform(request("GET", "/flight/1", "10.0.0.1"));
+        MockHttpServletResponse bulk = perform(request("PATCH", "/flight/bulk", "10.0.0.1"));
+
+        // Assert
+        assertEquals(200, pointRead.getStatus());
+        assertEquals("100", pointRead.getHeader(RateLimitFilter.LIMIT_HEADER));
+        assertEquals(429, bulk.getStatus());
+    }
+
+    @Test
+    void testClientsAreKeyedByApiKeyThenAddress() throws Exception {
+        // Arrange
+        MockHttpServletRequest withKey = request("GET", "/flight/", "10.0.0.1");
+        withKey.addHeader(RateLimitFilter.API_KEY_HEADER, "partner-1");
+        MockHttpServletRequest withTrimmedKey = request("GET", "/flight/", "10.0.0.1");
+        withTrimmedKey.addHeader(RateLimitFilter.API_KEY_HEADER, "partner-2");
+        MockHttpServletRequest withInvalidKey = request("GET", "/flight/", "10.0.0.2");
+        withInvalidKey.addHeader(RateLimitFilter.API_KEY_HEADER, "bad key\n");
+        MockHttpServletRequest withUnknownKey = request("GET", "/flight/", "10.0.0.3");
+        withUnknownKey.addHeader(RateLimitFilter.API_KEY_HEADER, "made-up-1");
+
+        // Act
+        perform(withKey);
+        perform(withTrimmedKey);
+        perform(withInvalidKey);
+        perform(withUnknownKey);
+
+        // Assert
+        verify(clientRateLimiter).tryAcquire("key:partner-1", ClientRateLimiter.EndpointClass.LIST);
+        verify(clientRateLimiter).tryAcquire("key:partner-2", ClientRateLimiter.EndpointClass.LIST);
+        verify(clientRateLimiter).tryAcquire("ip:10.0.0.2", ClientRateLimiter.EndpointClass.LIST);
+        verify(clientRateLimiter).tryAcquire("ip:10.0.0.3", ClientRateLimiter.EndpointClass.LIST);
+    }
+
+    @Test
+    void testOtherPathsAreNotLimited() throws Exception {
+        // Act
+        MockHttpServletResponse response = perform(request("GET", "/actuator/health", "10.0.0.1"));
+        perform(request("GET", "/flightplans", "10.0.0.1"));
+
+        // Assert
+        assertNull(response.getHeader(RateLimitFilter.LIMIT_HEADER));
+        verify(clientRateLimiter, never()).tryAcquire(anyString(), any());
+    }
+}
@@ -0,0 +1,161 @@
+package com.airline.repository;
+
+import com.airline.cache.SecondLevelCacheStatistics;
+import com.airline.model.Flight;
+import com.airline.model.FlightPatch;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the second-level and query cache of FlightRepository.
+ * Runs without a test transaction, so every repository call has a persistence context of its own
+ * and only the second-level cache can spare it the database.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=true",
+        "spring.jpa.properties.hibernate.cache.use_query_cache=true",
+        "spring.jpa.properties.hibernate.cache.region.factory_class=jcache",
+        "spring.jpa.properties.hibernate.javax.cache.provider=com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider",
+        "spring.jpa.properties.hibernate.javax.cache.missing_cache_strategy=create",
+        "spring.jpa.properties.hibernate.generate_statistics=true"})
+@Import(SecondLevelCacheStatistics.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class FlightRepositoryCacheTest {
+
+    @Autowired
+    private FlightRepository flightRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private SecondLevelCacheStatistics secondLevelCacheStatistics;
+
+    private Statistics statistics;
+
+    private Flight flight;
+
+    private Flight other;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        flight = flightRepository.save(new Flight(0, "AI101", "Delhi", "Mumbai", 5000.0));
+        other = flightRepository.save(new Flight(0, "AI102", "Delhi", "Mumbai", 4200.0));
+    }
+
+    @AfterEach
+    void tearDown() {
+        flightRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void testRepeatedFindByIdIssuesNoSql() {
+        // Arrange
+        flightRepository.findById(flight.getFlightId());
+        long statements = statistics.getPrepareStatementCount();
+        long hits = statistics.getSecondLevelCacheHitCount();
+
+        // Act
+        for (int i = 0; i < 3; i++) {
+            assertEquals("AI101", flightRepository.findById(flight.getFlightId()).orElseThrow().getFlightName());
+        }
+
+        // Assert
+        assertEquals(statements, statistics.getPrepareStatementCount());
+        assertEquals(hits + 3, statistics.getSecondLevelCacheHitCount());
+        assertTrue(secondLevelCacheStatistics.stats().getFlightHitCount() >= 3);
+    }
+
+    @Test
+    void testRepeatedListAndSearchIssueNoSql() {
+        // Arrange
+        PageRequest byPrice = PageRequest.of(0, 10, Sort.by("ticketPrice"));
+        flightRepository.findAll();
+        flightRepository.searchRoute("Delhi", "Mumbai", 0, 10000, byPrice);
+        flightRepository.findListChecksum();
+        long statements = statistics.getPrepareStatementCount();
+        long queryHits = statistics.getQueryCacheHitCount();
+
+        // Act
+        List<Flight> flights = flightRepository.findAll();
+        List<Flight> route = flightRepository.searchRoute("Delhi", "Mumbai", 0, 10000, byPrice);
+        long count = flightRepository.findListChecksum().getCount();
+
+        // Assert
+        assertEquals(2, flights.size());
+        assertEquals("AI102", route.get(0).getFlightName());
+        assertEquals(2, count);
+        assertEquals(statements, statistics.getPrepareStatementCount());
+        assertEquals(queryHits + 3, statistics.getQueryCacheHitCount());
+        assertTrue(secondLevelCacheStatistics.stats().getQueryHitRate() > 0);
+    }
+
+    @Test
+    void testWriteInvalidatesCachedQueries() {
+        // Arrange
+        flightRepository.findAll();
+
+        // Act
+        flightRepository.save(new Flight(0, "SG202", "Mumbai", "Delhi", 4500.0));
+
+        // Assert
+        assertEquals(3, flightRepository.findAll().size());
+    }
+
+    @Test
+    void testBulkPatchEvictsCachedFlight() {
+        // Arrange
+        flightRepository.findById(flight.getFlightId());
+        flightRepository.findAll();
+        FlightPatch patch = new FlightPatch(flight.getFlightId(), null, null, null, 3900.0);
+
+        // Act
+        flightRepository.patchAll(List.of(patch));
+
+        // Assert
+        assertEquals(3900.0, flightRepository.findById(flight.getFlightId()).orElseThrow().getTicketPrice());
+        assertTrue(flightRepository.findAll().stream().anyMatch(f -> f.getTicketPrice() == 3900.0));
+    }
+
+    @Test
+    void testSingleWritesKeepOtherCachedFlights() {
+        // Arrange
+        flightRepository.findById(flight.getFlightId());
+        flightRepository.findById(other.getFlightId());
+        long hits = statistics.getSecondLevelCacheHitCount();
+
+        // Act
+        int patched = flightRepository.patch(flight.getFlightId(), new FlightPatch(null, null, null, null, 3900.0), null);
+        int updated = flightRepository.updateIfVersion(new Flight(flight.getFlightId(), "AI101", "Delhi", "Mumbai", 3800.0), 1);
+        long statements = statistics.getPrepareStatementCount();
+        Flight cached = flightRepository.findById(other.getFlightId()).orElseThrow();
+        long statementsAfterRead = statistics.getPrepareStatementCount();
+        int deleted = flightRepository.deleteIfVersion(flight.getFlightId(), 2);
+
+        // Assert
+        assertEquals(1, patched);
+        assertEquals(1, updated);
+        assertEquals(1, deleted);
+        assertEquals("AI102", cached.getFlightName());
+        assertEquals(statements, statementsAfterRead);
+        assertEquals(hits + 1, statistics.getSecondLevelCacheHitCount());
+        assertTrue(flightRepository.findById(flight.getFlightId()).isEmpty());
+        assertEquals(4200.0, flightRepository.findById(other.getFlightId()).orElseThrow().getTicketPrice());
+    }
+}
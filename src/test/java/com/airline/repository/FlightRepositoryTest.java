@@ -0,0 +1,196 @@
+package com.airline.repository;
+
+import com.airline.model.Flight;
+import com.airline.model.FlightListChecksum;
+import com.airline.model.FlightPatch;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+class FlightRepositoryTest {
+
+    @Autowired
+    private FlightRepository flightRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        flightRepository.saveAll(List.of(
+                new Flight(0, "AI101", "Delhi", "Mumbai", 5000.0),
+                new Flight(0, "AI102", "Delhi", "Mumbai", 4200.0),
+                new Flight(0, "AI103", "Delhi", "Mumbai", 6100.0),
+                new Flight(0, "SG202", "Mumbai", "Delhi", 4500.0),
+                new Flight(0, "UK303", "Delhi", "Chennai", 3000.0)));
+    }
+
+    @Test
+    void testRouteIndexIsCreated() {
+        // Act
+        List<String> columns = jdbcTemplate.queryForList(
+                "SELECT COLUMN_NAME FROM INFORMATION_SCHEMA.INDEX_COLUMNS"
+                        + " WHERE INDEX_NAME = 'IDX_FLIGHT_ROUTE_PRICE' ORDER BY ORDINAL_POSITION", String.class);
+
+        // Assert
+        assertEquals(List.of("SOURCE", "DESTINATION", "TICKET_PRICE"), columns);
+    }
+
+    @Test
+    void testSearchRouteSortedByPrice() {
+        // Act
+        List<Flight> flights = flightRepository.searchRoute("Delhi", "Mumbai", -Double.MAX_VALUE, Double.MAX_VALUE,
+                PageRequest.of(0, 10, Sort.by("ticketPrice")));
+
+        // Assert
+        assertEquals(List.of("AI102", "AI101", "AI103"),
+                flights.stream().map(Flight::getFlightName).collect(Collectors.toList()));
+    }
+
+    @Test
+    void testSearchRouteWithPriceRangeAndLimit() {
+        // Act
+        List<Flight> flights = flightRepository.searchRoute("Delhi", "Mumbai", 4500.0, 7000.0,
+                PageRequest.of(0, 1, Sort.by(Sort.Direction.DESC, "ticketPrice")));
+
+        // Assert
+        assertEquals(1, flights.size());
+        assertEquals("AI103", flights.get(0).getFlightName());
+    }
+
+    @Test
+    void testFindAfterFlightId() {
+        // Arrange
+        int firstId = flightRepository.findAll(Sort.by("flightId")).get(0).getFlightId();
+
+        // Act
+        List<Flight> flights = flightRepository.findByFlightIdGreaterThanOrderByFlightIdAsc(firstId, PageRequest.of(0, 2));
+
+        // Assert
+        assertEquals(2, flights.size());
+        assertTrue(flights.get(0).getFlightId() > firstId);
+        assertTrue(flights.get(1).getFlightId() > flights.get(0).getFlightId());
+    }
+
+    @Test
+    void testUpdateAndDeleteIfVersion() {
+        // Arrange
+        Flight stored = flightRepository.findAll(Sort.by("flightId")).get(0);
+        int flightId = stored.getFlightId();
+        Flight update = new Flight(flightId, "AI101", "Delhi", "Mumbai", 5500.0);
+
+        // Act
+        int updated = flightRepository.updateIfVersion(update, 0);
+        int outdated = flightRepository.updateIfVersion(update, 0);
+        int deletedOutdated = flightRepository.deleteIfVersion(flightId, 0);
+
+        // Assert
+        assertEquals(1, updated);
+        assertEquals(0, outdated);
+        assertEquals(0, deletedOutdated);
+        Flight reloaded = flightRepository.findById(flightId).orElseThrow();
+        assertEquals(1, reloaded.getVersion());
+        assertEquals(5500.0, reloaded.getTicketPrice());
+        assertEquals(1, flightRepository.deleteIfVersion(flightId, 1));
+        assertFalse(flightRepository.existsById(flightId));
+    }
+
+    @Test
+    void testStreamAllInIdOrder() {
+        // Arrange
+        List<Integer> ids = flightRepository.findAll(Sort.by("flightId")).stream()
+                .map(Flight::getFlightId).collect(Collectors.toList());
+
+        // Act
+        List<Integer> streamed;
+        try (Stream<Flight> flights = flightRepository.streamAll()) {
+            streamed = flights.map(Flight::getFlightId).collect(Collectors.toList());
+        }
+
+        // Assert
+        assertEquals(5, streamed.size());
+        assertEquals(ids, streamed);
+    }
+
+    @Test
+    void testFindListChecksumFollowsWrites() {
+        // Arrange
+        List<Flight> stored = flightRepository.findAll(Sort.by("flightId"));
+        FlightListChecksum before = flightRepository.findListChecksum();
+
+        // Act
+        flightRepository.updateIfVersion(new Flight(stored.get(0).getFlightId(), "AI101", "Delhi", "Mumbai", 5100.0), 0);
+        FlightListChecksum updated = flightRepository.findListChecksum();
+        flightRepository.deleteById(stored.get(1).getFlightId());
+        FlightListChecksum deleted = flightRepository.findListChecksum();
+
+        // Assert
+        assertEquals(5, before.getCount());
+        assertEquals(5, updated.getCount());
+        assertNotEquals(before.getFirst(), updated.getFirst());
+        assertNotEquals(before.getSecond(), updated.getSecond());
+        assertEquals(4, deleted.getCount());
+    }
+
+    @Test
+    void testFindListChecksumOfEmptyTable() {
+        // Arrange
+        flightRepository.deleteAll();
+
+        // Act
+        FlightListChecksum checksum = flightRepository.findListChecksum();
+
+        // Assert
+        assertEquals(new FlightListChecksum(0, 0, 0), checksum);
+    }
+
+    @Test
+    void testPatchWritesOnlyGivenFields() {
+        // Arrange
+        int flightId = flightRepository.findAll(Sort.by("flightId")).get(0).getFlightId();
+
+        // Act
+        int patched = flightRepository.patch(flightId, new FlightPatch(null, null, null, null, 4800.0), null);
+        int outdated = flightRepository.patch(flightId, new FlightPatch(null, "AI999", null, null, null), 0L);
+
+        // Assert
+        assertEquals(1, patched);
+        assertEquals(0, outdated);
+        Flight reloaded = flightRepository.findById(flightId).orElseThrow();
+        assertEquals(new Flight(flightId, "AI101", "Delhi", "Mumbai", 4800.0), reloaded);
+        assertEquals(1, reloaded.getVersion());
+    }
+
+    @Test
+    void testPatchAllInBatches() {
+        // Arrange
+        List<Flight> stored = flightRepository.findAll(Sort.by("flightId"));
+        List<FlightPatch> patches = List.of(
+                new FlightPatch(stored.get(0).getFlightId(), null, null, null, 100.0),
+                new FlightPatch(stored.get(1).getFlightId(), "AI202", null, null, null),
+                new FlightPatch(-1, null, null, null, 300.0),
+                new FlightPatch(stored.get(2).getFlightId(), null, null, null, 200.0));
+
+        // Act
+        int[] counts = flightRepository.patchAll(patches);
+
+        // Assert
+        assertArrayEquals(new int[]{1, 1, 0, 1}, counts);
+        Flight first = flightRepository.findById(stored.get(0).getFlightId()).orElseThrow();
+        assertEquals(new Flight(first.getFlightId(), "AI101", "Delhi", "Mumbai", 100.0), first);
+        assertEquals(1, first.getVersion());
+        assertEquals("AI202", flightRepository.findById(stored.get(1).getFlightId()).orElseThrow().getFlightName());
+        assertEquals(200.0, flightRepository.findById(stored.get(2).getFlightId()).orElseThrow().getTicketPrice());
+    }
+}
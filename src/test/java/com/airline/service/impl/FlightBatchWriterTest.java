@@ -0,0 +1,73 @@
+package com.airline.service.impl;
+
+import com.airline.model.Flight;
+import com.airline.repository.FlightRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Import(FlightBatchWriter.class)
+class FlightBatchWriterTest {
+
+    @Autowired
+    private FlightBatchWriter flightBatchWriter;
+
+    @Autowired
+    private FlightRepository flightRepository;
+
+    @Test
+    void testInsertAssignsIdsFromSequence() {
+        // Arrange
+        List<Flight> flights = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            flights.add(new Flight(0, "F" + i, "Delhi", "Mumbai", 1000.0 + i));
+        }
+
+        // Act
+        List<Flight> saved = flightBatchWriter.insert(flights);
+
+        // Assert
+        assertEquals(120, saved.size());
+        assertEquals(120, saved.stream().mapToInt(Flight::getFlightId).distinct().count());
+        assertTrue(saved.stream().allMatch(flight -> flight.getFlightId() > 0));
+        assertEquals(120, flightRepository.count());
+    }
+
+    @Test
+    void testUpdateSkipsMissingFlights() {
+        // Arrange
+        Flight saved = flightBatchWriter.insert(List.of(new Flight(0, "AI101", "Delhi", "Mumbai", 5000.0))).get(0);
+        Flight change = new Flight(saved.getFlightId(), "AI101", "Delhi", "Goa", 5500.0);
+        Flight missing = new Flight(saved.getFlightId() + 1000, "XX", "A", "B", 1.0);
+
+        // Act
+        List<Flight> updated = flightBatchWriter.update(Arrays.asList(change, missing));
+
+        // Assert
+        assertEquals(1, updated.size());
+        Flight reloaded = flightRepository.findById(saved.getFlightId()).orElseThrow();
+        assertEquals("Goa", reloaded.getDestination());
+        assertEquals(5500.0, reloaded.getTicketPrice());
+    }
+
+    @Test
+    void testDeleteReturnsExistingIds() {
+        // Arrange
+        Flight saved = flightBatchWriter.insert(List.of(new Flight(0, "AI101", "Delhi", "Mumbai", 5000.0))).get(0);
+
+        // Act
+        List<Integer> deleted = flightBatchWriter.delete(Arrays.asList(saved.getFlightId(), saved.getFlightId() + 1000));
+
+        // Assert
+        assertEquals(List.of(saved.getFlightId()), deleted);
+        assertFalse(flightRepository.existsById(saved.getFlightId()));
+    }
+}
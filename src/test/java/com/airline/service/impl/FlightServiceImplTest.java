@@ -1,18 +1,52 @@
 package com.airline.service.impl;
 
+import com.airline.cache.FlightCache;
+import com.airline.cache.FlightRouteIndex;
+import com.airline.changes.FlightChangeLog;
+import com.airline.datasource.ReplicaLagWindow;
+import com.airline.invalidation.FlightInvalidationBus;
+import com.airline.limiter.ConcurrencyLimitExceededException;
+import com.airline.limiter.ConcurrencyLimiter;
+import com.airline.model.BulkResult;
 import com.airline.model.Flight;
+import com.airline.model.FlightChange;
+import com.airline.model.FlightPage;
+import com.airline.model.FlightListVersion;
+import com.airline.model.FlightPatch;
+import com.airline.model.FlightListChecksum;
 import com.airline.repository.FlightRepository;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 class FlightServiceImplTest {
@@ -20,11 +54,33 @@ class FlightServiceImplTest {
     @Mock
     private FlightRepository flightRepository;
 
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private FlightBatchWriter flightBatchWriter;
+
+    @Mock
+    private FlightInvalidationBus flightInvalidationBus;
+
+    @Spy
+    private FlightCache flightCache = new FlightCache(true, 100, Duration.ofMinutes(10));
+
+    @Spy
+    private FlightRouteIndex flightRouteIndex = new FlightRouteIndex(true);
+
+    @Spy
+    private FlightChangeLog flightChangeLog;
+
+    @Spy
+    private ReplicaLagWindow replicaLagWindow = new ReplicaLagWindow(Duration.ofSeconds(5));
+
     @InjectMocks
     private FlightServiceImpl flightService;
 
     @BeforeEach
-    void setUp() {
+    void setUp() throws Exception {
+        flightChangeLog = new FlightChangeLog(100, "");
         MockitoAnnotations.openMocks(this);
     }
 
@@ -82,6 +138,27 @@ class FlightServiceImplTest {
         verifyNoMoreInteractions(flightRepository);
     }
 
+    @Test
+    void testGetFlight_RecentlyChangedIsReadFresh() throws Exception {
+        // Arrange
+        int flightId = 1;
+        Flight changed = new Flight(flightId, "TestFlight", "Source", "Destination", 90.0);
+        replicaLagWindow.markChanged(List.of(flightId));
+        when(flightRepository.findFreshById(flightId)).thenAnswer(invocation -> {
+            assertTrue(replicaLagWindow.isPrimaryRequested());
+            return Optional.of(changed);
+        });
+
+        // Act
+        Flight result = flightService.getFlight(flightId);
+
+        // Assert
+        assertEquals(changed, result);
+        assertFalse(replicaLagWindow.isPrimaryRequested());
+        verify(flightRepository, times(1)).findFreshById(flightId);
+        verifyNoMoreInteractions(flightRepository);
+    }
+
     @Test
     void testGetFlight_NotFound() {
         // Arrange
@@ -118,7 +195,7 @@ class FlightServiceImplTest {
         // Arrange
         int flightId = 1;
         Flight flight = new Flight(flightId, "UpdatedFlight", "UpdatedSource", "UpdatedDestination", 150.0);
-        when(flightRepository.save(flight)).thenReturn(flight);
+        when(flightBatchWriter.update(List.of(flight))).thenReturn(List.of(flight));
 
         // Act
         Flight result = flightService.updateFlight(flightId, flight);
@@ -126,7 +203,635 @@ class FlightServiceImplTest {
         // Assert
         assertNotNull(result);
         assertEquals(flight, result);
-        verify(flightRepository, times(1)).save(flight);
+        verify(flightBatchWriter, times(1)).update(List.of(flight));
+        verifyNoMoreInteractions(flightRepository);
+    }
+
+    @Test
+    void testUpdateFlight_ConcurrentWritesAreLoggedInCommitOrder() throws Exception {
+        // Arrange
+        CountDownLatch firstWriting = new CountDownLatch(1);
+        CountDownLatch releaseFirst = new CountDownLatch(1);
+        List<Long> committed = new ArrayList<>();
+        when(flightBatchWriter.update(anyList())).thenAnswer(invocation -> {
+            Flight flight = new Flight(1, "TestFlight", "Source", "Destination",
+                    ((List<Flight>) invocation.getArgument(0)).get(0).getTicketPrice());
+            if (flight.getTicketPrice() == 200.0) {
+                firstWriting.countDown();
+                assertTrue(releaseFirst.await(5, TimeUnit.SECONDS));
+            }
+            synchronized (committed) {
+                flight.setVersion(committed.size() + 1);
+                committed.add(flight.getVersion());
+            }
+            return List.of(flight);
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        // Act
+        Future<Flight> first = executor.submit(() ->
+                flightService.updateFlight(1, new Flight(1, "TestFlight", "Source", "Destination", 200.0)));
+        assertTrue(firstWriting.await(5, TimeUnit.SECONDS));
+        Future<Flight> second = executor.submit(() ->
+                flightService.updateFlight(1, new Flight(1, "TestFlight", "Source", "Destination", 300.0)));
+        // the second write has to wait until the first one has been logged
+        Thread.sleep(100);
+        releaseFirst.countDown();
+        first.get(5, TimeUnit.SECONDS);
+        second.get(5, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        // Assert
+        List<FlightChange> changes = flightChangeLog.since(0, 10);
+        assertEquals(List.of(1L, 2L), changes.stream().map(change -> change.getFlight().getVersion()).toList());
+        assertEquals(300.0, changes.get(1).getFlight().getTicketPrice());
+    }
+
+    @Test
+    void testUpdateFlight_NotFound() {
+        // Arrange
+        int flightId = 1;
+        Flight flight = new Flight(flightId, "UpdatedFlight", "UpdatedSource", "UpdatedDestination", 150.0);
+        when(flightBatchWriter.update(List.of(flight))).thenReturn(List.of());
+
+        // Act & Assert
+        assertThrows(EmptyResultDataAccessException.class, () -> flightService.updateFlight(flightId, flight));
+    }
+
+    @Test
+    void testUpdateFlight_IfVersionMatches() throws Exception {
+        // Arrange
+        int flightId = 1;
+        flightCache.put(new Flight(flightId, "OldFlight", "Source", "Destination", 100.0));
+        Flight flight = new Flight(flightId, "UpdatedFlight", "Source", "Destination", 150.0);
+        when(flightRepository.updateIfVersion(flight, 3)).thenReturn(1);
+
+        // Act
+        Flight result = flightService.updateFlight(flightId, flight, 3);
+
+        // Assert
+        assertEquals(4, result.getVersion());
+        assertEquals(150.0, result.getTicketPrice());
+        assertEquals(4, flightService.getFlight(flightId).getVersion());
+        verify(flightRepository, times(1)).updateIfVersion(flight, 3);
+        verifyNoMoreInteractions(flightRepository);
+    }
+
+    @Test
+    void testUpdateFlight_IfVersionOutdated() {
+        // Arrange
+        int flightId = 1;
+        flightCache.put(new Flight(flightId, "OldFlight", "Source", "Destination", 100.0));
+        Flight flight = new Flight(flightId, "UpdatedFlight", "Source", "Destination", 150.0);
+        when(flightRepository.updateIfVersion(flight, 3)).thenReturn(0);
+        when(flightRepository.existsById(flightId)).thenReturn(true);
+
+        // Act & Assert
+        assertThrows(OptimisticLockingFailureException.class, () -> flightService.updateFlight(flightId, flight, 3));
+        assertNull(flightCache.getIfPresent(flightId));
+    }
+
+    @Test
+    void testDeleteFlight_IfVersion() {
+        // Arrange
+        when(flightRepository.deleteIfVersion(1, 2)).thenReturn(1);
+        when(flightRepository.deleteIfVersion(2, 2)).thenReturn(0);
+        when(flightRepository.existsById(2)).thenReturn(false);
+
+        // Act & Assert
+        assertTrue(flightService.deleteFlight(1, 2));
+        assertThrows(EmptyResultDataAccessException.class, () -> flightService.deleteFlight(2, 2));
+        verify(flightRepository, never()).deleteById(anyInt());
+    }
+
+    @Test
+    void testGetFlightPage_FirstPageWithMore() {
+        // Arrange
+        Flight flight1 = new Flight(1, "Flight1", "Source1", "Destination1", 100.0);
+        Flight flight2 = new Flight(2, "Flight2", "Source2", "Destination2", 200.0);
+        Flight flight3 = new Flight(3, "Flight3", "Source3", "Destination3", 300.0);
+        when(flightRepository.findByFlightIdGreaterThanOrderByFlightIdAsc(0, PageRequest.of(0, 3)))
+                .thenReturn(Arrays.asList(flight1, flight2, flight3));
+
+        // Act
+        FlightPage page = flightService.getFlightPage(null, 2);
+
+        // Assert
+        assertEquals(Arrays.asList(flight1, flight2), page.getFlights());
+        assertNotNull(page.getNextCursor());
+        assertEquals(2, FlightCursor.decode(page.getNextCursor()));
+        verify(flightRepository, times(1)).findByFlightIdGreaterThanOrderByFlightIdAsc(0, PageRequest.of(0, 3));
+        verifyNoMoreInteractions(flightRepository);
+    }
+
+    @Test
+    void testGetFlightPage_LastPage() {
+        // Arrange
+        Flight flight3 = new Flight(3, "Flight3", "Source3", "Destination3", 300.0);
+        when(flightRepository.findByFlightIdGreaterThanOrderByFlightIdAsc(2, PageRequest.of(0, 3)))
+                .thenReturn(List.of(flight3));
+
+        // Act
+        FlightPage page = flightService.getFlightPage(FlightCursor.encode(2), 2);
+
+        // Assert
+        assertEquals(List.of(flight3), page.getFlights());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void testGetFlightPage_LimitIsCapped() {
+        // Arrange
+        when(flightRepository.findByFlightIdGreaterThanOrderByFlightIdAsc(0, PageRequest.of(0, 501)))
+                .thenReturn(List.of());
+
+        // Act
+        FlightPage page = flightService.getFlightPage("", 100000);
+
+        // Assert
+        assertTrue(page.getFlights().isEmpty());
+        verify(flightRepository, times(1)).findByFlightIdGreaterThanOrderByFlightIdAsc(0, PageRequest.of(0, 501));
+    }
+
+    @Test
+    void testGetFlightPage_InvalidCursor() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> flightService.getFlightPage("not-a-cursor!", 10));
+        verifyNoInteractions(flightRepository);
+    }
+
+    @Test
+    void testExportFlights() {
+        // Arrange
+        Flight flight1 = new Flight(1, "Flight1", "Source1", "Destination1", 100.0);
+        Flight flight2 = new Flight(2, "Flight2", "Source2", "Destination2", 200.0);
+        when(flightRepository.streamAll()).thenReturn(Stream.of(flight1, flight2));
+        List<Flight> exported = new ArrayList<>();
+
+        // Act
+        long count = flightService.exportFlights(exported::add);
+
+        // Assert
+        assertEquals(2, count);
+        assertEquals(Arrays.asList(flight1, flight2), exported);
+        verify(entityManager, times(1)).detach(flight1);
+        verify(entityManager, times(1)).detach(flight2);
+        verify(flightRepository, times(1)).streamAll();
         verifyNoMoreInteractions(flightRepository);
     }
+
+    @Test
+    void testGetFlight_InvalidatedDuringLoadIsNotCached() throws Exception {
+        // Arrange
+        int flightId = 1;
+        Flight stale = new Flight(flightId, "TestFlight", "Source", "Destination", 100.0);
+        when(flightRepository.findById(flightId)).thenAnswer(invocation -> {
+            // another instance's write is invalidated while the row is being read
+            flightCache.invalidate(flightId);
+            return Optional.of(stale);
+        });
+
+        // Act
+        Flight result = flightService.getFlight(flightId);
+        result.setTicketPrice(1.0);
+
+        // Assert
+        assertEquals(100.0, stale.getTicketPrice());
+        assertNull(flightCache.getIfPresent(flightId));
+    }
+
+    @Test
+    void testGetFlightListVersion_ChangesWithTheChecksum() {
+        // Arrange
+        when(flightRepository.findListChecksum())
+                .thenReturn(new FlightListChecksum(2, 1000, 2000))
+                .thenReturn(new FlightListChecksum(2, 1000, 2001))
+                .thenReturn(new FlightListChecksum(2, 1000, 2000));
+
+        // Act
+        FlightListVersion first = flightService.getFlightListVersion();
+        FlightListVersion moved = flightService.getFlightListVersion();
+        FlightListVersion again = flightService.getFlightListVersion();
+
+        // Assert
+        assertEquals(2, first.getCount());
+        assertNotEquals(first.getHash(), moved.getHash());
+        assertEquals(first, again);
+    }
+
+    @Test
+    void testGetFlight_ServedFromCache() throws Exception {
+        // Arrange
+        int flightId = 1;
+        Flight expectedFlight = new Flight(flightId, "TestFlight", "Source", "Destination", 100.0);
+        when(flightRepository.findById(flightId)).thenReturn(Optional.of(expectedFlight));
+
+        // Act
+        Flight first = flightService.getFlight(flightId);
+        Flight second = flightService.getFlight(flightId);
+
+        // Assert
+        assertEquals(expectedFlight, first);
+        assertEquals(expectedFlight, second);
+        verify(flightRepository, times(1)).findById(flightId);
+        assertEquals(1, flightCache.stats().getHitCount());
+        assertEquals(1, flightCache.stats().getMissCount());
+    }
+
+    @Test
+    void testGetAllFlight_ConcurrentCallersShareOneQuery() throws Exception {
+        // Arrange
+        List<Flight> flights = List.of(new Flight(1, "TestFlight", "Source", "Destination", 100.0));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(flightRepository.findAll()).thenAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return new ArrayList<>(flights);
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<List<Flight>>> results = new ArrayList<>();
+            results.add(executor.submit(() -> flightService.getAllFlight()));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            // Act
+            for (int i = 0; i < 3; i++) {
+                results.add(executor.submit(() -> flightService.getAllFlight()));
+            }
+            Thread.sleep(200);
+            release.countDown();
+
+            // Assert
+            for (Future<List<Flight>> result : results) {
+                assertEquals(flights, result.get(5, TimeUnit.SECONDS));
+            }
+            verify(flightRepository, times(1)).findAll();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testGetAllFlight_WriteStartsNewQuery() throws Exception {
+        // Arrange
+        Flight flight = new Flight(1, "TestFlight", "Source", "Destination", 100.0);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(flightRepository.findAll()).thenAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return new ArrayList<Flight>();
+        });
+        when(flightRepository.save(flight)).thenReturn(flight);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<List<Flight>> before = executor.submit(() -> flightService.getAllFlight());
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            // Act
+            flightService.addFlight(flight);
+            Future<List<Flight>> after = executor.submit(() -> flightService.getAllFlight());
+            Thread.sleep(200);
+            release.countDown();
+
+            // Assert
+            before.get(5, TimeUnit.SECONDS);
+            after.get(5, TimeUnit.SECONDS);
+            verify(flightRepository, times(2)).findAll();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testUpdateFlight_RefreshesCache() throws Exception {
+        // Arrange
+        int flightId = 1;
+        flightCache.put(new Flight(flightId, "OldFlight", "Source", "Destination", 100.0));
+        Flight flight = new Flight(flightId, "UpdatedFlight", "Source", "Destination", 150.0);
+        when(flightBatchWriter.update(List.of(flight))).thenReturn(List.of(flight));
+
+        // Act
+        flightService.updateFlight(flightId, flight);
+
+        // Assert
+        assertEquals(flight, flightService.getFlight(flightId));
+        verify(flightRepository, never()).findById(flightId);
+    }
+
+    @Test
+    void testDeleteFlight_InvalidatesCache() {
+        // Arrange
+        int flightId = 1;
+        flightCache.put(new Flight(flightId, "TestFlight", "Source", "Destination", 100.0));
+        when(flightRepository.findById(flightId)).thenReturn(Optional.empty());
+
+        // Act
+        flightService.deleteFlight(flightId);
+
+        // Assert
+        assertNull(flightCache.getIfPresent(flightId));
+        assertThrows(Exception.class, () -> flightService.getFlight(flightId));
+        verify(flightRepository, times(1)).findById(flightId);
+    }
+
+    @Test
+    void testAddFlights() {
+        // Arrange
+        Flight flight1 = new Flight(0, "Flight1", "Source1", "Destination1", 100.0);
+        Flight flight2 = new Flight(0, "Flight2", "Source2", "Destination2", 200.0);
+        when(flightBatchWriter.insert(Arrays.asList(flight1, flight2))).thenReturn(Arrays.asList(
+                new Flight(11, "Flight1", "Source1", "Destination1", 100.0),
+                new Flight(12, "Flight2", "Source2", "Destination2", 200.0)));
+
+        // Act
+        BulkResult result = flightService.addFlights(Arrays.asList(flight1, null, flight2));
+
+        // Assert
+        assertEquals(2, result.getSucceeded());
+        assertEquals(1, result.getFailed());
+        assertEquals(11, result.getItems().get(0).getFlightId());
+        assertFalse(result.getItems().get(1).isSuccess());
+        assertEquals(12, result.getItems().get(2).getFlightId());
+        assertEquals(2, result.getItems().get(2).getIndex());
+        assertNotNull(flightCache.getIfPresent(11));
+        verify(flightBatchWriter, times(1)).insert(anyList());
+    }
+
+    @Test
+    void testAddFlights_ChunkFailureFallsBackToSingleItems() {
+        // Arrange
+        Flight good = new Flight(0, "Good", "Source1", "Destination1", 100.0);
+        Flight bad = new Flight(0, "Bad", "Source2", "Destination2", 200.0);
+        when(flightBatchWriter.insert(Arrays.asList(good, bad))).thenThrow(new IllegalStateException("constraint"));
+        when(flightBatchWriter.insert(List.of(good))).thenReturn(List.of(new Flight(21, "Good", "Source1", "Destination1", 100.0)));
+        when(flightBatchWriter.insert(List.of(bad))).thenThrow(new IllegalStateException("constraint"));
+
+        // Act
+        BulkResult result = flightService.addFlights(Arrays.asList(good, bad));
+
+        // Assert
+        assertEquals(1, result.getSucceeded());
+        assertEquals(1, result.getFailed());
+        assertTrue(result.getItems().get(0).isSuccess());
+        assertEquals("constraint", result.getItems().get(1).getError());
+        assertNull(result.getItems().get(1).getFlightId());
+    }
+
+    @Test
+    void testUpdateFlights_ReportsMissingFlights() {
+        // Arrange
+        Flight existing = new Flight(1, "Flight1", "Source1", "Destination1", 150.0);
+        Flight missing = new Flight(99, "Flight99", "Source", "Destination", 100.0);
+        when(flightBatchWriter.update(Arrays.asList(existing, missing))).thenReturn(List.of(existing));
+
+        // Act
+        BulkResult result = flightService.updateFlights(Arrays.asList(existing, missing));
+
+        // Assert
+        assertEquals(1, result.getSucceeded());
+        assertTrue(result.getItems().get(0).isSuccess());
+        assertEquals("No Flight with Id: 99", result.getItems().get(1).getError());
+        assertEquals(existing, flightCache.getIfPresent(1));
+    }
+
+    @Test
+    void testDeleteFlights() {
+        // Arrange
+        flightCache.put(new Flight(1, "Flight1", "Source1", "Destination1", 100.0));
+        when(flightBatchWriter.delete(Arrays.asList(1, 2))).thenReturn(List.of(1));
+
+        // Act
+        BulkResult result = flightService.deleteFlights(Arrays.asList(1, 2));
+
+        // Assert
+        assertEquals(1, result.getSucceeded());
+        assertEquals(1, result.getFailed());
+        assertEquals("No Flight with Id: 2", result.getItems().get(1).getError());
+        assertNull(flightCache.getIfPresent(1));
+    }
+
+    @Test
+    void testBulk_SplitsIntoChunks() {
+        // Arrange
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 1; i <= 120; i++) {
+            ids.add(i);
+        }
+        when(flightBatchWriter.delete(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        BulkResult result = flightService.deleteFlights(ids);
+
+        // Assert
+        assertEquals(120, result.getSucceeded());
+        verify(flightBatchWriter, times(1)).delete(ids.subList(0, 50));
+        verify(flightBatchWriter, times(1)).delete(ids.subList(50, 100));
+        verify(flightBatchWriter, times(1)).delete(ids.subList(100, 120));
+    }
+
+    @Test
+    void testBulk_RejectedChunkIsNotRetriedItemByItem() {
+        // Arrange
+        when(flightBatchWriter.delete(anyList())).thenThrow(new ConcurrencyLimitExceededException(
+                ConcurrencyLimiter.Lane.WRITE, 4, Duration.ofSeconds(1)));
+
+        // Act
+        BulkResult result = flightService.deleteFlights(Arrays.asList(1, 2, 3));
+
+        // Assert
+        assertEquals(0, result.getSucceeded());
+        assertEquals(3, result.getFailed());
+        assertEquals("Too many concurrent writes, limit is 4", result.getItems().get(2).getError());
+        verify(flightBatchWriter, times(1)).delete(anyList());
+    }
+
+    @Test
+    void testBulk_TooManyItems() {
+        // Arrange
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i <= 10000; i++) {
+            ids.add(i);
+        }
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> flightService.deleteFlights(ids));
+        verifyNoInteractions(flightBatchWriter);
+    }
+
+    @Test
+    void testSearchFlights() {
+        // Arrange
+        Flight flight = new Flight(1, "Flight1", "Delhi", "Mumbai", 100.0);
+        PageRequest pageRequest = PageRequest.of(0, 50,
+                Sort.by(Sort.Direction.ASC, "ticketPrice").and(Sort.by(Sort.Direction.ASC, "flightId")));
+        when(flightRepository.searchRoute("Delhi", "Mumbai", 50.0, Double.MAX_VALUE, pageRequest))
+                .thenReturn(List.of(flight));
+
+        // Act
+        List<Flight> result = flightService.searchFlights("Delhi", "Mumbai", 50.0, null, Sort.Direction.ASC, 0);
+
+        // Assert
+        assertEquals(List.of(flight), result);
+        verify(flightRepository, times(1)).searchRoute("Delhi", "Mumbai", 50.0, Double.MAX_VALUE, pageRequest);
+        verifyNoMoreInteractions(flightRepository);
+    }
+
+    @Test
+    void testSearchFlights_InvalidPriceRange() {
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class,
+                () -> flightService.searchFlights("Delhi", "Mumbai", 500.0, 100.0, Sort.Direction.ASC, 10));
+        verifyNoInteractions(flightRepository);
+    }
+
+    @Test
+    void testGetRouteFlights_ServedFromIndex() {
+        // Arrange
+        flightRouteIndex.replaceAll(List.of(new Flight(1, "Flight1", "Delhi", "Mumbai", 100.0)));
+        Flight added = new Flight(2, "Flight2", "Delhi", "Mumbai", 50.0);
+        when(flightRepository.save(added)).thenReturn(added);
+        flightService.addFlight(added);
+
+        // Act
+        List<Flight> result = flightService.getRouteFlights("Delhi", "Mumbai", 10);
+
+        // Assert
+        assertEquals(2, result.size());
+        assertEquals(2, result.get(0).getFlightId());
+        verify(flightRepository, never()).searchRoute(anyString(), anyString(), anyDouble(), anyDouble(), any());
+    }
+
+    @Test
+    void testGetRouteFlights_FallsBackToDatabase() {
+        // Arrange
+        Flight flight = new Flight(1, "Flight1", "Delhi", "Mumbai", 100.0);
+        when(flightRepository.searchRoute(eq("Delhi"), eq("Mumbai"), anyDouble(), anyDouble(), any()))
+                .thenReturn(List.of(flight));
+
+        // Act
+        List<Flight> result = flightService.getRouteFlights("Delhi", "Mumbai", 10);
+
+        // Assert
+        assertEquals(List.of(flight), result);
+        verify(flightRepository, times(1)).searchRoute(eq("Delhi"), eq("Mumbai"), anyDouble(), anyDouble(), any());
+    }
+
+    @Test
+    void testDeleteFlight_RemovesFromRouteIndex() {
+        // Arrange
+        flightRouteIndex.replaceAll(List.of(new Flight(1, "Flight1", "Delhi", "Mumbai", 100.0)));
+
+        // Act
+        flightService.deleteFlight(1);
+
+        // Assert
+        assertTrue(flightService.getRouteFlights("Delhi", "Mumbai", 10).isEmpty());
+    }
+
+    @Test
+    void testPatchFlight_InvalidatesCache() {
+        // Arrange
+        int flightId = 1;
+        FlightPatch patch = new FlightPatch(null, null, null, null, 120.0);
+        flightCache.put(new Flight(flightId, "TestFlight", "Source", "Destination", 100.0));
+        when(flightRepository.patch(flightId, patch, null)).thenReturn(1);
+
+        // Act
+        flightService.patchFlight(flightId, patch);
+
+        // Assert
+        assertNull(flightCache.getIfPresent(flightId));
+        verify(flightRepository, times(1)).patch(flightId, patch, null);
+        verifyNoMoreInteractions(flightRepository);
+    }
+
+    @Test
+    void testPatchFlight_NotFoundOrEmpty() {
+        // Arrange
+        FlightPatch patch = new FlightPatch(null, null, null, null, 120.0);
+        when(flightRepository.patch(1, patch, null)).thenReturn(0);
+
+        // Act & Assert
+        assertThrows(EmptyResultDataAccessException.class, () -> flightService.patchFlight(1, patch));
+        assertThrows(IllegalArgumentException.class, () -> flightService.patchFlight(1, new FlightPatch()));
+    }
+
+    @Test
+    void testPatchFlight_IfVersionRefreshesCache() throws Exception {
+        // Arrange
+        int flightId = 1;
+        Flight cached = new Flight(flightId, "TestFlight", "Source", "Destination", 100.0);
+        cached.setVersion(2);
+        flightCache.put(cached);
+        FlightPatch patch = new FlightPatch(null, null, null, null, 120.0);
+        when(flightRepository.patch(flightId, patch, 2L)).thenReturn(1);
+
+        // Act
+        long version = flightService.patchFlight(flightId, patch, 2);
+
+        // Assert
+        assertEquals(3, version);
+        Flight result = flightService.getFlight(flightId);
+        assertEquals(new Flight(flightId, "TestFlight", "Source", "Destination", 120.0), result);
+        assertEquals(3, result.getVersion());
+        verify(flightRepository, never()).findById(flightId);
+    }
+
+    @Test
+    void testPatchFlights() {
+        // Arrange
+        List<FlightPatch> patches = Arrays.asList(
+                new FlightPatch(1, null, null, null, 110.0),
+                new FlightPatch(2, null, null, null, 120.0),
+                null);
+        when(flightRepository.patchAll(patches.subList(0, 2))).thenReturn(new int[]{1, 0});
+
+        // Act
+        BulkResult result = flightService.patchFlights(patches);
+
+        // Assert
+        assertEquals(1, result.getSucceeded());
+        assertEquals(2, result.getFailed());
+        assertTrue(result.getItems().get(0).isSuccess());
+        assertEquals("No Flight with Id: 2", result.getItems().get(1).getError());
+        assertEquals("Item is required", result.getItems().get(2).getError());
+    }
+
+    @Test
+    void testWritesAreRecordedInChangeLog() {
+        // Arrange
+        Flight flight = new Flight(1, "TestFlight", "Source", "Destination", 100.0);
+        when(flightRepository.save(flight)).thenReturn(flight);
+        when(flightBatchWriter.update(List.of(flight))).thenReturn(List.of(flight));
+
+        // Act
+        flightService.addFlight(flight);
+        flightService.updateFlight(1, flight);
+        flightService.deleteFlight(1);
+
+        // Assert
+        List<FlightChange> changes = flightChangeLog.since(0, 10);
+        assertEquals(List.of(FlightChange.Type.CREATED, FlightChange.Type.UPDATED, FlightChange.Type.DELETED),
+                changes.stream().map(FlightChange::getType).collect(Collectors.toList()));
+        assertEquals(flight, changes.get(1).getFlight());
+        assertNull(changes.get(2).getFlight());
+    }
+
+    @Test
+    void testWritesArePublishedToOtherInstances() {
+        // Arrange
+        Flight flight = new Flight(1, "TestFlight", "Source", "Destination", 100.0);
+        when(flightRepository.save(flight)).thenReturn(flight);
+        when(flightBatchWriter.delete(Arrays.asList(2, 3))).thenReturn(List.of(2));
+
+        // Act
+        flightService.addFlight(flight);
+        flightService.deleteFlights(Arrays.asList(2, 3));
+
+        // Assert
+        verify(flightInvalidationBus).publish(1);
+        verify(flightInvalidationBus).publish(Set.of(2));
+    }
 }
@@ -0,0 +1,88 @@
+package com.airline.service.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the FlightWriteLocks class
+ */
+class FlightWriteLocksTest {
+
+    /**
+     * Test that a second writer of the same flight waits until the first releases its lock
+     */
+    @Test
+    void testSameFlightIsExclusive() throws Exception {
+        FlightWriteLocks locks = new FlightWriteLocks(16);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        AtomicBoolean acquired = new AtomicBoolean();
+
+        Future<?> other;
+        try (FlightWriteLocks.Held held = locks.lock(1)) {
+            other = executor.submit(() -> {
+                try (FlightWriteLocks.Held second = locks.lock(List.of(3, 1))) {
+                    acquired.set(true);
+                }
+            });
+            Thread.sleep(100);
+            assertFalse(acquired.get());
+        }
+        other.get(5, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        assertTrue(acquired.get());
+    }
+
+    /**
+     * Test that writers of different flights do not wait for each other
+     */
+    @Test
+    void testOtherFlightIsNotBlocked() throws Exception {
+        FlightWriteLocks locks = new FlightWriteLocks(16);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        try (FlightWriteLocks.Held held = locks.lock(1)) {
+            executor.submit(() -> locks.lock(2).close()).get(5, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+    }
+
+    /**
+     * Test that chunks locking the same flights in opposite orders do not deadlock,
+     * and that null IDs and flights sharing a lock are handled
+     */
+    @Test
+    void testOverlappingChunksDoNotDeadlock() throws Exception {
+        FlightWriteLocks locks = new FlightWriteLocks(16);
+        List<Integer> forward = Arrays.asList(1, 2, 3, 17, null);
+        List<Integer> backward = Arrays.asList(null, 17, 3, 2, 1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        CountDownLatch start = new CountDownLatch(1);
+
+        Future<?> first = executor.submit(() -> run(locks, forward, start));
+        Future<?> second = executor.submit(() -> run(locks, backward, start));
+        start.countDown();
+
+        first.get(10, TimeUnit.SECONDS);
+        second.get(10, TimeUnit.SECONDS);
+        executor.shutdown();
+    }
+
+    private static Void run(FlightWriteLocks locks, List<Integer> flightIds, CountDownLatch start) throws Exception {
+        start.await();
+        for (int i = 0; i < 10000; i++) {
+            locks.lock(flightIds).close();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,94 @@
+package com.airline.tracing;
+
+import com.airline.model.SpanRecord;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Scope;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the RingBufferSpanExporter class
+ */
+class RingBufferSpanExporterTest {
+
+    private static Tracer tracerFor(RingBufferSpanExporter exporter) {
+        return SdkTracerProvider.builder()
+                .addSpanProcessor(SimpleSpanProcessor.create(exporter))
+                .build()
+                .get("test");
+    }
+
+    private static List<String> names(List<SpanRecord> spans) {
+        return spans.stream().map(SpanRecord::getName).collect(Collectors.toList());
+    }
+
+    /**
+     * Test that child spans keep their parent and trace
+     */
+    @Test
+    void testParentChild() throws Exception {
+        RingBufferSpanExporter exporter = new RingBufferSpanExporter(10, "");
+        Tracer tracer = tracerFor(exporter);
+
+        Span parent = tracer.spanBuilder("request").startSpan();
+        try (Scope ignored = parent.makeCurrent()) {
+            tracer.spanBuilder("query").startSpan().setAttribute("jdbc.query", "select 1").end();
+        }
+        parent.end();
+
+        List<SpanRecord> spans = exporter.recentSpans(null);
+        assertEquals(List.of("request", "query"), names(spans));
+        SpanRecord request = spans.get(0);
+        SpanRecord query = spans.get(1);
+        assertNull(request.getParentSpanId());
+        assertEquals(request.getSpanId(), query.getParentSpanId());
+        assertEquals(request.getTraceId(), query.getTraceId());
+        assertEquals("select 1", query.getAttributes().get("jdbc.query"));
+        assertEquals(1, exporter.recentSpans(request.getTraceId()).size() - 1);
+        assertTrue(exporter.recentSpans("0123456789abcdef0123456789abcdef").isEmpty());
+    }
+
+    /**
+     * Test that only the newest spans are kept
+     */
+    @Test
+    void testOldestSpansAreOverwritten() throws Exception {
+        RingBufferSpanExporter exporter = new RingBufferSpanExporter(3, "");
+        Tracer tracer = tracerFor(exporter);
+
+        for (int i = 1; i <= 5; i++) {
+            tracer.spanBuilder("span-" + i).startSpan().end();
+        }
+
+        assertEquals(List.of("span-5", "span-4", "span-3"), names(exporter.recentSpans(null)));
+    }
+
+    /**
+     * Test that spans are appended to the span file as NDJSON
+     */
+    @Test
+    void testFileExport(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("traces/spans.ndjson");
+        RingBufferSpanExporter exporter = new RingBufferSpanExporter(10, file.toString());
+        Tracer tracer = tracerFor(exporter);
+
+        tracer.spanBuilder("first").startSpan().end();
+        tracer.spanBuilder("second").startSpan().end();
+        exporter.shutdown();
+
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(0).contains("\"name\":\"first\""));
+        assertTrue(lines.get(1).contains("\"name\":\"second\""));
+    }
+}
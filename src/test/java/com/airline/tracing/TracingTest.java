@@ -0,0 +1,82 @@
+package com.airline.tracing;
+
+import com.airline.model.Flight;
+import com.airline.model.SpanRecord;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration test for the spans recorded for a flight request
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "management.tracing.sampling.probability=1.0",
+        "flight.cache.enabled=false"})
+@AutoConfigureObservability(metrics = false)
+class TracingTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private SdkTracerProvider tracerProvider;
+
+    @Autowired
+    private RingBufferSpanExporter spanExporter;
+
+    /**
+     * Test that a request produces a server span with service and JDBC child spans in one trace
+     */
+    @Test
+    void testGetFlightTrace() {
+        Flight flight = restTemplate.postForObject("/flight/", new Flight(0, "AI101", "Delhi", "Mumbai", 5000.0),
+                Flight.class);
+
+        ResponseEntity<Flight> response = restTemplate.getForEntity("/flight/" + flight.getFlightId(), Flight.class);
+        tracerProvider.forceFlush().join(10, TimeUnit.SECONDS);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        SpanRecord server = spanExporter.recentSpans(null).stream()
+                .filter(span -> "SERVER".equals(span.getKind()) && span.getName().contains("/flight/{flightId}"))
+                .findFirst()
+                .orElseThrow();
+        List<SpanRecord> trace = spanExporter.recentSpans(server.getTraceId());
+        Map<String, SpanRecord> byId = trace.stream()
+                .collect(Collectors.toMap(SpanRecord::getSpanId, Function.identity()));
+        SpanRecord service = trace.stream()
+                .filter(span -> span.getName().contains("get-flight"))
+                .findFirst()
+                .orElseThrow();
+        SpanRecord query = trace.stream()
+                .filter(span -> "query".equals(span.getName()))
+                .findFirst()
+                .orElseThrow();
+
+        assertEquals(server.getSpanId(), service.getParentSpanId());
+        assertTrue(isDescendant(query, service, byId), "SQL span should be below the service span");
+    }
+
+    private static boolean isDescendant(SpanRecord span, SpanRecord ancestor, Map<String, SpanRecord> byId) {
+        SpanRecord current = span;
+        while (current != null && current.getParentSpanId() != null) {
+            if (current.getParentSpanId().equals(ancestor.getSpanId())) {
+                return true;
+            }
+            current = byId.get(current.getParentSpanId());
+        }
+        return false;
+    }
+}
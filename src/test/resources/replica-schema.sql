@@ -0,0 +1,9 @@
+-- Flight table of the replica database in ReadReplicaRoutingTest, the primary gets its schema from Hibernate
+CREATE TABLE IF NOT EXISTS flight (
+    flight_id INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    flight_name VARCHAR(255),
+    source VARCHAR(255),
+    destination VARCHAR(255),
+    ticket_price FLOAT(53),
+    version BIGINT NOT NULL
+);